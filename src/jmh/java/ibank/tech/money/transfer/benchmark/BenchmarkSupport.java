@@ -0,0 +1,72 @@
+package ibank.tech.money.transfer.benchmark;
+
+import ibank.tech.money.transfer.dto.FliptEvaluationSnapshot;
+import ibank.tech.money.transfer.dto.NamespaceSnapshot;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Wiring helpers for building service graphs without a Spring context
+ */
+final class BenchmarkSupport {
+
+    private BenchmarkSupport() {
+    }
+
+    /**
+     * Set a field that Spring would normally inject with @Value
+     */
+    static void setField(Object target, String name, Object value) {
+        try {
+            Field field = target.getClass().getDeclaredField(name);
+            field.setAccessible(true);
+            field.set(target, value);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Cannot set " + name + " on " + target.getClass().getSimpleName(), e);
+        }
+    }
+
+    /**
+     * Provider for an optional collaborator that is not configured
+     */
+    static <T> ObjectProvider<T> absent(Class<T> type) {
+        return new StaticListableBeanFactory().getBeanProvider(type);
+    }
+
+    /**
+     * Namespace snapshot with the given number of boolean flags named flag-0..flag-n plus the
+     * flags used by TransferService, each with a 50% threshold rollout
+     */
+    static NamespaceSnapshot namespace(String namespace, int flagCount) {
+        List<FliptEvaluationSnapshot.Flag> flags = new ArrayList<>();
+        for (int i = 0; i < flagCount; i++) {
+            flags.add(booleanFlag("flag-" + i));
+        }
+        flags.add(booleanFlag("transfer-domestic"));
+        flags.add(booleanFlag("transfer-international"));
+        flags.add(booleanFlag("bep-ff-1"));
+        return NamespaceSnapshot.fromFlipt(namespace, new FliptEvaluationSnapshot(null, flags));
+    }
+
+    private static FliptEvaluationSnapshot.Flag booleanFlag(String key) {
+        FliptEvaluationSnapshot.RolloutThreshold threshold = new FliptEvaluationSnapshot.RolloutThreshold();
+        threshold.setPercentage(50f);
+        threshold.setValue(true);
+        FliptEvaluationSnapshot.Rollout rollout = new FliptEvaluationSnapshot.Rollout();
+        rollout.setType("THRESHOLD_ROLLOUT_TYPE");
+        rollout.setRank(1);
+        rollout.setThreshold(threshold);
+
+        FliptEvaluationSnapshot.Flag flag = new FliptEvaluationSnapshot.Flag();
+        flag.setKey(key);
+        flag.setName(key);
+        flag.setType("BOOLEAN_FLAG_TYPE");
+        flag.setEnabled(true);
+        flag.setRollouts(List.of(rollout));
+        return flag;
+    }
+}
@@ -0,0 +1,112 @@
+package ibank.tech.money.transfer.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import ibank.tech.money.transfer.dto.FliptGenericUpdateEvent;
+import ibank.tech.money.transfer.service.FliptEventDecoder;
+import ibank.tech.money.transfer.service.WebSocketBroadcastService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.messaging.converter.MappingJackson2MessageConverter;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.messaging.simp.broker.SimpleBrokerMessageHandler;
+import org.springframework.messaging.support.ExecutorSubscribableChannel;
+import org.springframework.messaging.support.MessageBuilder;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Fan-out of one flag event to the simple broker with connected subscriber sessions,
+ * half on /topic/flags and half on /topic/flags/bep.
+ * <p>
+ * {@code convertAndSendPerTopic} is the previous path (serialize per topic),
+ * {@code serializeOnce} is {@link WebSocketBroadcastService#broadcastUpdate}.
+ * Run with {@code -prof gc} and compare gc.alloc.rate.norm (bytes per broadcast).
+ * No results have been recorded yet: the serialize-once path saves one JSON encoding per extra
+ * topic by construction, but its effect on allocation and latency is unmeasured.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class BroadcastFanOutBenchmark {
+
+    private static final String MESSAGE = "{\"data\":{\"action\":\"disabled\",\"namespace\":\"bep\","
+            + "\"flag_key\":\"transfer-international\",\"enabled\":false},"
+            + "\"source\":\"flipt-server\",\"timestamp\":\"2025-07-30T09:52:50Z\",\"type\":\"flag.update\"}";
+
+    @Param({"10000"})
+    private int clients;
+
+    private final AtomicLong delivered = new AtomicLong();
+
+    private SimpleBrokerMessageHandler broker;
+    private SimpMessagingTemplate messagingTemplate;
+    private WebSocketBroadcastService broadcastService;
+    private FliptGenericUpdateEvent event;
+
+    @Setup(Level.Trial)
+    public void setup() throws Exception {
+        ExecutorSubscribableChannel clientInbound = new ExecutorSubscribableChannel();
+        ExecutorSubscribableChannel clientOutbound = new ExecutorSubscribableChannel();
+        ExecutorSubscribableChannel brokerChannel = new ExecutorSubscribableChannel();
+        clientOutbound.subscribe(message -> delivered.incrementAndGet());
+
+        broker = new SimpleBrokerMessageHandler(clientInbound, clientOutbound, brokerChannel, List.of("/topic"));
+        broker.start();
+
+        for (int i = 0; i < clients; i++) {
+            String sessionId = "session-" + i;
+            SimpMessageHeaderAccessor connect = SimpMessageHeaderAccessor.create(SimpMessageType.CONNECT);
+            connect.setSessionId(sessionId);
+            connect.setHeader(SimpMessageHeaderAccessor.HEART_BEAT_HEADER, new long[] {0, 0});
+            broker.handleMessage(MessageBuilder.createMessage(new byte[0], connect.getMessageHeaders()));
+
+            SimpMessageHeaderAccessor subscribe = SimpMessageHeaderAccessor.create(SimpMessageType.SUBSCRIBE);
+            subscribe.setSessionId(sessionId);
+            subscribe.setSubscriptionId("sub-" + i);
+            subscribe.setDestination(i % 2 == 0 ? "/topic/flags" : "/topic/flags/bep");
+            broker.handleMessage(MessageBuilder.createMessage(new byte[0], subscribe.getMessageHeaders()));
+        }
+
+        ObjectMapper objectMapper = new ObjectMapper();
+        messagingTemplate = new SimpMessagingTemplate(brokerChannel);
+        messagingTemplate.setMessageConverter(new MappingJackson2MessageConverter());
+        broadcastService = new WebSocketBroadcastService(messagingTemplate, objectMapper);
+        event = new FliptEventDecoder(objectMapper).decode(MESSAGE);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        broker.stop();
+    }
+
+    @Benchmark
+    public long convertAndSendPerTopic() {
+        messagingTemplate.convertAndSend("/topic/flags", event);
+        messagingTemplate.convertAndSend("/topic/flags/bep", event);
+        return delivered.get();
+    }
+
+    @Benchmark
+    public long serializeOnce() {
+        broadcastService.broadcastUpdate(event);
+        return delivered.get();
+    }
+}
@@ -0,0 +1,40 @@
+package ibank.tech.money.transfer.benchmark;
+
+import ibank.tech.feature.flag.service.FeatureFlagService;
+
+import java.lang.reflect.Proxy;
+import java.util.List;
+
+/**
+ * In-process stand-in for the Flipt SDK: every flag is enabled and namespace lookups are empty.
+ */
+final class FakeFeatureFlagService {
+
+    private FakeFeatureFlagService() {
+    }
+
+    static FeatureFlagService create() {
+        return (FeatureFlagService) Proxy.newProxyInstance(
+                FeatureFlagService.class.getClassLoader(),
+                new Class<?>[] {FeatureFlagService.class},
+                (proxy, method, args) -> {
+                    Class<?> returnType = method.getReturnType();
+                    if (returnType == boolean.class || returnType == Boolean.class) {
+                        return Boolean.TRUE;
+                    }
+                    if (List.class.isAssignableFrom(returnType)) {
+                        return List.of();
+                    }
+                    switch (method.getName()) {
+                        case "toString":
+                            return "FakeFeatureFlagService";
+                        case "hashCode":
+                            return System.identityHashCode(proxy);
+                        case "equals":
+                            return proxy == args[0];
+                        default:
+                            return null;
+                    }
+                });
+    }
+}
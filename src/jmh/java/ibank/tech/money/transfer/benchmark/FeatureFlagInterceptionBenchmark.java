@@ -0,0 +1,257 @@
+package ibank.tech.money.transfer.benchmark;
+
+import ibank.tech.feature.flag.aop.EntityContextHolder;
+import ibank.tech.feature.flag.aop.FeatureFlag;
+import ibank.tech.feature.flag.service.FeatureFlagService;
+import ibank.tech.money.transfer.config.FeatureFlagAdvisor;
+import ibank.tech.money.transfer.config.FeatureFlagInterceptor;
+import ibank.tech.money.transfer.service.CompiledFlagEvaluator;
+import ibank.tech.money.transfer.service.EvaluationResultCache;
+import ibank.tech.money.transfer.service.FlagEvaluationContext;
+import ibank.tech.money.transfer.service.FlagSnapshotStore;
+import ibank.tech.money.transfer.service.LocalFlagEvaluator;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.aspectj.lang.annotation.Aspect;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.ComponentScan;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.EnableAspectJAutoProxy;
+import org.springframework.context.annotation.FilterType;
+import org.springframework.web.context.WebApplicationContext;
+import org.springframework.web.context.annotation.RequestScope;
+import org.springframework.web.context.request.AbstractRequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-call overhead of @FeatureFlag interception on a trivial guarded method:
+ * no proxy, the SDK aspect, and the project-local advisor. Both guards see the flag as enabled.
+ * <p>
+ * {@code localAdvisorInRequest} is the path taken in production, inside an HTTP request: a
+ * simulated request with {@value #CALLS_PER_REQUEST} guarded calls, including the creation of the
+ * request-scoped {@link FlagEvaluationContext} that memoizes the result.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class FeatureFlagInterceptionBenchmark {
+
+    private static final int CALLS_PER_REQUEST = 4;
+
+    private AnnotationConfigApplicationContext sdkAspectContext;
+    private AnnotationConfigApplicationContext advisorContext;
+    private AnnotationConfigApplicationContext requestAdvisorContext;
+    private GuardedTarget direct;
+    private GuardedTarget sdkAspect;
+    private GuardedTarget advisor;
+    private GuardedTarget requestAdvisor;
+    private int value;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        sdkAspectContext = new AnnotationConfigApplicationContext(SdkAspectConfig.class);
+        advisorContext = new AnnotationConfigApplicationContext(AdvisorConfig.class);
+        requestAdvisorContext = new AnnotationConfigApplicationContext();
+        requestAdvisorContext.getBeanFactory().registerScope(WebApplicationContext.SCOPE_REQUEST,
+                new org.springframework.web.context.request.RequestScope());
+        requestAdvisorContext.register(RequestAdvisorConfig.class);
+        requestAdvisorContext.refresh();
+        direct = new GuardedTarget();
+        sdkAspect = sdkAspectContext.getBean(GuardedTarget.class);
+        advisor = advisorContext.getBean(GuardedTarget.class);
+        requestAdvisor = requestAdvisorContext.getBean(GuardedTarget.class);
+
+        // Pick an entity inside the 50% rollout so neither guard rejects the call
+        LocalFlagEvaluator evaluator = advisorContext.getBean(LocalFlagEvaluator.class);
+        int candidate = 0;
+        while (!Boolean.TRUE.equals(evaluator.evaluate("bep", "transfer-domestic", "entity-" + candidate, Map.of()))) {
+            candidate++;
+        }
+        EntityContextHolder.setEntityId("entity-" + candidate);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        EntityContextHolder.clear();
+        sdkAspectContext.close();
+        advisorContext.close();
+        requestAdvisorContext.close();
+    }
+
+    @Benchmark
+    public int direct() {
+        return direct.guarded(value++);
+    }
+
+    @Benchmark
+    public int sdkAspect() {
+        return sdkAspect.guarded(value++);
+    }
+
+    @Benchmark
+    public int localAdvisor() {
+        return advisor.guarded(value++);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(CALLS_PER_REQUEST)
+    public int localAdvisorInRequest() {
+        BenchmarkRequestAttributes request = new BenchmarkRequestAttributes();
+        RequestContextHolder.setRequestAttributes(request);
+        try {
+            int result = 0;
+            for (int i = 0; i < CALLS_PER_REQUEST; i++) {
+                result += requestAdvisor.guarded(value++);
+            }
+            return result;
+        } finally {
+            RequestContextHolder.resetRequestAttributes();
+            request.requestCompleted();
+        }
+    }
+
+    public static class GuardedTarget {
+
+        @FeatureFlag(key = "transfer-domestic", namespace = "bep")
+        public int guarded(int input) {
+            return input + 1;
+        }
+    }
+
+    @Configuration
+    static class CommonConfig {
+
+        @Bean
+        FeatureFlagService featureFlagService() {
+            return FakeFeatureFlagService.create();
+        }
+
+        @Bean
+        FlagSnapshotStore flagSnapshotStore() {
+            FlagSnapshotStore snapshotStore = new FlagSnapshotStore();
+            snapshotStore.replace(BenchmarkSupport.namespace("bep", 200));
+            return snapshotStore;
+        }
+
+        @Bean
+        LocalFlagEvaluator localFlagEvaluator(FlagSnapshotStore flagSnapshotStore) {
+            return new LocalFlagEvaluator(flagSnapshotStore,
+                    new EvaluationResultCache(flagSnapshotStore, 100_000, new SimpleMeterRegistry()));
+        }
+
+        @Bean
+        GuardedTarget guardedTarget() {
+            return new GuardedTarget();
+        }
+    }
+
+    @Configuration
+    @EnableAspectJAutoProxy
+    @ComponentScan(basePackages = "ibank.tech.feature.flag.aop", useDefaultFilters = false,
+            includeFilters = @ComponentScan.Filter(type = FilterType.ANNOTATION, classes = Aspect.class))
+    static class SdkAspectConfig extends CommonConfig {
+    }
+
+    @Configuration
+    @EnableAspectJAutoProxy
+    static class AdvisorConfig extends CommonConfig {
+
+        @Bean
+        static FeatureFlagInterceptor featureFlagInterceptor(ObjectProvider<LocalFlagEvaluator> localFlagEvaluator,
+                                                             ObjectProvider<FeatureFlagService> featureFlagService,
+                                                             ObjectProvider<FlagEvaluationContext> flagEvaluationContext) {
+            return new FeatureFlagInterceptor(localFlagEvaluator, featureFlagService, flagEvaluationContext);
+        }
+
+        @Bean
+        static FeatureFlagAdvisor featureFlagAdvisor(FeatureFlagInterceptor featureFlagInterceptor) {
+            return new FeatureFlagAdvisor(featureFlagInterceptor);
+        }
+    }
+
+    @Configuration
+    static class RequestAdvisorConfig extends AdvisorConfig {
+
+        @Bean
+        @RequestScope
+        FlagEvaluationContext flagEvaluationContext(LocalFlagEvaluator localFlagEvaluator,
+                                                    FlagSnapshotStore flagSnapshotStore,
+                                                    FeatureFlagService featureFlagService) {
+            return new FlagEvaluationContext(localFlagEvaluator, new CompiledFlagEvaluator(flagSnapshotStore),
+                    featureFlagService, new SimpleMeterRegistry());
+        }
+    }
+
+    /**
+     * Attributes of a simulated request, enough for request-scoped beans outside a servlet container
+     */
+    static final class BenchmarkRequestAttributes extends AbstractRequestAttributes {
+
+        private final Map<String, Object> attributes = new HashMap<>();
+
+        @Override
+        public Object getAttribute(String name, int scope) {
+            return attributes.get(name);
+        }
+
+        @Override
+        public void setAttribute(String name, Object value, int scope) {
+            attributes.put(name, value);
+        }
+
+        @Override
+        public void removeAttribute(String name, int scope) {
+            attributes.remove(name);
+        }
+
+        @Override
+        public String[] getAttributeNames(int scope) {
+            return attributes.keySet().toArray(String[]::new);
+        }
+
+        @Override
+        public void registerDestructionCallback(String name, Runnable callback, int scope) {
+            registerRequestDestructionCallback(name, callback);
+        }
+
+        @Override
+        public Object resolveReference(String key) {
+            return null;
+        }
+
+        @Override
+        public String getSessionId() {
+            return "";
+        }
+
+        @Override
+        public Object getSessionMutex() {
+            return this;
+        }
+
+        @Override
+        protected void updateAccessedSessionAttributes() {
+        }
+    }
+}
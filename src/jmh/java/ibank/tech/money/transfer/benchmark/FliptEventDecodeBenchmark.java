@@ -0,0 +1,117 @@
+package ibank.tech.money.transfer.benchmark;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import ibank.tech.money.transfer.dto.FliptGenericUpdateEvent;
+import ibank.tech.money.transfer.service.FliptEventDecoder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Decoding of a Flipt flag event plus the field accesses one event sees on its way through
+ * handler, processor and broadcaster: Map-based data binding vs the streaming decoder.
+ * Run with {@code -prof gc} to compare allocation per event.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class FliptEventDecodeBenchmark {
+
+    private static final String MESSAGE = "{\"data\":{\"action\":\"updated\",\"namespace\":\"bep\","
+            + "\"flag_key\":\"transfer-international\",\"enabled\":true,"
+            + "\"flag\":{\"key\":\"transfer-international\",\"name\":\"Transfer international\","
+            + "\"description\":\"\",\"enabled\":true,\"type\":\"BOOLEAN_FLAG_TYPE\"}},"
+            + "\"source\":\"flipt-server\",\"timestamp\":\"2025-07-30T09:52:50Z\",\"type\":\"flag.update\"}";
+
+    private ObjectMapper objectMapper;
+    private FliptEventDecoder decoder;
+
+    @Setup
+    public void setup() {
+        objectMapper = new ObjectMapper();
+        decoder = new FliptEventDecoder(objectMapper);
+    }
+
+    @Benchmark
+    public void mapBased(Blackhole blackhole) throws Exception {
+        MapBasedEvent event = objectMapper.readValue(MESSAGE, MapBasedEvent.class);
+        for (int i = 0; i < 4; i++) {
+            blackhole.consume(event.getType());
+            blackhole.consume(event.getAction());
+            blackhole.consume(event.getNamespace());
+            blackhole.consume(event.getFlagKey());
+            blackhole.consume(event.getEnabled());
+        }
+    }
+
+    @Benchmark
+    public void streaming(Blackhole blackhole) throws Exception {
+        FliptGenericUpdateEvent event = decoder.decode(MESSAGE);
+        for (int i = 0; i < 4; i++) {
+            blackhole.consume(event.getType());
+            blackhole.consume(event.getAction());
+            blackhole.consume(event.getNamespace());
+            blackhole.consume(event.getFlagKey());
+            blackhole.consume(event.getEnabled());
+        }
+    }
+
+    /**
+     * The event model before typed decoding: every accessor is a map lookup and cast
+     */
+    @Data
+    @NoArgsConstructor
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    public static class MapBasedEvent {
+
+        @JsonProperty("type")
+        private String type;
+
+        @JsonProperty("data")
+        private Map<String, Object> data;
+
+        @JsonProperty("source")
+        private String source;
+
+        @JsonProperty("timestamp")
+        private String timestamp;
+
+        public String getAction() {
+            return data != null ? (String) data.get("action") : null;
+        }
+
+        public String getNamespace() {
+            return data != null ? (String) data.get("namespace") : "default";
+        }
+
+        public String getFlagKey() {
+            return data != null ? (String) data.get("flag_key") : null;
+        }
+
+        public Boolean getEnabled() {
+            Object enabled = data != null ? data.get("enabled") : null;
+            if (enabled instanceof Boolean) {
+                return (Boolean) enabled;
+            }
+            return null;
+        }
+    }
+}
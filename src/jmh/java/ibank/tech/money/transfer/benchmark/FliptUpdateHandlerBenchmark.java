@@ -0,0 +1,148 @@
+package ibank.tech.money.transfer.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import ibank.tech.feature.flag.service.FeatureFlagService;
+import ibank.tech.money.transfer.dto.FliptGenericUpdateEvent;
+import ibank.tech.money.transfer.service.EventDeduplicator;
+import ibank.tech.money.transfer.service.EventSequenceTracker;
+import ibank.tech.money.transfer.service.FlagSnapshotFile;
+import ibank.tech.money.transfer.service.FlagSnapshotStore;
+import ibank.tech.money.transfer.service.FliptConstraintProcessor;
+import ibank.tech.money.transfer.service.FliptEventDecoder;
+import ibank.tech.money.transfer.service.FliptEventPipeline;
+import ibank.tech.money.transfer.service.FliptEventRouter;
+import ibank.tech.money.transfer.service.FliptFlagProcessor;
+import ibank.tech.money.transfer.service.FliptSegmentProcessor;
+import ibank.tech.money.transfer.service.FliptSnapshotClient;
+import ibank.tech.money.transfer.service.FliptUnifiedUpdateHandler;
+import ibank.tech.money.transfer.service.FliptUpdateMetrics;
+import ibank.tech.money.transfer.service.MultiNamespaceFeatureFlagService;
+import ibank.tech.money.transfer.service.WebSocketBroadcastService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.web.client.RestClient;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Flag enable/disable events through the update path, with a fake SDK, an unreachable Flipt
+ * and a no-op broker channel.
+ * <p>
+ * {@code handleMessage} is the cost on the Redis listener thread (parse and enqueue);
+ * {@code decodeAndRoute} is the full synchronous processing of one event
+ * (parse, snapshot patch, broadcast encoding); {@code duplicateCheck} is the dedup table lookup
+ * of an already seen event.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class FliptUpdateHandlerBenchmark {
+
+    private static final String[] MESSAGES = new String[16];
+
+    static {
+        for (int i = 0; i < MESSAGES.length; i++) {
+            String action = i % 2 == 0 ? "disabled" : "enabled";
+            MESSAGES[i] = "{\"data\":{\"action\":\"" + action + "\",\"namespace\":\"bep\",\"flag_key\":\"flag-" + i
+                    + "\"},\"source\":\"flipt-server\",\"timestamp\":\"2025-07-30T09:52:50Z\",\"type\":\"flag.update\"}";
+        }
+    }
+
+    private MultiNamespaceFeatureFlagService multiNamespaceFeatureFlagService;
+    private FliptEventPipeline pipeline;
+    private FliptEventDecoder decoder;
+    private FliptEventRouter router;
+    private FliptUnifiedUpdateHandler handler;
+    private EventDeduplicator deduplicator;
+    private final FliptGenericUpdateEvent[] events = new FliptGenericUpdateEvent[MESSAGES.length];
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        ObjectMapper objectMapper = new ObjectMapper();
+        FeatureFlagService featureFlagService = FakeFeatureFlagService.create();
+        FliptUpdateMetrics updateMetrics = new FliptUpdateMetrics(new SimpleMeterRegistry(), 0.0,
+                Map.of("bep", "token"));
+
+        FlagSnapshotStore snapshotStore = new FlagSnapshotStore();
+        snapshotStore.replace(BenchmarkSupport.namespace("bep", 200));
+        FliptSnapshotClient snapshotClient = new FliptSnapshotClient(RestClient.builder(), objectMapper, "http://localhost:1",
+                Duration.ofSeconds(2), Duration.ofSeconds(5));
+        multiNamespaceFeatureFlagService = new MultiNamespaceFeatureFlagService(featureFlagService, snapshotClient,
+                snapshotStore, updateMetrics, BenchmarkSupport.absent(FlagSnapshotFile.class),
+                Duration.ofMillis(250), Duration.ofSeconds(2), 1);
+
+        SimpMessagingTemplate messagingTemplate = new SimpMessagingTemplate((message, timeout) -> true);
+        WebSocketBroadcastService broadcastService = new WebSocketBroadcastService(messagingTemplate, objectMapper);
+
+        router = new FliptEventRouter(
+                new FliptFlagProcessor(multiNamespaceFeatureFlagService, broadcastService),
+                new FliptSegmentProcessor(multiNamespaceFeatureFlagService),
+                new FliptConstraintProcessor(multiNamespaceFeatureFlagService),
+                broadcastService,
+                updateMetrics);
+
+        pipeline = new FliptEventPipeline(router);
+        BenchmarkSupport.setField(pipeline, "workers", 2);
+        BenchmarkSupport.setField(pipeline, "queueCapacity", 4096);
+        BenchmarkSupport.setField(pipeline, "offerTimeout", Duration.ZERO);
+        BenchmarkSupport.setField(pipeline, "drainBatch", 64);
+        BenchmarkSupport.setField(pipeline, "expressWorkers", 1);
+        BenchmarkSupport.setField(pipeline, "configuredExpressNamespaces", List.of());
+        pipeline.start();
+
+        decoder = new FliptEventDecoder(objectMapper);
+        EventSequenceTracker sequenceTracker = new EventSequenceTracker(multiNamespaceFeatureFlagService);
+        // The messages repeat, so suppression is disabled here to keep measuring the enqueue path
+        handler = new FliptUnifiedUpdateHandler(decoder, pipeline, updateMetrics,
+                new EventDeduplicator(Duration.ZERO, 4096), sequenceTracker);
+
+        deduplicator = new EventDeduplicator(Duration.ofMinutes(10), 4096);
+        for (int i = 0; i < MESSAGES.length; i++) {
+            try {
+                events[i] = decoder.decode(MESSAGES[i]);
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws InterruptedException {
+        pipeline.stop();
+        multiNamespaceFeatureFlagService.shutdown();
+    }
+
+    @Benchmark
+    public void handleMessage() {
+        handler.handleMessage(MESSAGES[next++ & (MESSAGES.length - 1)]);
+    }
+
+    @Benchmark
+    public boolean duplicateCheck() {
+        return deduplicator.isDuplicate(events[next++ & (events.length - 1)]);
+    }
+
+    @Benchmark
+    public void decodeAndRoute() throws Exception {
+        router.route(decoder.decode(MESSAGES[next++ & (MESSAGES.length - 1)]));
+    }
+}
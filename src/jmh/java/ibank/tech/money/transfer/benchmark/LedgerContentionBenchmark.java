@@ -0,0 +1,85 @@
+package ibank.tech.money.transfer.benchmark;
+
+import ibank.tech.money.transfer.service.AccountLedger;
+import ibank.tech.money.transfer.service.TransferJournal;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Ledger transfer throughput on all cores with traffic skewed toward a few hot accounts.
+ * <p>
+ * With probability {@code hotRatio} one side of a transfer is one of the {@code hotAccounts},
+ * otherwise both sides are drawn uniformly from all accounts. Compare {@code hotRatio=0} (uniform)
+ * with the skewed settings, and vary {@code stripes} to see the effect of lock striping.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(Threads.MAX)
+@State(Scope.Benchmark)
+public class LedgerContentionBenchmark {
+
+    @Param({"100000"})
+    private int accounts;
+
+    @Param({"8"})
+    private int hotAccounts;
+
+    @Param({"0", "0.5", "0.9"})
+    private double hotRatio;
+
+    @Param({"64", "1024"})
+    private int stripes;
+
+    private AccountLedger ledger;
+    private String[] accountIds;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        ledger = new AccountLedger(stripes, (TransferJournal) null);
+        accountIds = new String[accounts];
+        for (int i = 0; i < accounts; i++) {
+            accountIds[i] = "ACC-" + i;
+            ledger.openAccount(accountIds[i], Long.MAX_VALUE / 4);
+        }
+    }
+
+    @Benchmark
+    public void transfer() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int from;
+        int to;
+        if (random.nextDouble() < hotRatio) {
+            from = random.nextInt(hotAccounts);
+            to = hotAccounts + random.nextInt(accounts - hotAccounts);
+            if (random.nextBoolean()) {
+                int swap = from;
+                from = to;
+                to = swap;
+            }
+        } else {
+            from = random.nextInt(accounts);
+            to = random.nextInt(accounts - 1);
+            if (to >= from) {
+                to++;
+            }
+        }
+        ledger.transfer(accountIds[from], accountIds[to], 1 + random.nextInt(1_000));
+    }
+}
@@ -0,0 +1,140 @@
+package ibank.tech.money.transfer.benchmark;
+
+import ibank.tech.money.transfer.dto.FliptEvaluationSnapshot;
+import ibank.tech.money.transfer.dto.NamespaceSnapshot;
+import ibank.tech.money.transfer.dto.TransferRequest;
+import ibank.tech.money.transfer.service.CompiledFlagEvaluator;
+import ibank.tech.money.transfer.service.EvaluationResultCache;
+import ibank.tech.money.transfer.service.FlagSnapshotStore;
+import ibank.tech.money.transfer.service.LocalFlagEvaluator;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * One flag evaluation with transfer request attributes: the snapshot walk over an attribute map
+ * built per call, as TransferService did before, vs the compiled evaluator reading the request.
+ * <p>
+ * The flag has a segment rollout (role and region, or amount) that does not match the request,
+ * followed by a 50% threshold rollout, so every call evaluates constraints and hashes the entity.
+ * With {@code -prof gc} (the jmh profile default), {@code compiled} reports a
+ * gc.alloc.rate.norm of 0 B/op.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class LocalFlagEvaluationBenchmark {
+
+    private static final String FLAG = "transfer-limit";
+
+    private LocalFlagEvaluator mapEvaluator;
+    private CompiledFlagEvaluator compiledEvaluator;
+    private TransferRequest request;
+    private String[] entityIds;
+    private int next;
+
+    @Setup
+    public void setup() {
+        FlagSnapshotStore snapshotStore = new FlagSnapshotStore();
+        snapshotStore.replace(namespace());
+        mapEvaluator = new LocalFlagEvaluator(snapshotStore,
+                new EvaluationResultCache(snapshotStore, 100_000, new SimpleMeterRegistry()));
+        compiledEvaluator = new CompiledFlagEvaluator(snapshotStore);
+        request = new TransferRequest(75.25, "ACC-1", "ACC-2", "retail", "us", "user-42", null);
+        entityIds = new String[1024];
+        for (int i = 0; i < entityIds.length; i++) {
+            entityIds[i] = "user-" + i;
+        }
+    }
+
+    @Benchmark
+    public Boolean mapAttributes() {
+        String entityId = entityIds[next++ & (entityIds.length - 1)];
+        return mapEvaluator.evaluate("bep", FLAG, entityId, attributes(request));
+    }
+
+    @Benchmark
+    public Boolean compiled() {
+        String entityId = entityIds[next++ & (entityIds.length - 1)];
+        return compiledEvaluator.evaluate("bep", FLAG, entityId, request);
+    }
+
+    private static Map<String, String> attributes(TransferRequest transferRequest) {
+        Map<String, String> context = new HashMap<>();
+        context.put("role", transferRequest.getRole());
+        context.put("region", transferRequest.getRegion());
+        context.put("from", transferRequest.getFrom());
+        context.put("to", transferRequest.getTo());
+        context.put("amount", Double.toString(transferRequest.getAmount()));
+        return context;
+    }
+
+    private static NamespaceSnapshot namespace() {
+        FliptEvaluationSnapshot.Segment retailEurope = segment("retail-europe", "ALL_MATCH_TYPE",
+                constraint("STRING_CONSTRAINT_COMPARISON_TYPE", "role", "eq", "retail"),
+                constraint("STRING_CONSTRAINT_COMPARISON_TYPE", "region", "isoneof", "[\"eu\",\"uk\"]"));
+        FliptEvaluationSnapshot.Segment largeAmount = segment("large-amount", "ANY_MATCH_TYPE",
+                constraint("NUMBER_CONSTRAINT_COMPARISON_TYPE", "amount", "gte", "10000"));
+
+        FliptEvaluationSnapshot.RolloutSegment segmentRollout = new FliptEvaluationSnapshot.RolloutSegment();
+        segmentRollout.setValue(false);
+        segmentRollout.setSegmentOperator("OR_SEGMENT_OPERATOR");
+        segmentRollout.setSegments(List.of(retailEurope, largeAmount));
+        FliptEvaluationSnapshot.Rollout first = new FliptEvaluationSnapshot.Rollout();
+        first.setType("SEGMENT_ROLLOUT_TYPE");
+        first.setRank(1);
+        first.setSegment(segmentRollout);
+
+        FliptEvaluationSnapshot.RolloutThreshold threshold = new FliptEvaluationSnapshot.RolloutThreshold();
+        threshold.setPercentage(50f);
+        threshold.setValue(true);
+        FliptEvaluationSnapshot.Rollout second = new FliptEvaluationSnapshot.Rollout();
+        second.setType("THRESHOLD_ROLLOUT_TYPE");
+        second.setRank(2);
+        second.setThreshold(threshold);
+
+        FliptEvaluationSnapshot.Flag flag = new FliptEvaluationSnapshot.Flag();
+        flag.setKey(FLAG);
+        flag.setName(FLAG);
+        flag.setType("BOOLEAN_FLAG_TYPE");
+        flag.setEnabled(false);
+        flag.setRollouts(List.of(first, second));
+
+        return NamespaceSnapshot.fromFlipt("bep", new FliptEvaluationSnapshot(null, List.of(flag)));
+    }
+
+    private static FliptEvaluationSnapshot.Segment segment(String key, String matchType,
+                                                           FliptEvaluationSnapshot.Constraint... constraints) {
+        FliptEvaluationSnapshot.Segment segment = new FliptEvaluationSnapshot.Segment();
+        segment.setKey(key);
+        segment.setMatchType(matchType);
+        segment.setConstraints(List.of(constraints));
+        return segment;
+    }
+
+    private static FliptEvaluationSnapshot.Constraint constraint(String type, String property, String operator,
+                                                                 String value) {
+        FliptEvaluationSnapshot.Constraint constraint = new FliptEvaluationSnapshot.Constraint();
+        constraint.setType(type);
+        constraint.setProperty(property);
+        constraint.setOperator(operator);
+        constraint.setValue(value);
+        return constraint;
+    }
+}
@@ -0,0 +1,136 @@
+package ibank.tech.money.transfer.benchmark;
+
+import ibank.tech.feature.flag.service.FeatureFlagService;
+import ibank.tech.money.transfer.dto.TransferReceipt;
+import ibank.tech.money.transfer.dto.TransferRequest;
+import ibank.tech.money.transfer.service.AccountLedger;
+import ibank.tech.money.transfer.service.CompiledFlagEvaluator;
+import ibank.tech.money.transfer.service.EvaluationResultCache;
+import ibank.tech.money.transfer.service.FlagSnapshotStore;
+import ibank.tech.money.transfer.service.LocalFlagEvaluator;
+import ibank.tech.money.transfer.service.TransferJournal;
+import ibank.tech.money.transfer.service.TransferService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.aspectj.lang.annotation.Aspect;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.ComponentScan;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.EnableAspectJAutoProxy;
+import org.springframework.context.annotation.FilterType;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * TransferService call paths with a fake SDK and a loaded local snapshot.
+ * <p>
+ * {@code *Proxied} calls go through the Spring proxy with the SDK's @FeatureFlag aspect,
+ * {@code *Direct} call the same instance type without a proxy, so the difference is the
+ * aspect overhead.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class TransferServiceBenchmark {
+
+    private AnnotationConfigApplicationContext context;
+    private TransferService proxied;
+    private TransferService direct;
+    private TransferRequest request;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        context = new AnnotationConfigApplicationContext(AspectConfig.class);
+        proxied = context.getBean(TransferService.class);
+        direct = new TransferService(context.getBean(FeatureFlagService.class),
+                context.getBean(LocalFlagEvaluator.class), context.getBean(CompiledFlagEvaluator.class),
+                context.getBean(AccountLedger.class), null);
+        request = new TransferRequest(125.50, "ACC-1", "ACC-2", "retail", "eu", "user-42", null);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public TransferReceipt transferDomesticProxied() {
+        return proxied.transferDomestic(request);
+    }
+
+    @Benchmark
+    public TransferReceipt transferDomesticDirect() {
+        return direct.transferDomestic(request);
+    }
+
+    @Benchmark
+    public String transferInternationalProxied() {
+        return proxied.transferInternational(request);
+    }
+
+    @Benchmark
+    public String transferInternationalDirect() {
+        return direct.transferInternational(request);
+    }
+
+    @Configuration
+    @EnableAspectJAutoProxy
+    @ComponentScan(basePackages = "ibank.tech.feature.flag.aop", useDefaultFilters = false,
+            includeFilters = @ComponentScan.Filter(type = FilterType.ANNOTATION, classes = Aspect.class))
+    static class AspectConfig {
+
+        @Bean
+        FeatureFlagService featureFlagService() {
+            return FakeFeatureFlagService.create();
+        }
+
+        @Bean
+        FlagSnapshotStore flagSnapshotStore() {
+            FlagSnapshotStore snapshotStore = new FlagSnapshotStore();
+            snapshotStore.replace(BenchmarkSupport.namespace("bep", 200));
+            return snapshotStore;
+        }
+
+        @Bean
+        LocalFlagEvaluator localFlagEvaluator(FlagSnapshotStore flagSnapshotStore) {
+            return new LocalFlagEvaluator(flagSnapshotStore,
+                    new EvaluationResultCache(flagSnapshotStore, 100_000, new SimpleMeterRegistry()));
+        }
+
+        @Bean
+        CompiledFlagEvaluator compiledFlagEvaluator(FlagSnapshotStore flagSnapshotStore) {
+            return new CompiledFlagEvaluator(flagSnapshotStore);
+        }
+
+        @Bean
+        AccountLedger accountLedger() {
+            AccountLedger ledger = new AccountLedger(1024, (TransferJournal) null);
+            ledger.openAccount("ACC-1", Long.MAX_VALUE / 2);
+            ledger.openAccount("ACC-2", 0);
+            return ledger;
+        }
+
+        @Bean
+        TransferService transferService(FeatureFlagService featureFlagService, LocalFlagEvaluator localFlagEvaluator,
+                                        CompiledFlagEvaluator compiledFlagEvaluator, AccountLedger accountLedger) {
+            // No request scope here, so the request-scoped evaluation context is never used
+            return new TransferService(featureFlagService, localFlagEvaluator, compiledFlagEvaluator, accountLedger,
+                    null);
+        }
+    }
+}
@@ -0,0 +1,272 @@
+package ibank.tech.money.transfer.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketMessage;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.handler.WebSocketSessionDecorator;
+
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Session decorator with a bounded outbound queue.
+ * <p>
+ * {@link #sendMessage} only enqueues, so broker threads never wait on a slow client.
+ * The queue is drained on the sender executor, one drain at a time per session. When the queue
+ * exceeds its message or byte limit the configured {@link OverflowPolicy} is applied. Only MESSAGE
+ * frames are ever dropped or conflated; CONNECTED, RECEIPT and ERROR frames belong to the protocol
+ * exchange with the client and are always sent.
+ */
+@Slf4j
+public class BoundedSendSessionDecorator extends WebSocketSessionDecorator {
+
+    public enum OverflowPolicy {
+        /** Keep only the latest pending MESSAGE frame per destination */
+        CONFLATE,
+        /** Drop the oldest pending MESSAGE frames */
+        DROP_OLDEST,
+        /** Close the session */
+        DISCONNECT
+    }
+
+    private final Executor senderExecutor;
+    private final OverflowPolicy overflowPolicy;
+    private final int queueCapacity;
+    private final long bufferSizeLimit;
+    private final long sendTimeoutNanos;
+
+    // Pending frames in send order; conflatable frames are keyed by destination, others by sequence
+    private final LinkedHashMap<Object, PendingFrame> pending = new LinkedHashMap<>();
+    private long pendingBytes;
+    private long frameSequence;
+
+    private final AtomicBoolean draining = new AtomicBoolean();
+    private volatile long sendStartedAt;
+    private volatile boolean closing;
+
+    private final AtomicLong sent = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+    private final AtomicLong conflated = new AtomicLong();
+
+    public BoundedSendSessionDecorator(WebSocketSession delegate, Executor senderExecutor, OverflowPolicy overflowPolicy,
+                                       int queueCapacity, long bufferSizeLimit, long sendTimeoutNanos) {
+        super(delegate);
+        this.senderExecutor = senderExecutor;
+        this.overflowPolicy = overflowPolicy;
+        this.queueCapacity = queueCapacity;
+        this.bufferSizeLimit = bufferSizeLimit;
+        this.sendTimeoutNanos = sendTimeoutNanos;
+    }
+
+    @Override
+    public void sendMessage(WebSocketMessage<?> message) throws IOException {
+        if (closing) {
+            return;
+        }
+        if (isSendTimedOut()) {
+            disconnect("send timeout exceeded");
+            return;
+        }
+        synchronized (pending) {
+            String destination = overflowPolicy == OverflowPolicy.CONFLATE ? destinationOf(message) : null;
+            Object key = destination != null ? destination : ++frameSequence;
+            PendingFrame previous = pending.remove(key);
+            if (previous != null) {
+                pendingBytes -= previous.size;
+                conflated.incrementAndGet();
+            }
+            PendingFrame frame = new PendingFrame(message, System.nanoTime());
+            pending.put(key, frame);
+            pendingBytes += frame.size;
+
+            if (pending.size() > queueCapacity || pendingBytes > bufferSizeLimit) {
+                if (overflowPolicy == OverflowPolicy.DISCONNECT) {
+                    pending.clear();
+                    pendingBytes = 0;
+                    closing = true;
+                } else {
+                    trimOldest();
+                }
+            }
+        }
+        if (closing) {
+            disconnect("outbound queue limit exceeded");
+            return;
+        }
+        scheduleDrain();
+    }
+
+    /**
+     * True if a send to the client has been blocked for longer than the send timeout
+     */
+    public boolean isSendTimedOut() {
+        long startedAt = sendStartedAt;
+        return startedAt != 0 && System.nanoTime() - startedAt > sendTimeoutNanos;
+    }
+
+    public int getQueueDepth() {
+        synchronized (pending) {
+            return pending.size();
+        }
+    }
+
+    public long getQueuedBytes() {
+        synchronized (pending) {
+            return pendingBytes;
+        }
+    }
+
+    /**
+     * Age of the oldest frame still waiting to be sent, in milliseconds
+     */
+    public long getLagMillis() {
+        synchronized (pending) {
+            Iterator<PendingFrame> iterator = pending.values().iterator();
+            return iterator.hasNext() ? (System.nanoTime() - iterator.next().enqueuedAt) / 1_000_000 : 0;
+        }
+    }
+
+    public long getSentCount() {
+        return sent.get();
+    }
+
+    public long getDroppedCount() {
+        return dropped.get();
+    }
+
+    public long getConflatedCount() {
+        return conflated.get();
+    }
+
+    /**
+     * Per-session metrics snapshot
+     */
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("queueDepth", getQueueDepth());
+        stats.put("queuedBytes", getQueuedBytes());
+        stats.put("lagMillis", getLagMillis());
+        stats.put("sent", sent.get());
+        stats.put("dropped", dropped.get());
+        stats.put("conflated", conflated.get());
+        stats.put("sendBlocked", sendStartedAt != 0);
+        return stats;
+    }
+
+    /**
+     * Close the session because it cannot keep up
+     */
+    public void disconnect(String reason) {
+        closing = true;
+        log.warn("Closing slow WebSocket session {}: {} (queued: {}, dropped: {})",
+                getId(), reason, getQueueDepth(), dropped.get());
+        try {
+            getDelegate().close(CloseStatus.SESSION_NOT_RELIABLE);
+        } catch (IOException e) {
+            log.debug("Error closing WebSocket session {}", getId(), e);
+        }
+    }
+
+    private void trimOldest() {
+        Iterator<PendingFrame> iterator = pending.values().iterator();
+        while ((pending.size() > queueCapacity || pendingBytes > bufferSizeLimit) && iterator.hasNext()) {
+            PendingFrame oldest = iterator.next();
+            if (!iterator.hasNext()) {
+                // Always keep the newest frame
+                break;
+            }
+            if (!oldest.droppable) {
+                continue;
+            }
+            iterator.remove();
+            pendingBytes -= oldest.size;
+            dropped.incrementAndGet();
+        }
+    }
+
+    private void scheduleDrain() {
+        if (draining.compareAndSet(false, true)) {
+            try {
+                senderExecutor.execute(this::drain);
+            } catch (RejectedExecutionException e) {
+                draining.set(false);
+            }
+        }
+    }
+
+    private void drain() {
+        try {
+            while (!closing) {
+                PendingFrame frame;
+                synchronized (pending) {
+                    Iterator<PendingFrame> iterator = pending.values().iterator();
+                    if (!iterator.hasNext()) {
+                        break;
+                    }
+                    frame = iterator.next();
+                    iterator.remove();
+                    pendingBytes -= frame.size;
+                }
+                sendStartedAt = System.nanoTime();
+                try {
+                    getDelegate().sendMessage(frame.message);
+                    sent.incrementAndGet();
+                } finally {
+                    sendStartedAt = 0;
+                }
+            }
+        } catch (Exception e) {
+            log.debug("Failed to send to WebSocket session {}: {}", getId(), e.getMessage());
+            closing = true;
+        } finally {
+            draining.set(false);
+            if (!closing && getQueueDepth() > 0) {
+                scheduleDrain();
+            }
+        }
+    }
+
+    private static boolean isMessageFrame(WebSocketMessage<?> message) {
+        return message instanceof TextMessage && ((TextMessage) message).getPayload().startsWith("MESSAGE\n");
+    }
+
+    /**
+     * Destination header of a STOMP MESSAGE frame, or null for any other frame
+     */
+    private static String destinationOf(WebSocketMessage<?> message) {
+        if (!isMessageFrame(message)) {
+            return null;
+        }
+        String payload = ((TextMessage) message).getPayload();
+        int headerEnd = payload.indexOf("\n\n");
+        int start = payload.indexOf("\ndestination:");
+        if (start < 0 || (headerEnd >= 0 && start > headerEnd)) {
+            return null;
+        }
+        start += "\ndestination:".length();
+        int end = payload.indexOf('\n', start);
+        return end > start ? payload.substring(start, end) : null;
+    }
+
+    private static final class PendingFrame {
+        private final WebSocketMessage<?> message;
+        private final long enqueuedAt;
+        private final int size;
+        private final boolean droppable;
+
+        private PendingFrame(WebSocketMessage<?> message, long enqueuedAt) {
+            this.message = message;
+            this.enqueuedAt = enqueuedAt;
+            this.size = message.getPayloadLength();
+            this.droppable = isMessageFrame(message);
+        }
+    }
+}
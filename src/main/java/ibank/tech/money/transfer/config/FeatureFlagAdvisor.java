@@ -0,0 +1,39 @@
+package ibank.tech.money.transfer.config;
+
+import org.aopalliance.aop.Advice;
+import org.springframework.aop.Pointcut;
+import org.springframework.aop.support.AbstractPointcutAdvisor;
+import org.springframework.aop.support.StaticMethodMatcherPointcut;
+
+import java.lang.reflect.Method;
+
+/**
+ * Advisor for methods annotated with the SDK's @FeatureFlag, backed by {@link FeatureFlagInterceptor}.
+ * The pointcut is static, so it is evaluated once per method when a proxy is created, and each
+ * match is recorded in the interceptor's binding table.
+ */
+public class FeatureFlagAdvisor extends AbstractPointcutAdvisor {
+
+    private final FeatureFlagInterceptor interceptor;
+    private final Pointcut pointcut;
+
+    public FeatureFlagAdvisor(FeatureFlagInterceptor interceptor) {
+        this.interceptor = interceptor;
+        this.pointcut = new StaticMethodMatcherPointcut() {
+            @Override
+            public boolean matches(Method method, Class<?> targetClass) {
+                return interceptor.register(method, targetClass);
+            }
+        };
+    }
+
+    @Override
+    public Pointcut getPointcut() {
+        return pointcut;
+    }
+
+    @Override
+    public Advice getAdvice() {
+        return interceptor;
+    }
+}
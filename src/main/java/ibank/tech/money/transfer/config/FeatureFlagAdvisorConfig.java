@@ -0,0 +1,61 @@
+package ibank.tech.money.transfer.config;
+
+import ibank.tech.feature.flag.service.FeatureFlagService;
+import ibank.tech.money.transfer.service.FlagEvaluationContext;
+import ibank.tech.money.transfer.service.LocalFlagEvaluator;
+import lombok.extern.slf4j.Slf4j;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanFactoryPostProcessor;
+import org.springframework.beans.factory.config.ConfigurableListableBeanFactory;
+import org.springframework.beans.factory.support.BeanDefinitionRegistry;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Replaces the SDK's @FeatureFlag aspect with the project-local {@link FeatureFlagAdvisor}.
+ * The SDK aspect beans are removed from the context so guarded methods are not evaluated twice.
+ * <p>
+ * Opt-in ({@code feature-flag.advisor.enabled}): guarded methods are then evaluated against the
+ * local snapshot rather than by the SDK, and a disabled flag is reported as
+ * {@link ibank.tech.money.transfer.exception.FeatureFlagDisabledException}.
+ */
+@Configuration
+@Slf4j
+@ConditionalOnProperty(name = "feature-flag.advisor.enabled", havingValue = "true", matchIfMissing = false)
+public class FeatureFlagAdvisorConfig {
+
+    static final String SDK_AOP_PACKAGE = "ibank.tech.feature.flag.aop.";
+
+    @Bean
+    public static BeanFactoryPostProcessor sdkFeatureFlagAspectRemover() {
+        return FeatureFlagAdvisorConfig::removeSdkAspects;
+    }
+
+    @Bean
+    public static FeatureFlagInterceptor featureFlagInterceptor(ObjectProvider<LocalFlagEvaluator> localFlagEvaluator,
+                                                                ObjectProvider<FeatureFlagService> featureFlagService,
+                                                                ObjectProvider<FlagEvaluationContext> flagEvaluationContext) {
+        return new FeatureFlagInterceptor(localFlagEvaluator, featureFlagService, flagEvaluationContext);
+    }
+
+    @Bean
+    public static FeatureFlagAdvisor featureFlagAdvisor(FeatureFlagInterceptor featureFlagInterceptor) {
+        return new FeatureFlagAdvisor(featureFlagInterceptor);
+    }
+
+    private static void removeSdkAspects(ConfigurableListableBeanFactory beanFactory) {
+        if (!(beanFactory instanceof BeanDefinitionRegistry registry)) {
+            return;
+        }
+        for (String beanName : beanFactory.getBeanDefinitionNames()) {
+            Class<?> beanType = beanFactory.getType(beanName, false);
+            if (beanType != null && beanType.getName().startsWith(SDK_AOP_PACKAGE)
+                    && beanType.isAnnotationPresent(Aspect.class)) {
+                registry.removeBeanDefinition(beanName);
+                log.info("Removed SDK aspect {} in favour of the local @FeatureFlag advisor", beanType.getName());
+            }
+        }
+    }
+}
@@ -0,0 +1,122 @@
+package ibank.tech.money.transfer.config;
+
+import ibank.tech.feature.flag.aop.EntityContextHolder;
+import ibank.tech.feature.flag.aop.FeatureFlag;
+import ibank.tech.feature.flag.service.FeatureFlagService;
+import ibank.tech.money.transfer.exception.FeatureFlagDisabledException;
+import ibank.tech.money.transfer.service.FlagEvaluationContext;
+import ibank.tech.money.transfer.service.LocalFlagEvaluator;
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
+import org.springframework.aop.support.AopUtils;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.web.context.request.RequestContextHolder;
+
+import java.lang.reflect.Method;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Guards @FeatureFlag methods using a table of flag bindings filled once, when the proxies are
+ * created, instead of reading the annotation on every call.
+ * <p>
+ * Flags are evaluated against the local snapshot: through the request memo when a request with an
+ * entity is active, otherwise directly. The SDK is only asked while the namespace is not loaded yet.
+ * Collaborators are looked up on first use, so creating the advisor does not force early
+ * initialization of the services it calls.
+ */
+public class FeatureFlagInterceptor implements MethodInterceptor {
+
+    private final Map<Method, FlagBinding> bindings = new ConcurrentHashMap<>();
+
+    private final ObjectProvider<LocalFlagEvaluator> localFlagEvaluatorProvider;
+    private final ObjectProvider<FeatureFlagService> featureFlagServiceProvider;
+    private final ObjectProvider<FlagEvaluationContext> flagEvaluationContextProvider;
+
+    private volatile LocalFlagEvaluator localFlagEvaluator;
+    private volatile FeatureFlagService featureFlagService;
+    private volatile FlagEvaluationContext flagEvaluationContext;
+
+    public FeatureFlagInterceptor(ObjectProvider<LocalFlagEvaluator> localFlagEvaluatorProvider,
+                                  ObjectProvider<FeatureFlagService> featureFlagServiceProvider,
+                                  ObjectProvider<FlagEvaluationContext> flagEvaluationContextProvider) {
+        this.localFlagEvaluatorProvider = localFlagEvaluatorProvider;
+        this.featureFlagServiceProvider = featureFlagServiceProvider;
+        this.flagEvaluationContextProvider = flagEvaluationContextProvider;
+    }
+
+    /**
+     * Resolve and record the flag of a method; called by the pointcut while proxies are built
+     *
+     * @return true if the method is guarded
+     */
+    boolean register(Method method, Class<?> targetClass) {
+        return bindingOf(method, targetClass) != null;
+    }
+
+    @Override
+    public Object invoke(MethodInvocation invocation) throws Throwable {
+        FlagBinding binding = bindings.get(invocation.getMethod());
+        if (binding == null) {
+            Object target = invocation.getThis();
+            binding = bindingOf(invocation.getMethod(), target != null ? AopUtils.getTargetClass(target) : null);
+        }
+        if (binding != null && binding != FlagBinding.NONE && !isEnabled(binding)) {
+            throw new FeatureFlagDisabledException(binding.namespace(), binding.key());
+        }
+        return invocation.proceed();
+    }
+
+    int getBindingCount() {
+        return (int) bindings.values().stream().filter(binding -> binding != FlagBinding.NONE).count();
+    }
+
+    private boolean isEnabled(FlagBinding binding) {
+        String entityId = EntityContextHolder.getEntityId();
+        if (entityId != null && RequestContextHolder.getRequestAttributes() != null) {
+            FlagEvaluationContext context = flagEvaluationContext;
+            if (context == null) {
+                context = flagEvaluationContextProvider.getIfAvailable();
+                flagEvaluationContext = context;
+            }
+            if (context != null) {
+                return context.isEnabled(binding.namespace(), binding.key());
+            }
+        }
+        LocalFlagEvaluator evaluator = localFlagEvaluator;
+        if (evaluator == null) {
+            evaluator = localFlagEvaluatorProvider.getObject();
+            localFlagEvaluator = evaluator;
+        }
+        Boolean local = evaluator.evaluate(binding.namespace(), binding.key(), entityId, Map.of());
+        if (local != null) {
+            return local;
+        }
+        FeatureFlagService sdk = featureFlagService;
+        if (sdk == null) {
+            sdk = featureFlagServiceProvider.getObject();
+            featureFlagService = sdk;
+        }
+        return sdk.isEnabled(binding.namespace(), binding.key(), entityId);
+    }
+
+    private FlagBinding bindingOf(Method method, Class<?> targetClass) {
+        FlagBinding binding = bindings.get(method);
+        if (binding != null) {
+            return binding == FlagBinding.NONE ? null : binding;
+        }
+        Method specificMethod = targetClass != null ? AopUtils.getMostSpecificMethod(method, targetClass) : method;
+        FeatureFlag annotation = AnnotatedElementUtils.findMergedAnnotation(specificMethod, FeatureFlag.class);
+        binding = annotation != null ? new FlagBinding(annotation.namespace(), annotation.key()) : FlagBinding.NONE;
+        bindings.put(method, binding);
+        if (specificMethod != method) {
+            bindings.put(specificMethod, binding);
+        }
+        return binding == FlagBinding.NONE ? null : binding;
+    }
+
+    record FlagBinding(String namespace, String key) {
+        static final FlagBinding NONE = new FlagBinding(null, null);
+    }
+}
@@ -1,33 +1,39 @@
 package ibank.tech.money.transfer.config;
 
+import ibank.tech.money.transfer.service.EventSequenceTracker;
 import ibank.tech.money.transfer.service.FliptUnifiedUpdateHandler;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.connection.SubscriptionListener;
 import org.springframework.data.redis.listener.ChannelTopic;
 import org.springframework.data.redis.listener.RedisMessageListenerContainer;
 import org.springframework.data.redis.listener.adapter.MessageListenerAdapter;
 
+import java.nio.charset.StandardCharsets;
 import java.util.List;
 
 @Configuration
 @RequiredArgsConstructor
 @Slf4j
 @ConditionalOnProperty(name = "redis.pubsub.enabled", havingValue = "true", matchIfMissing = false)
+@ConditionalOnExpression("'${redis.ingestion.mode:pubsub}' == 'pubsub'")
 public class RedisListenerConfig {
 
     @Value("#{'${redis.pubsub.channels}'.split(',')}")
     private List<String> channelNames;
 
     private final FliptUnifiedUpdateHandler fliptUnifiedUpdateHandler;
+    private final EventSequenceTracker sequenceTracker;
 
     @Bean
     public MessageListenerAdapter messageListener() {
-        return new MessageListenerAdapter(fliptUnifiedUpdateHandler, "handleMessage");
+        return new SubscriptionTrackingListenerAdapter(fliptUnifiedUpdateHandler, sequenceTracker);
     }
 
     @Bean
@@ -44,4 +50,23 @@ public class RedisListenerConfig {
 
         return container;
     }
+
+    /**
+     * Listener adapter that also reports the subscription confirmations of its channels, which the
+     * container delivers to listeners implementing {@link SubscriptionListener}
+     */
+    private static class SubscriptionTrackingListenerAdapter extends MessageListenerAdapter implements SubscriptionListener {
+
+        private final EventSequenceTracker sequenceTracker;
+
+        private SubscriptionTrackingListenerAdapter(FliptUnifiedUpdateHandler handler, EventSequenceTracker sequenceTracker) {
+            super(handler, "handleMessage");
+            this.sequenceTracker = sequenceTracker;
+        }
+
+        @Override
+        public void onChannelSubscribed(byte[] channel, long count) {
+            sequenceTracker.onChannelSubscribed(new String(channel, StandardCharsets.UTF_8));
+        }
+    }
 }
@@ -1,15 +1,29 @@
 package ibank.tech.money.transfer.config;
 
+import ibank.tech.money.transfer.service.WebSocketSessionMonitor;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.messaging.simp.config.MessageBrokerRegistry;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.WebSocketSession;
 import org.springframework.web.socket.config.annotation.EnableWebSocketMessageBroker;
 import org.springframework.web.socket.config.annotation.StompEndpointRegistry;
 import org.springframework.web.socket.config.annotation.WebSocketMessageBrokerConfigurer;
+import org.springframework.web.socket.config.annotation.WebSocketTransportRegistration;
+import org.springframework.web.socket.handler.WebSocketHandlerDecorator;
 
 @Configuration
 @EnableWebSocketMessageBroker
+@RequiredArgsConstructor
 public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
 
+    private final WebSocketSessionMonitor sessionMonitor;
+
+    @Value("${websocket.session.message-size-limit:64KB}")
+    private DataSize messageSizeLimit;
+
     @Override
     public void configureMessageBroker(MessageBrokerRegistry config) {
         // Enable simple memory-based message broker to send messages to clients
@@ -22,6 +36,28 @@ public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
         config.setUserDestinationPrefix("/user");
     }
 
+    @Override
+    public void configureWebSocketTransport(WebSocketTransportRegistration registration) {
+        registration.setMessageSizeLimit((int) messageSizeLimit.toBytes());
+
+        // Give every session a bounded outbound queue so slow clients never block broker threads.
+        // Spring wraps the decorated session in its own ConcurrentWebSocketSessionDecorator, but since
+        // our sendMessage never blocks, that buffer never fills and its send time and buffer size
+        // limits never apply; the websocket.session limits are enforced by our decorator instead.
+        registration.addDecoratorFactory(handler -> new WebSocketHandlerDecorator(handler) {
+            @Override
+            public void afterConnectionEstablished(WebSocketSession session) throws Exception {
+                super.afterConnectionEstablished(sessionMonitor.decorate(session));
+            }
+
+            @Override
+            public void afterConnectionClosed(WebSocketSession session, CloseStatus closeStatus) throws Exception {
+                sessionMonitor.remove(session.getId());
+                super.afterConnectionClosed(session, closeStatus);
+            }
+        });
+    }
+
     @Override
     public void registerStompEndpoints(StompEndpointRegistry registry) {
         // Register WebSocket endpoint
@@ -33,4 +69,4 @@ public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
         registry.addEndpoint("/ws")
                 .setAllowedOriginPatterns("*");
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,56 @@
+package ibank.tech.money.transfer.controller;
+
+import ibank.tech.money.transfer.service.EventDeduplicator;
+import ibank.tech.money.transfer.service.EventSequenceTracker;
+import ibank.tech.money.transfer.service.FliptEventPipeline;
+import ibank.tech.money.transfer.service.FliptStreamConsumer;
+import ibank.tech.money.transfer.service.FliptUpdateMetrics;
+import ibank.tech.money.transfer.service.MultiNamespaceFeatureFlagService;
+import ibank.tech.money.transfer.service.WebSocketBroadcastService;
+import ibank.tech.money.transfer.service.WebSocketSessionMonitor;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Actuator endpoint (/actuator/flagpropagation) with the current latency percentiles of the
+ * Flipt update path, the dedup, refresh, pipeline, stream, sequence and broadcast counters, and the
+ * lag of every WebSocket session
+ */
+@Component
+@Endpoint(id = "flagpropagation")
+@RequiredArgsConstructor
+public class FlagPropagationEndpoint {
+
+    private final FliptUpdateMetrics updateMetrics;
+    private final EventDeduplicator eventDeduplicator;
+    private final ObjectProvider<MultiNamespaceFeatureFlagService> multiNamespaceFeatureFlagService;
+    private final ObjectProvider<FliptEventPipeline> eventPipeline;
+    private final ObjectProvider<WebSocketBroadcastService> webSocketBroadcastService;
+    private final ObjectProvider<FliptStreamConsumer> streamConsumer;
+    private final ObjectProvider<EventSequenceTracker> sequenceTracker;
+    private final WebSocketSessionMonitor sessionMonitor;
+
+    @ReadOperation
+    public Map<String, Object> propagation() {
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("latency", updateMetrics.getLatencySummary());
+        result.put("traceSampleRate", updateMetrics.getTraceSampleRate());
+        result.put("dedup", eventDeduplicator.getStats());
+        multiNamespaceFeatureFlagService.ifAvailable(service -> result.put("refresh", service.getRefreshStats()));
+        eventPipeline.ifAvailable(pipeline -> result.put("pipeline", pipeline.getStats()));
+        streamConsumer.ifAvailable(consumer -> result.put("streams", consumer.getStats()));
+        sequenceTracker.ifAvailable(tracker -> result.put("sequence", tracker.getStats()));
+        webSocketBroadcastService.ifAvailable(service -> result.put("broadcast", service.getBroadcastStats()));
+        result.put("sessions", Map.of(
+                "disconnectedSlow", sessionMonitor.getDisconnectedSlowSessions(),
+                "senders", sessionMonitor.getSenderStats(),
+                "perSession", sessionMonitor.getSessionStats()));
+        return result;
+    }
+}
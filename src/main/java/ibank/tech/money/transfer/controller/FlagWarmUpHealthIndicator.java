@@ -0,0 +1,29 @@
+package ibank.tech.money.transfer.controller;
+
+import ibank.tech.money.transfer.service.NamespaceWarmUp;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.stereotype.Component;
+
+/**
+ * Health contributor "flagWarmUp", part of the readiness group: out of service until the
+ * critical flag namespaces are loaded, with the warm-up timings per namespace as details
+ */
+@Component
+@RequiredArgsConstructor
+public class FlagWarmUpHealthIndicator implements HealthIndicator {
+
+    private final ObjectProvider<NamespaceWarmUp> namespaceWarmUp;
+
+    @Override
+    public Health health() {
+        NamespaceWarmUp warmUp = namespaceWarmUp.getIfAvailable();
+        if (warmUp == null) {
+            return Health.up().withDetail("warmUp", "disabled").build();
+        }
+        Health.Builder health = warmUp.isReady() ? Health.up() : Health.outOfService();
+        return health.withDetails(warmUp.getStatus()).build();
+    }
+}
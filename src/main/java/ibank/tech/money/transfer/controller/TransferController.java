@@ -1,15 +1,25 @@
 package ibank.tech.money.transfer.controller;
 
 import ibank.tech.feature.flag.aop.EntityContextHolder;
+import ibank.tech.money.transfer.dto.TransferReceipt;
 import ibank.tech.money.transfer.dto.TransferRequest;
+import ibank.tech.money.transfer.exception.FeatureFlagDisabledException;
+import ibank.tech.money.transfer.service.BatchTransferService;
 import ibank.tech.money.transfer.service.TransferService;
 import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.Duration;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.async.WebAsyncTask;
 
 @RestController
 @RequestMapping("/api/v1")
@@ -17,10 +27,26 @@ import org.springframework.web.bind.annotation.RestController;
 public class TransferController {
 
   private final TransferService transferService;
+  private final BatchTransferService batchTransferService;
 
+  @Value("${transfer.batch.timeout:30m}")
+  private Duration batchTimeout;
+
+  /**
+   * 200 once the transfer is applied and, in durable mode, synced to the journal.
+   * 202 if it was applied but the durable sync failed or timed out: the money has moved and the
+   * request must not be retried; the X-Journal-Sequence header identifies the posting.
+   * 4xx responses mean nothing was applied.
+   */
   @PostMapping("/transfer/domestic")
   public ResponseEntity<String> domestic(@RequestBody TransferRequest transferRequest) {
-    return ResponseEntity.ok(transferService.transferDomestic(transferRequest));
+    TransferReceipt receipt = transferService.transferDomestic(transferRequest);
+    if (receipt.durabilityUnconfirmed()) {
+      return ResponseEntity.accepted()
+        .header("X-Journal-Sequence", Long.toString(receipt.journalSequence()))
+        .body(receipt.message());
+    }
+    return ResponseEntity.ok(receipt.message());
   }
 
   @PostMapping("/transfer/international")
@@ -34,4 +60,24 @@ public class TransferController {
       EntityContextHolder.clear();
     }
   }
+
+  /**
+   * Batch of domestic transfers as a JSON array or NDJSON; streams one NDJSON result per item.
+   * Runs asynchronously with its own timeout (transfer.batch.timeout), so the default async
+   * request timeout of every other endpoint stays short.
+   */
+  @PostMapping(value = "/transfer/batch",
+    consumes = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE},
+    produces = MediaType.APPLICATION_NDJSON_VALUE)
+  public WebAsyncTask<Void> batch(HttpServletRequest request, HttpServletResponse response) throws IOException {
+    if (!transferService.isDomesticTransferEnabled(request.getHeader("X-Entity-Id"))) {
+      throw new FeatureFlagDisabledException("bep", "transfer-domestic");
+    }
+    InputStream body = request.getInputStream();
+    response.setContentType(MediaType.APPLICATION_NDJSON_VALUE);
+    return new WebAsyncTask<>(batchTimeout.toMillis(), () -> {
+      batchTransferService.process(body, response.getOutputStream());
+      return null;
+    });
+  }
 }
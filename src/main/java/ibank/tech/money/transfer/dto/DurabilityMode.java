@@ -0,0 +1,21 @@
+package ibank.tech.money.transfer.dto;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+
+/**
+ * When a transfer is acknowledged to the caller
+ */
+public enum DurabilityMode {
+    /**
+     * After the journal record has been synced to disk. If the sync fails or times out the transfer
+     * stays applied and is reported as unconfirmed (HTTP 202), never as a failure.
+     */
+    DURABLE,
+    /** As soon as the transfer is applied in memory; the journal is synced in the background */
+    ACKNOWLEDGED;
+
+    @JsonCreator
+    public static DurabilityMode fromValue(String value) {
+        return value == null || value.isEmpty() ? null : valueOf(value.trim().toUpperCase());
+    }
+}
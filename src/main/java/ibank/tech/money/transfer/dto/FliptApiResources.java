@@ -0,0 +1,107 @@
+package ibank.tech.money.transfer.dto;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * DTOs for single-entity lookups on the Flipt REST API (/api/v1/namespaces/{namespace}/...)
+ */
+public final class FliptApiResources {
+
+    private FliptApiResources() {
+    }
+
+    @Data
+    @NoArgsConstructor
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    public static class Flag {
+        @JsonProperty("key")
+        private String key;
+
+        @JsonProperty("name")
+        private String name;
+
+        @JsonProperty("type")
+        private String type;
+
+        @JsonProperty("enabled")
+        private boolean enabled;
+    }
+
+    @Data
+    @NoArgsConstructor
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    public static class RuleList {
+        @JsonProperty("rules")
+        private List<Rule> rules;
+    }
+
+    @Data
+    @NoArgsConstructor
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    public static class Rule {
+        @JsonProperty("id")
+        private String id;
+
+        @JsonProperty("rank")
+        private int rank;
+
+        @JsonProperty("segmentKey")
+        private String segmentKey;
+
+        @JsonProperty("segmentKeys")
+        private List<String> segmentKeys;
+
+        @JsonProperty("segmentOperator")
+        private String segmentOperator;
+    }
+
+    /**
+     * The rollouts endpoint returns its items under "rules"
+     */
+    @Data
+    @NoArgsConstructor
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    public static class RolloutList {
+        @JsonProperty("rules")
+        private List<Rollout> rollouts;
+    }
+
+    @Data
+    @NoArgsConstructor
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    public static class Rollout {
+        @JsonProperty("type")
+        private String type;
+
+        @JsonProperty("rank")
+        private int rank;
+
+        @JsonProperty("segment")
+        private RolloutSegment segment;
+
+        @JsonProperty("threshold")
+        private FliptEvaluationSnapshot.RolloutThreshold threshold;
+    }
+
+    @Data
+    @NoArgsConstructor
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    public static class RolloutSegment {
+        @JsonProperty("segmentKey")
+        private String segmentKey;
+
+        @JsonProperty("segmentKeys")
+        private List<String> segmentKeys;
+
+        @JsonProperty("segmentOperator")
+        private String segmentOperator;
+
+        @JsonProperty("value")
+        private boolean value;
+    }
+}
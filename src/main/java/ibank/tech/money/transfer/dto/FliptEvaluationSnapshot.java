@@ -0,0 +1,150 @@
+package ibank.tech.money.transfer.dto;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * DTO for the Flipt evaluation snapshot of a namespace
+ * (GET /internal/v1/evaluation/snapshot/namespace/{namespace})
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonIgnoreProperties(ignoreUnknown = true)
+public class FliptEvaluationSnapshot {
+
+    @JsonProperty("namespace")
+    private Namespace namespace;
+
+    @JsonProperty("flags")
+    private List<Flag> flags;
+
+    @Data
+    @NoArgsConstructor
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    public static class Namespace {
+        @JsonProperty("key")
+        private String key;
+    }
+
+    @Data
+    @NoArgsConstructor
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    public static class Flag {
+        @JsonProperty("key")
+        private String key;
+
+        @JsonProperty("name")
+        private String name;
+
+        @JsonProperty("type")
+        private String type; // BOOLEAN_FLAG_TYPE or VARIANT_FLAG_TYPE
+
+        @JsonProperty("enabled")
+        private boolean enabled;
+
+        @JsonProperty("rules")
+        private List<Rule> rules;
+
+        @JsonProperty("rollouts")
+        private List<Rollout> rollouts;
+    }
+
+    @Data
+    @NoArgsConstructor
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    public static class Rule {
+        @JsonProperty("id")
+        private String id;
+
+        @JsonProperty("rank")
+        private int rank;
+
+        @JsonProperty("segmentOperator")
+        private String segmentOperator; // OR_SEGMENT_OPERATOR or AND_SEGMENT_OPERATOR
+
+        @JsonProperty("segments")
+        private List<Segment> segments;
+    }
+
+    @Data
+    @NoArgsConstructor
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    public static class Rollout {
+        @JsonProperty("type")
+        private String type; // SEGMENT_ROLLOUT_TYPE or THRESHOLD_ROLLOUT_TYPE
+
+        @JsonProperty("rank")
+        private int rank;
+
+        @JsonProperty("segment")
+        private RolloutSegment segment;
+
+        @JsonProperty("threshold")
+        private RolloutThreshold threshold;
+    }
+
+    @Data
+    @NoArgsConstructor
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    public static class RolloutSegment {
+        @JsonProperty("value")
+        private boolean value;
+
+        @JsonProperty("segmentOperator")
+        private String segmentOperator;
+
+        @JsonProperty("segments")
+        private List<Segment> segments;
+    }
+
+    @Data
+    @NoArgsConstructor
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    public static class RolloutThreshold {
+        @JsonProperty("percentage")
+        private float percentage;
+
+        @JsonProperty("value")
+        private boolean value;
+    }
+
+    @Data
+    @NoArgsConstructor
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    public static class Segment {
+        @JsonProperty("key")
+        private String key;
+
+        @JsonProperty("matchType")
+        private String matchType; // ALL_MATCH_TYPE or ANY_MATCH_TYPE
+
+        @JsonProperty("constraints")
+        private List<Constraint> constraints;
+    }
+
+    @Data
+    @NoArgsConstructor
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    public static class Constraint {
+        @JsonProperty("id")
+        private String id;
+
+        @JsonProperty("type")
+        private String type; // e.g. STRING_CONSTRAINT_COMPARISON_TYPE
+
+        @JsonProperty("property")
+        private String property;
+
+        @JsonProperty("operator")
+        private String operator;
+
+        @JsonProperty("value")
+        private String value;
+    }
+}
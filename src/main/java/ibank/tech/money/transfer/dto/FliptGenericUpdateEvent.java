@@ -1,74 +1,177 @@
 package ibank.tech.money.transfer.dto;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonInclude;
 import com.fasterxml.jackson.annotation.JsonProperty;
-import lombok.AllArgsConstructor;
+import com.fasterxml.jackson.annotation.JsonRawValue;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.AccessLevel;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
 import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.ToString;
 
+import java.util.LinkedHashMap;
 import java.util.Map;
 
 /**
  * Generic DTO for all Flipt update events (flags, segments, constraints)
+ * <p>
+ * The common fields of the "data" object are decoded once into typed fields
+ * (see {@code FliptEventDecoder}). The data object itself is kept as raw JSON and only
+ * turned into a map when {@link #getData()} is called.
  */
 @Data
 @NoArgsConstructor
-@AllArgsConstructor
 @JsonIgnoreProperties(ignoreUnknown = true)
 public class FliptGenericUpdateEvent {
-    
+
+    private static final ObjectMapper DATA_MAPPER = new ObjectMapper();
+
     @JsonProperty("type")
     private String type; // e.g., "flag.update", "segment.update", "constraint.update"
-    
-    @JsonProperty("data")
-    private Map<String, Object> data;
-    
+
     @JsonProperty("source")
     private String source;
-    
+
     @JsonProperty("timestamp")
     private String timestamp;
-    
-    // Helper methods to extract common fields from data map
-    public String getAction() {
-        return data != null ? (String) data.get("action") : null;
+
+    // Per-source event number assigned by the publisher, 0 if the event has none
+    @JsonProperty("sequence")
+    @JsonInclude(JsonInclude.Include.NON_DEFAULT)
+    private long sequence;
+
+    // Typed fields extracted from the data object
+    private String action;
+
+    @Getter(AccessLevel.NONE)
+    private String namespace;
+
+    private String flagKey;
+
+    private String segmentKey;
+
+    private String constraintId;
+
+    private Boolean enabled;
+
+    /**
+     * The data object exactly as received, or null if the event had no data
+     */
+    @JsonIgnore
+    private String rawData;
+
+    @JsonIgnore
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    @EqualsAndHashCode.Exclude
+    @ToString.Exclude
+    private Map<String, Object> dataMap;
+
+    // Receive-side bookkeeping for latency metrics, not part of the wire format
+    @JsonIgnore
+    @EqualsAndHashCode.Exclude
+    @ToString.Exclude
+    private long receivedAtNanos;
+
+    @JsonIgnore
+    @EqualsAndHashCode.Exclude
+    @ToString.Exclude
+    private long parseNanos;
+
+    @JsonIgnore
+    @EqualsAndHashCode.Exclude
+    @ToString.Exclude
+    private boolean traced;
+
+    // Pipeline lane the event was queued in (express or bulk), null if it did not go through the pipeline
+    @JsonIgnore
+    @EqualsAndHashCode.Exclude
+    @ToString.Exclude
+    private String lane;
+
+    // Called by the pipeline once the event is processed, e.g. to acknowledge a stream entry
+    @JsonIgnore
+    @EqualsAndHashCode.Exclude
+    @ToString.Exclude
+    private Runnable onProcessed;
+
+    @JsonIgnore
+    public boolean hasData() {
+        return rawData != null || dataMap != null;
     }
-    
+
     public String getNamespace() {
-        return data != null ? (String) data.get("namespace") : "default";
-    }
-    
-    public String getFlagKey() {
-        return data != null ? (String) data.get("flag_key") : null;
+        return hasData() ? namespace : "default";
     }
-    
-    public String getSegmentKey() {
-        return data != null ? (String) data.get("segment_key") : null;
+
+    /**
+     * The data object as a map, parsed from the raw JSON on first access
+     */
+    @JsonIgnore
+    public Map<String, Object> getData() {
+        if (dataMap == null && rawData != null) {
+            try {
+                dataMap = DATA_MAPPER.readValue(rawData, new TypeReference<LinkedHashMap<String, Object>>() { });
+            } catch (JsonProcessingException e) {
+                throw new IllegalStateException("Invalid data JSON in Flipt event", e);
+            }
+        }
+        return dataMap;
     }
-    
-    public String getConstraintId() {
-        return data != null ? (String) data.get("constraint_id") : null;
+
+    /**
+     * Data binding path (e.g. ObjectMapper.readValue): copy the common fields out of the map
+     */
+    @JsonProperty("data")
+    public void setData(Map<String, Object> data) {
+        this.dataMap = data;
+        this.rawData = null;
+        if (data == null) {
+            return;
+        }
+        this.action = (String) data.get("action");
+        this.namespace = (String) data.get("namespace");
+        this.flagKey = (String) data.get("flag_key");
+        this.segmentKey = (String) data.get("segment_key");
+        this.constraintId = (String) data.get("constraint_id");
+        Object enabledValue = data.get("enabled");
+        this.enabled = enabledValue instanceof Boolean ? (Boolean) enabledValue : null;
     }
-    
-    public Boolean getEnabled() {
-        Object enabled = data != null ? data.get("enabled") : null;
-        if (enabled instanceof Boolean) {
-            return (Boolean) enabled;
+
+    /**
+     * Serialize the data object as received, without re-encoding it
+     */
+    @JsonProperty("data")
+    @JsonRawValue
+    public String getDataJson() {
+        if (rawData != null || dataMap == null) {
+            return rawData;
+        }
+        try {
+            return DATA_MAPPER.writeValueAsString(dataMap);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Cannot serialize Flipt event data", e);
         }
-        return null;
     }
-    
+
     // Helper method to determine entity type from type field
     public EntityType getEntityType() {
         if (type == null) return EntityType.UNKNOWN;
-        
+
         if (type.startsWith("flag.")) return EntityType.FLAG;
         if (type.startsWith("segment.")) return EntityType.SEGMENT;
         if (type.startsWith("constraint.")) return EntityType.CONSTRAINT;
-        
+
         return EntityType.UNKNOWN;
     }
-    
+
     public enum EntityType {
         FLAG, SEGMENT, CONSTRAINT, UNKNOWN
     }
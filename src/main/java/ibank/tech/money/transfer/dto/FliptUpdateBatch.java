@@ -0,0 +1,24 @@
+package ibank.tech.money.transfer.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * WebSocket frame carrying the latest state of every entity updated within one broadcast window
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class FliptUpdateBatch {
+
+    private String type; // always "batch"
+
+    private long windowMillis;
+
+    private int count;
+
+    private List<FliptGenericUpdateEvent> events;
+}
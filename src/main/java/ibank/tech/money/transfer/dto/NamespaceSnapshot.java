@@ -0,0 +1,308 @@
+package ibank.tech.money.transfer.dto;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Immutable in-process copy of the flags, segments and constraints of one namespace.
+ * A new snapshot replaces the previous one as a whole, so readers never need a lock.
+ */
+public record NamespaceSnapshot(String namespace,
+                                long version,
+                                Map<String, Flag> flags,
+                                Map<String, Segment> segments,
+                                SegmentDependencyIndex dependencies,
+                                Instant loadedAt) {
+
+    public NamespaceSnapshot {
+        flags = Map.copyOf(flags);
+        segments = Map.copyOf(segments);
+    }
+
+    public NamespaceSnapshot withVersion(long newVersion) {
+        return new NamespaceSnapshot(namespace, newVersion, flags, segments, dependencies, loadedAt);
+    }
+
+    /**
+     * Copy of this snapshot with one flag added or replaced and the given segments merged in
+     */
+    public NamespaceSnapshot withFlag(Flag flag, Map<String, Segment> addedSegments) {
+        Map<String, Flag> newFlags = new HashMap<>(flags);
+        Flag previous = newFlags.put(flag.key(), flag);
+        Map<String, Segment> newSegments = segments;
+        SegmentDependencyIndex newDependencies = dependencies.withFlag(previous, flag);
+        if (!addedSegments.isEmpty()) {
+            newSegments = new HashMap<>(segments);
+            for (Segment segment : addedSegments.values()) {
+                newDependencies = newDependencies.withSegment(newSegments.put(segment.key(), segment), segment);
+            }
+        }
+        return new NamespaceSnapshot(namespace, version, newFlags, newSegments, newDependencies, Instant.now());
+    }
+
+    /**
+     * Copy of this snapshot without the given flag
+     */
+    public NamespaceSnapshot withoutFlag(String flagKey) {
+        Map<String, Flag> newFlags = new HashMap<>(flags);
+        Flag previous = newFlags.remove(flagKey);
+        if (previous == null) {
+            return this;
+        }
+        return new NamespaceSnapshot(namespace, version, newFlags, segments,
+                dependencies.withFlag(previous, null), Instant.now());
+    }
+
+    /**
+     * Copy of this snapshot with one segment added or replaced
+     */
+    public NamespaceSnapshot withSegment(Segment segment) {
+        Map<String, Segment> newSegments = new HashMap<>(segments);
+        Segment previous = newSegments.put(segment.key(), segment);
+        return new NamespaceSnapshot(namespace, version, flags, newSegments,
+                dependencies.withSegment(previous, segment), Instant.now());
+    }
+
+    /**
+     * Copy of this snapshot without the given segment
+     */
+    public NamespaceSnapshot withoutSegment(String segmentKey) {
+        Map<String, Segment> newSegments = new HashMap<>(segments);
+        Segment previous = newSegments.remove(segmentKey);
+        if (previous == null) {
+            return this;
+        }
+        return new NamespaceSnapshot(namespace, version, flags, newSegments,
+                dependencies.withSegment(previous, null), Instant.now());
+    }
+
+    public Flag getFlag(String flagKey) {
+        return flags.get(flagKey);
+    }
+
+    public Segment getSegment(String segmentKey) {
+        return segments.get(segmentKey);
+    }
+
+    /**
+     * Build a snapshot from the Flipt evaluation snapshot of a namespace.
+     * Segments are stored once per namespace and referenced from rules and rollouts by key.
+     */
+    public static NamespaceSnapshot fromFlipt(String namespace, FliptEvaluationSnapshot source) {
+        Map<String, Flag> flags = new LinkedHashMap<>();
+        Map<String, Segment> segments = new HashMap<>();
+
+        if (source != null && source.getFlags() != null) {
+            for (FliptEvaluationSnapshot.Flag flag : source.getFlags()) {
+                flags.put(flag.getKey(), Flag.fromFlipt(flag, segments));
+            }
+        }
+        return new NamespaceSnapshot(namespace, 0L, flags, segments,
+                SegmentDependencyIndex.build(flags.values(), segments.values()), Instant.now());
+    }
+
+    public record Flag(String key,
+                       String name,
+                       FlagType type,
+                       boolean enabled,
+                       List<Rule> rules,
+                       List<Rollout> rollouts) {
+
+        public Flag {
+            rules = List.copyOf(rules);
+            rollouts = List.copyOf(rollouts);
+        }
+
+        public Flag withEnabled(boolean newEnabled) {
+            return new Flag(key, name, type, newEnabled, rules, rollouts);
+        }
+
+        static Flag fromFlipt(FliptEvaluationSnapshot.Flag source, Map<String, Segment> segments) {
+            List<Rule> rules = new ArrayList<>();
+            if (source.getRules() != null) {
+                for (FliptEvaluationSnapshot.Rule rule : source.getRules()) {
+                    rules.add(new Rule(rule.getId(), rule.getRank(),
+                            SegmentOperator.parse(rule.getSegmentOperator()),
+                            collectSegments(rule.getSegments(), segments)));
+                }
+            }
+            rules.sort(Comparator.comparingInt(Rule::rank));
+
+            List<Rollout> rollouts = new ArrayList<>();
+            if (source.getRollouts() != null) {
+                for (FliptEvaluationSnapshot.Rollout rollout : source.getRollouts()) {
+                    if (rollout.getThreshold() != null) {
+                        FliptEvaluationSnapshot.RolloutThreshold threshold = rollout.getThreshold();
+                        rollouts.add(new Rollout(RolloutType.THRESHOLD, rollout.getRank(), threshold.isValue(),
+                                threshold.getPercentage(), SegmentOperator.OR, List.of()));
+                    } else if (rollout.getSegment() != null) {
+                        FliptEvaluationSnapshot.RolloutSegment segment = rollout.getSegment();
+                        rollouts.add(new Rollout(RolloutType.SEGMENT, rollout.getRank(), segment.isValue(), 0f,
+                                SegmentOperator.parse(segment.getSegmentOperator()),
+                                collectSegments(segment.getSegments(), segments)));
+                    }
+                }
+            }
+            rollouts.sort(Comparator.comparingInt(Rollout::rank));
+
+            return new Flag(source.getKey(), source.getName(), FlagType.parse(source.getType()),
+                    source.isEnabled(), rules, rollouts);
+        }
+
+        /**
+         * Build a flag from the single-flag REST resources. Segments are referenced by key only.
+         */
+        public static Flag fromApi(FliptApiResources.Flag source,
+                                   List<FliptApiResources.Rule> sourceRules,
+                                   List<FliptApiResources.Rollout> sourceRollouts) {
+            List<Rule> rules = new ArrayList<>();
+            if (sourceRules != null) {
+                for (FliptApiResources.Rule rule : sourceRules) {
+                    rules.add(new Rule(rule.getId(), rule.getRank(),
+                            SegmentOperator.parse(rule.getSegmentOperator()),
+                            segmentKeys(rule.getSegmentKey(), rule.getSegmentKeys())));
+                }
+            }
+            rules.sort(Comparator.comparingInt(Rule::rank));
+
+            List<Rollout> rollouts = new ArrayList<>();
+            if (sourceRollouts != null) {
+                for (FliptApiResources.Rollout rollout : sourceRollouts) {
+                    if (rollout.getThreshold() != null) {
+                        FliptEvaluationSnapshot.RolloutThreshold threshold = rollout.getThreshold();
+                        rollouts.add(new Rollout(RolloutType.THRESHOLD, rollout.getRank(), threshold.isValue(),
+                                threshold.getPercentage(), SegmentOperator.OR, List.of()));
+                    } else if (rollout.getSegment() != null) {
+                        FliptApiResources.RolloutSegment segment = rollout.getSegment();
+                        rollouts.add(new Rollout(RolloutType.SEGMENT, rollout.getRank(), segment.isValue(), 0f,
+                                SegmentOperator.parse(segment.getSegmentOperator()),
+                                segmentKeys(segment.getSegmentKey(), segment.getSegmentKeys())));
+                    }
+                }
+            }
+            rollouts.sort(Comparator.comparingInt(Rollout::rank));
+
+            return new Flag(source.getKey(), source.getName(), FlagType.parse(source.getType()),
+                    source.isEnabled(), rules, rollouts);
+        }
+
+        /**
+         * All segment keys referenced by the rules and rollouts of this flag
+         */
+        public Set<String> referencedSegments() {
+            Set<String> keys = new HashSet<>();
+            rules.forEach(rule -> keys.addAll(rule.segmentKeys()));
+            rollouts.forEach(rollout -> keys.addAll(rollout.segmentKeys()));
+            return keys;
+        }
+
+        private static List<String> segmentKeys(String segmentKey, List<String> segmentKeys) {
+            if (segmentKeys != null && !segmentKeys.isEmpty()) {
+                return segmentKeys;
+            }
+            return segmentKey != null && !segmentKey.isEmpty() ? List.of(segmentKey) : List.of();
+        }
+
+        private static List<String> collectSegments(List<FliptEvaluationSnapshot.Segment> source,
+                                                    Map<String, Segment> segments) {
+            if (source == null) {
+                return List.of();
+            }
+            List<String> keys = new ArrayList<>(source.size());
+            for (FliptEvaluationSnapshot.Segment segment : source) {
+                segments.computeIfAbsent(segment.getKey(), key -> Segment.fromFlipt(segment));
+                keys.add(segment.getKey());
+            }
+            return keys;
+        }
+    }
+
+    public record Rule(String id, int rank, SegmentOperator segmentOperator, List<String> segmentKeys) {
+        public Rule {
+            segmentKeys = List.copyOf(segmentKeys);
+        }
+    }
+
+    public record Rollout(RolloutType type,
+                          int rank,
+                          boolean value,
+                          float percentage,
+                          SegmentOperator segmentOperator,
+                          List<String> segmentKeys) {
+        public Rollout {
+            segmentKeys = List.copyOf(segmentKeys);
+        }
+    }
+
+    public record Segment(String key, MatchType matchType, List<Constraint> constraints) {
+
+        public Segment {
+            constraints = List.copyOf(constraints);
+        }
+
+        public static Segment fromFlipt(FliptEvaluationSnapshot.Segment source) {
+            List<Constraint> constraints = new ArrayList<>();
+            if (source.getConstraints() != null) {
+                for (FliptEvaluationSnapshot.Constraint constraint : source.getConstraints()) {
+                    constraints.add(new Constraint(constraint.getId(), ComparisonType.parse(constraint.getType()),
+                            constraint.getProperty(), constraint.getOperator(), constraint.getValue()));
+                }
+            }
+            return new Segment(source.getKey(), MatchType.parse(source.getMatchType()), constraints);
+        }
+    }
+
+    public record Constraint(String id, ComparisonType type, String property, String operator, String value) {
+    }
+
+    public enum FlagType {
+        BOOLEAN, VARIANT;
+
+        static FlagType parse(String value) {
+            return "BOOLEAN_FLAG_TYPE".equals(value) ? BOOLEAN : VARIANT;
+        }
+    }
+
+    public enum RolloutType {
+        SEGMENT, THRESHOLD
+    }
+
+    public enum SegmentOperator {
+        OR, AND;
+
+        static SegmentOperator parse(String value) {
+            return "AND_SEGMENT_OPERATOR".equals(value) ? AND : OR;
+        }
+    }
+
+    public enum MatchType {
+        ALL, ANY;
+
+        static MatchType parse(String value) {
+            return "ANY_MATCH_TYPE".equals(value) ? ANY : ALL;
+        }
+    }
+
+    public enum ComparisonType {
+        STRING, NUMBER, BOOLEAN, DATETIME, ENTITY_ID, UNKNOWN;
+
+        static ComparisonType parse(String value) {
+            if (value == null) return UNKNOWN;
+
+            if (value.startsWith("STRING_")) return STRING;
+            if (value.startsWith("NUMBER_")) return NUMBER;
+            if (value.startsWith("BOOLEAN_")) return BOOLEAN;
+            if (value.startsWith("DATETIME_")) return DATETIME;
+            if (value.startsWith("ENTITY_ID_")) return ENTITY_ID;
+
+            return UNKNOWN;
+        }
+    }
+}
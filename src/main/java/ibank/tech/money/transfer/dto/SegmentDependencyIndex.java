@@ -0,0 +1,107 @@
+package ibank.tech.money.transfer.dto;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Immutable reverse index of a namespace snapshot:
+ * segment key to the flags whose rules or rollouts reference it, and constraint id to its segment.
+ * Updates return a new index that shares every entry not affected by the change.
+ */
+public final class SegmentDependencyIndex {
+
+    private static final SegmentDependencyIndex EMPTY = new SegmentDependencyIndex(Map.of(), Map.of());
+
+    private final Map<String, Set<String>> flagsBySegment;
+    private final Map<String, String> segmentByConstraint;
+
+    private SegmentDependencyIndex(Map<String, Set<String>> flagsBySegment, Map<String, String> segmentByConstraint) {
+        this.flagsBySegment = flagsBySegment;
+        this.segmentByConstraint = segmentByConstraint;
+    }
+
+    public static SegmentDependencyIndex build(Collection<NamespaceSnapshot.Flag> flags,
+                                               Collection<NamespaceSnapshot.Segment> segments) {
+        Map<String, Set<String>> flagsBySegment = new HashMap<>();
+        for (NamespaceSnapshot.Flag flag : flags) {
+            for (String segmentKey : flag.referencedSegments()) {
+                flagsBySegment.computeIfAbsent(segmentKey, key -> new HashSet<>()).add(flag.key());
+            }
+        }
+        Map<String, String> segmentByConstraint = new HashMap<>();
+        for (NamespaceSnapshot.Segment segment : segments) {
+            for (NamespaceSnapshot.Constraint constraint : segment.constraints()) {
+                segmentByConstraint.put(constraint.id(), segment.key());
+            }
+        }
+        if (flagsBySegment.isEmpty() && segmentByConstraint.isEmpty()) {
+            return EMPTY;
+        }
+        flagsBySegment.replaceAll((key, flagKeys) -> Set.copyOf(flagKeys));
+        return new SegmentDependencyIndex(flagsBySegment, segmentByConstraint);
+    }
+
+    /**
+     * Flags whose rules or rollouts reference the segment
+     */
+    public Set<String> flagsUsing(String segmentKey) {
+        return flagsBySegment.getOrDefault(segmentKey, Set.of());
+    }
+
+    /**
+     * Segment that owns the constraint, or null if unknown
+     */
+    public String segmentOf(String constraintId) {
+        return segmentByConstraint.get(constraintId);
+    }
+
+    /**
+     * Index after a flag was added, replaced (previous != null) or removed (updated == null).
+     * Only the entries of segments referenced by either version of the flag are rewritten.
+     */
+    public SegmentDependencyIndex withFlag(NamespaceSnapshot.Flag previous, NamespaceSnapshot.Flag updated) {
+        Set<String> before = previous != null ? previous.referencedSegments() : Set.of();
+        Set<String> after = updated != null ? updated.referencedSegments() : Set.of();
+        if (before.equals(after)) {
+            return this;
+        }
+        String flagKey = updated != null ? updated.key() : previous.key();
+        Map<String, Set<String>> newFlagsBySegment = new HashMap<>(flagsBySegment);
+        for (String segmentKey : before) {
+            if (!after.contains(segmentKey)) {
+                Set<String> flagKeys = new HashSet<>(flagsUsing(segmentKey));
+                flagKeys.remove(flagKey);
+                if (flagKeys.isEmpty()) {
+                    newFlagsBySegment.remove(segmentKey);
+                } else {
+                    newFlagsBySegment.put(segmentKey, Set.copyOf(flagKeys));
+                }
+            }
+        }
+        for (String segmentKey : after) {
+            if (!before.contains(segmentKey)) {
+                Set<String> flagKeys = new HashSet<>(flagsUsing(segmentKey));
+                flagKeys.add(flagKey);
+                newFlagsBySegment.put(segmentKey, Set.copyOf(flagKeys));
+            }
+        }
+        return new SegmentDependencyIndex(newFlagsBySegment, segmentByConstraint);
+    }
+
+    /**
+     * Index after a segment was added, replaced (previous != null) or removed (updated == null)
+     */
+    public SegmentDependencyIndex withSegment(NamespaceSnapshot.Segment previous, NamespaceSnapshot.Segment updated) {
+        Map<String, String> newSegmentByConstraint = new HashMap<>(segmentByConstraint);
+        if (previous != null) {
+            previous.constraints().forEach(constraint -> newSegmentByConstraint.remove(constraint.id()));
+        }
+        if (updated != null) {
+            updated.constraints().forEach(constraint -> newSegmentByConstraint.put(constraint.id(), updated.key()));
+        }
+        return new SegmentDependencyIndex(flagsBySegment, newSegmentByConstraint);
+    }
+}
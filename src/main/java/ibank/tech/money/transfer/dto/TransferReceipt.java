@@ -0,0 +1,12 @@
+package ibank.tech.money.transfer.dto;
+
+/**
+ * Outcome of an applied domestic transfer
+ *
+ * @param message              text returned to the caller
+ * @param journalSequence      journal sequence of the posting, 0 without a journal
+ * @param durabilityUnconfirmed true if the transfer was applied but the durable journal sync failed
+ *                             or timed out; the money has moved, so the request must not be retried
+ */
+public record TransferReceipt(String message, long journalSequence, boolean durabilityUnconfirmed) {
+}
@@ -17,4 +17,6 @@ public class TransferRequest {
   private String role;
   private String region;
   private String userId;
+  // Optional; the configured default applies when absent
+  private DurabilityMode durability;
 }
@@ -0,0 +1,26 @@
+package ibank.tech.money.transfer.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Outcome of one item of a batch transfer, written as one NDJSON line
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class TransferResult {
+
+    public static final String OK = "ok";
+    /** Applied, but the durable journal sync failed or timed out; must not be retried */
+    public static final String UNCONFIRMED = "unconfirmed";
+    public static final String REJECTED = "rejected";
+    public static final String ERROR = "error";
+
+    private long index;
+    private String status;
+    private String message;
+}
@@ -0,0 +1,15 @@
+package ibank.tech.money.transfer.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+/**
+ * A method guarded by @FeatureFlag was called while its flag is off for the current entity
+ */
+@ResponseStatus(HttpStatus.FORBIDDEN)
+public class FeatureFlagDisabledException extends RuntimeException {
+
+    public FeatureFlagDisabledException(String namespace, String flagKey) {
+        super("Feature flag " + flagKey + " in namespace " + namespace + " is disabled");
+    }
+}
@@ -0,0 +1,15 @@
+package ibank.tech.money.transfer.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+/**
+ * The debited account does not hold enough funds for the transfer
+ */
+@ResponseStatus(HttpStatus.UNPROCESSABLE_ENTITY)
+public class InsufficientFundsException extends RuntimeException {
+
+    public InsufficientFundsException(String accountId, long balance, long amount) {
+        super("Insufficient funds in account " + accountId + ": balance " + balance + ", requested " + amount);
+    }
+}
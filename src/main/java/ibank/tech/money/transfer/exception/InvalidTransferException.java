@@ -0,0 +1,19 @@
+package ibank.tech.money.transfer.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+/**
+ * The transfer request is malformed, e.g. a missing account or a non-positive amount
+ */
+@ResponseStatus(HttpStatus.BAD_REQUEST)
+public class InvalidTransferException extends RuntimeException {
+
+    public InvalidTransferException(String message) {
+        super(message);
+    }
+
+    public InvalidTransferException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
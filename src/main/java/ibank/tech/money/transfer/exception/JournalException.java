@@ -0,0 +1,19 @@
+package ibank.tech.money.transfer.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+/**
+ * The transfer journal could not write or sync a record, so durability cannot be confirmed
+ */
+@ResponseStatus(HttpStatus.SERVICE_UNAVAILABLE)
+public class JournalException extends RuntimeException {
+
+    public JournalException(String message) {
+        super(message);
+    }
+
+    public JournalException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
@@ -0,0 +1,276 @@
+package ibank.tech.money.transfer.service;
+
+import ibank.tech.money.transfer.exception.InsufficientFundsException;
+import ibank.tech.money.transfer.exception.InvalidTransferException;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * In-memory account ledger with balances in long minor units.
+ * <p>
+ * Balances are guarded by a fixed array of lock stripes; an account always maps to the same stripe.
+ * A transfer locks the two stripes of its accounts in ascending stripe index, so two transfers in
+ * opposite directions cannot deadlock. When both accounts share a stripe it is locked once.
+ * <p>
+ * Accounts exist only once opened through {@link #openAccount}, either explicitly or from the
+ * {@code ledger.accounts} seed map at startup; postings to any other account id are rejected.
+ * <p>
+ * With a {@link TransferJournal} every posting is appended to the journal while its locks are
+ * held, and the journal is replayed on startup.
+ */
+@Component
+@Slf4j
+public class AccountLedger {
+
+    /** Decimal places between the major unit in requests and the minor unit of the ledger */
+    public static final int MINOR_UNIT_SCALE = 2;
+
+    private final ReentrantLock[] stripes;
+    private final int stripeMask;
+    private final TransferJournal journal;
+    private final Map<String, Account> accounts = new ConcurrentHashMap<>();
+
+    @Value("#{${ledger.accounts:{:}}}")
+    private Map<String, Long> seedAccounts = Map.of();
+
+    @Autowired
+    public AccountLedger(@Value("${ledger.lock-stripes:1024}") int lockStripes,
+                         ObjectProvider<TransferJournal> journal) {
+        this(lockStripes, journal.getIfAvailable());
+    }
+
+    /**
+     * @param journal the journal to write postings to, or null for a purely in-memory ledger
+     */
+    public AccountLedger(int lockStripes, TransferJournal journal) {
+        // Round up to a power of two, so a mask picks the stripe
+        int size = lockStripes <= 1 ? 1 : Integer.highestOneBit((lockStripes - 1) << 1);
+        this.stripes = new ReentrantLock[size];
+        for (int i = 0; i < size; i++) {
+            stripes[i] = new ReentrantLock();
+        }
+        this.stripeMask = size - 1;
+        this.journal = journal;
+        log.info("Account ledger started with {} lock stripes, journal {}",
+                size, journal != null ? "enabled" : "disabled");
+    }
+
+    /**
+     * Rebuild balances from the journal, then open the seed accounts that do not exist yet,
+     * before the ledger takes traffic
+     */
+    @PostConstruct
+    public void recover() {
+        if (journal != null) {
+            journal.recover(this::applyRecovered);
+        }
+        seedAccounts.forEach((accountId, balance) -> {
+            if (openAccount(accountId, balance)) {
+                log.info("Opened seed account {} with balance {}", accountId, balance);
+            }
+        });
+    }
+
+    /**
+     * Open an account with an initial balance; the opening is journaled as a credit
+     *
+     * @return false if the account already exists, in which case its balance is left unchanged
+     */
+    public boolean openAccount(String accountId, long initialBalance) {
+        if (accountId == null || accountId.isEmpty()) {
+            throw new InvalidTransferException("Account id is required");
+        }
+        if (initialBalance < 0) {
+            throw new InvalidTransferException("Initial balance must not be negative: " + initialBalance);
+        }
+        int stripe = stripeOf(accountId);
+        ReentrantLock lock = stripes[stripe];
+        lock.lock();
+        try {
+            if (accounts.containsKey(accountId)) {
+                return false;
+            }
+            if (journal != null) {
+                journal.append("", accountId, initialBalance);
+            }
+            accounts.put(accountId, new Account(stripe, initialBalance));
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Move an amount between two accounts atomically
+     *
+     * @return the journal sequence of the posting, 0 without a journal
+     * @throws InsufficientFundsException if the source account balance is lower than the amount
+     */
+    public long transfer(String fromAccountId, String toAccountId, long amount) {
+        validateAmount(amount);
+        if (fromAccountId == null || toAccountId == null) {
+            throw new InvalidTransferException("Both source and destination account are required");
+        }
+        if (fromAccountId.equals(toAccountId)) {
+            throw new InvalidTransferException("Source and destination account must differ: " + fromAccountId);
+        }
+        Account from = account(fromAccountId);
+        Account to = account(toAccountId);
+
+        ReentrantLock first = stripes[Math.min(from.stripe, to.stripe)];
+        ReentrantLock second = stripes[Math.max(from.stripe, to.stripe)];
+        first.lock();
+        try {
+            if (second != first) {
+                second.lock();
+            }
+            try {
+                if (from.balance < amount) {
+                    throw new InsufficientFundsException(fromAccountId, from.balance, amount);
+                }
+                long credited = Math.addExact(to.balance, amount);
+                long sequence = journal != null ? journal.append(fromAccountId, toAccountId, amount) : 0;
+                from.balance -= amount;
+                to.balance = credited;
+                return sequence;
+            } finally {
+                if (second != first) {
+                    second.unlock();
+                }
+            }
+        } finally {
+            first.unlock();
+        }
+    }
+
+    /**
+     * Withdraw an amount from one account
+     *
+     * @return the new balance
+     * @throws InsufficientFundsException if the balance is lower than the amount
+     */
+    public long debit(String accountId, long amount) {
+        validateAmount(amount);
+        Account account = account(accountId);
+        ReentrantLock lock = stripes[account.stripe];
+        lock.lock();
+        try {
+            if (account.balance < amount) {
+                throw new InsufficientFundsException(accountId, account.balance, amount);
+            }
+            if (journal != null) {
+                journal.append(accountId, "", amount);
+            }
+            account.balance -= amount;
+            return account.balance;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Deposit an amount into one account
+     *
+     * @return the new balance
+     */
+    public long credit(String accountId, long amount) {
+        validateAmount(amount);
+        Account account = account(accountId);
+        ReentrantLock lock = stripes[account.stripe];
+        lock.lock();
+        try {
+            long credited = Math.addExact(account.balance, amount);
+            if (journal != null) {
+                journal.append("", accountId, amount);
+            }
+            account.balance = credited;
+            return credited;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Wait until the posting with the given journal sequence is on disk; returns immediately
+     * without a journal
+     */
+    public void awaitDurable(long sequence) {
+        if (journal != null && sequence > 0) {
+            journal.awaitDurable(sequence);
+        }
+    }
+
+    /**
+     * Current balance in minor units, 0 for an unknown account
+     */
+    public long getBalance(String accountId) {
+        Account account = accounts.get(accountId);
+        return account != null ? account.balance : 0;
+    }
+
+    public int getAccountCount() {
+        return accounts.size();
+    }
+
+    public int getStripeCount() {
+        return stripes.length;
+    }
+
+    /**
+     * Apply a journal record without checks; it was validated when it was first posted.
+     * The first record of an account is its opening.
+     */
+    private void applyRecovered(String fromAccountId, String toAccountId, long amount) {
+        if (!fromAccountId.isEmpty()) {
+            recoveredAccount(fromAccountId).balance -= amount;
+        }
+        if (!toAccountId.isEmpty()) {
+            recoveredAccount(toAccountId).balance += amount;
+        }
+    }
+
+    private Account recoveredAccount(String accountId) {
+        return accounts.computeIfAbsent(accountId, id -> new Account(stripeOf(id), 0));
+    }
+
+    private Account account(String accountId) {
+        if (accountId == null || accountId.isEmpty()) {
+            throw new InvalidTransferException("Account id is required");
+        }
+        Account account = accounts.get(accountId);
+        if (account == null) {
+            throw new InvalidTransferException("Unknown account: " + accountId);
+        }
+        return account;
+    }
+
+    private int stripeOf(String accountId) {
+        int hash = accountId.hashCode();
+        return (hash ^ (hash >>> 16)) & stripeMask;
+    }
+
+    private static void validateAmount(long amount) {
+        if (amount <= 0) {
+            throw new InvalidTransferException("Amount must be positive: " + amount);
+        }
+    }
+
+    private static final class Account {
+        private final int stripe;
+        // Written only under the stripe lock; volatile for lock-free balance reads
+        private volatile long balance;
+
+        private Account(int stripe, long balance) {
+            this.stripe = stripe;
+            this.balance = balance;
+        }
+    }
+}
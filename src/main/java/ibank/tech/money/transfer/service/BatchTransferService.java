@@ -0,0 +1,116 @@
+package ibank.tech.money.transfer.service;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import ibank.tech.money.transfer.dto.DurabilityMode;
+import ibank.tech.money.transfer.dto.TransferRequest;
+import ibank.tech.money.transfer.dto.TransferResult;
+import ibank.tech.money.transfer.exception.InsufficientFundsException;
+import ibank.tech.money.transfer.exception.InvalidTransferException;
+import ibank.tech.money.transfer.exception.JournalException;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Streaming processor for batches of domestic transfers.
+ * <p>
+ * The input is either a JSON array or NDJSON (one request object per line). It is read one item at a
+ * time and one result line per item is written back, so memory does not grow with the batch size.
+ * Results are written in windows of {@code transfer.batch.sync-window} items; when a window
+ * contains durable items it waits for one journal sync covering all of them before writing it.
+ * If that sync fails, the applied items of the window are reported as "unconfirmed", not as errors,
+ * since retrying them would transfer twice.
+ * The caller checks the transfer-domestic flag once for the whole batch.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class BatchTransferService {
+
+    private final TransferService transferService;
+    private final ObjectMapper objectMapper;
+
+    @Value("${transfer.batch.sync-window:256}")
+    private int syncWindow;
+
+    public void process(InputStream input, OutputStream output) throws IOException {
+        long startedAt = System.nanoTime();
+        long index = 0;
+        try (JsonParser parser = objectMapper.getFactory().createParser(input);
+             JsonGenerator generator = objectMapper.getFactory().createGenerator(output)) {
+            generator.setRootValueSeparator(null);
+            List<TransferResult> window = new ArrayList<>(syncWindow);
+            long durableSequence = 0;
+
+            JsonToken token = parser.nextToken();
+            if (token == JsonToken.START_ARRAY) {
+                token = parser.nextToken();
+            }
+            while (token != null && token != JsonToken.END_ARRAY) {
+                TransferRequest transferRequest;
+                try {
+                    transferRequest = parser.readValueAs(TransferRequest.class);
+                } catch (JsonProcessingException e) {
+                    // The parser position is unknown after a syntax error, so the rest of the batch is not read
+                    window.add(new TransferResult(index, TransferResult.ERROR,
+                            "Malformed item, batch aborted: " + e.getOriginalMessage()));
+                    break;
+                }
+                try {
+                    long sequence = transferService.postDomestic(transferRequest);
+                    if (transferService.durabilityOf(transferRequest) == DurabilityMode.DURABLE) {
+                        durableSequence = Math.max(durableSequence, sequence);
+                    }
+                    window.add(new TransferResult(index, TransferResult.OK, null));
+                } catch (InsufficientFundsException | InvalidTransferException e) {
+                    window.add(new TransferResult(index, TransferResult.REJECTED, e.getMessage()));
+                } catch (RuntimeException e) {
+                    log.error("Batch transfer item {} failed", index, e);
+                    window.add(new TransferResult(index, TransferResult.ERROR, e.getMessage()));
+                }
+                index++;
+
+                if (window.size() >= syncWindow) {
+                    writeWindow(generator, window, durableSequence);
+                    durableSequence = 0;
+                }
+                token = parser.nextToken();
+            }
+            writeWindow(generator, window, durableSequence);
+        }
+        log.info("Processed batch of {} transfers in {} ms", index, (System.nanoTime() - startedAt) / 1_000_000);
+    }
+
+    private void writeWindow(JsonGenerator generator, List<TransferResult> window, long durableSequence)
+            throws IOException {
+        if (durableSequence > 0) {
+            try {
+                transferService.awaitDurable(durableSequence);
+            } catch (JournalException e) {
+                for (TransferResult result : window) {
+                    if (TransferResult.OK.equals(result.getStatus())) {
+                        result.setStatus(TransferResult.UNCONFIRMED);
+                        result.setMessage("Applied, durability unconfirmed: " + e.getMessage());
+                    }
+                }
+            }
+        }
+        for (TransferResult result : window) {
+            generator.writeObject(result);
+            generator.writeRaw('\n');
+        }
+        generator.flush();
+        window.clear();
+    }
+}
@@ -0,0 +1,65 @@
+package ibank.tech.money.transfer.service;
+
+import ibank.tech.money.transfer.dto.NamespaceSnapshot;
+import ibank.tech.money.transfer.dto.TransferRequest;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Local flag evaluation for transfer requests that allocates nothing per call.
+ * <p>
+ * Each namespace snapshot is compiled into a {@link CompiledNamespace} on first use after its
+ * version changes. Constraints read the request fields directly instead of an attribute map, and
+ * percentage rollouts hash the entity id without building strings. Results match
+ * {@link LocalFlagEvaluator} given the request fields as attributes.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class CompiledFlagEvaluator {
+
+    private final FlagSnapshotStore snapshotStore;
+    private final Map<String, CompiledNamespace> compiled = new ConcurrentHashMap<>();
+
+    /**
+     * Evaluate a flag for an entity and the attributes of a transfer request.
+     *
+     * @param request constraint attributes, may be null
+     * @return the evaluation result, or null if the namespace or flag is not in the local snapshot
+     */
+    public Boolean evaluate(String namespace, String flagKey, String entityId, TransferRequest request) {
+        CompiledNamespace current = compiled(namespace);
+        if (current == null) {
+            return null;
+        }
+        int flag = current.indexOf(flagKey);
+        if (flag < 0) {
+            return null;
+        }
+        return current.evaluate(flag, entityId, request);
+    }
+
+    /**
+     * Compiled form of the current snapshot, or null if the namespace was never loaded.
+     * Concurrent callers may compile the same version twice; either result is correct.
+     */
+    private CompiledNamespace compiled(String namespace) {
+        NamespaceSnapshot snapshot = snapshotStore.get(namespace);
+        if (snapshot == null) {
+            return null;
+        }
+        CompiledNamespace current = compiled.get(namespace);
+        if (current == null || current.version() != snapshot.version()) {
+            long startedAt = System.nanoTime();
+            current = CompiledNamespace.compile(snapshot);
+            compiled.put(namespace, current);
+            log.debug("Compiled namespace {} version {} ({} flags) in {} us", namespace, current.version(),
+                    current.flagCount(), (System.nanoTime() - startedAt) / 1_000);
+        }
+        return current;
+    }
+}
@@ -0,0 +1,517 @@
+package ibank.tech.money.transfer.service;
+
+import ibank.tech.money.transfer.dto.NamespaceSnapshot;
+import ibank.tech.money.transfer.dto.TransferRequest;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * One namespace snapshot flattened into primitive arrays for {@link CompiledFlagEvaluator}.
+ * <p>
+ * Rollouts, segment references and constraints are stored as index ranges into shared arrays.
+ * Constraint properties are bound to {@link TransferRequest} attributes and expected values are
+ * parsed once when compiling, so an evaluation only reads arrays and request fields.
+ * Results are the same as {@link LocalFlagEvaluator} with the request attributes role, region, from,
+ * to and amount. String operators on the amount and number operators on string attributes have to
+ * convert the value and allocate; Flipt does not model them that way.
+ */
+final class CompiledNamespace {
+
+    static final byte ATTRIBUTE_NONE = 0;
+    static final byte ATTRIBUTE_ENTITY_ID = 1;
+    static final byte ATTRIBUTE_ROLE = 2;
+    static final byte ATTRIBUTE_REGION = 3;
+    static final byte ATTRIBUTE_FROM = 4;
+    static final byte ATTRIBUTE_TO = 5;
+    static final byte ATTRIBUTE_AMOUNT = 6;
+
+    // Operators are grouped by comparison type: string < OP_NUMBER_PRESENT <= number < OP_BOOLEAN_TRUE <= boolean
+    static final byte OP_NEVER = 0;
+    static final byte OP_STRING_EQ = 1;
+    static final byte OP_STRING_NEQ = 2;
+    static final byte OP_STRING_EMPTY = 3;
+    static final byte OP_STRING_NOT_EMPTY = 4;
+    static final byte OP_STRING_PREFIX = 5;
+    static final byte OP_STRING_SUFFIX = 6;
+    static final byte OP_STRING_ONE_OF = 7;
+    static final byte OP_STRING_NOT_ONE_OF = 8;
+    static final byte OP_NUMBER_PRESENT = 10;
+    static final byte OP_NUMBER_NOT_PRESENT = 11;
+    static final byte OP_NUMBER_EQ = 12;
+    static final byte OP_NUMBER_NEQ = 13;
+    static final byte OP_NUMBER_LT = 14;
+    static final byte OP_NUMBER_LTE = 15;
+    static final byte OP_NUMBER_GT = 16;
+    static final byte OP_NUMBER_GTE = 17;
+    static final byte OP_NUMBER_ONE_OF = 18;
+    static final byte OP_NUMBER_NOT_ONE_OF = 19;
+    static final byte OP_BOOLEAN_TRUE = 20;
+    static final byte OP_BOOLEAN_FALSE = 21;
+    static final byte OP_BOOLEAN_PRESENT = 22;
+    static final byte OP_BOOLEAN_NOT_PRESENT = 23;
+
+    private static final int[] CRC_TABLE = new int[256];
+
+    static {
+        for (int n = 0; n < 256; n++) {
+            int c = n;
+            for (int k = 0; k < 8; k++) {
+                c = (c & 1) != 0 ? 0xEDB88320 ^ (c >>> 1) : c >>> 1;
+            }
+            CRC_TABLE[n] = c;
+        }
+    }
+
+    private final long version;
+    private final Map<String, Integer> flagIndexes;
+
+    // Flags; rollouts of flag f are flagRollouts[f] until flagRollouts[f + 1]
+    private final String[] flagKeys;
+    private final boolean[] flagEnabled;
+    private final boolean[] flagVariant;
+    private final int[] flagRollouts;
+
+    // Rollouts in rank order; segment references of rollout r are rolloutSegments[r] until rolloutSegments[r + 1]
+    private final boolean[] rolloutThreshold;
+    private final boolean[] rolloutValue;
+    private final float[] rolloutPercentage;
+    private final boolean[] rolloutMatchAll;
+    private final int[] rolloutSegments;
+    private final int[] segmentReferences; // segment index, -1 if the segment is not in the snapshot
+
+    // Segments; constraints of segment s are segmentConstraints[s] until segmentConstraints[s + 1]
+    private final boolean[] segmentMatchAll;
+    private final int[] segmentConstraints;
+
+    private final byte[] constraintAttribute;
+    private final byte[] constraintOperator;
+    private final String[] constraintText;
+    private final double[] constraintNumber;
+    private final String[][] constraintTextList;
+    private final double[][] constraintNumberList;
+
+    private CompiledNamespace(NamespaceSnapshot snapshot) {
+        this.version = snapshot.version();
+
+        List<NamespaceSnapshot.Segment> segments = new ArrayList<>(snapshot.segments().values());
+        Map<String, Integer> segmentIndexes = new HashMap<>(segments.size() * 2);
+        int constraintCount = 0;
+        for (int s = 0; s < segments.size(); s++) {
+            segmentIndexes.put(segments.get(s).key(), s);
+            constraintCount += segments.get(s).constraints().size();
+        }
+        segmentMatchAll = new boolean[segments.size()];
+        segmentConstraints = new int[segments.size() + 1];
+        constraintAttribute = new byte[constraintCount];
+        constraintOperator = new byte[constraintCount];
+        constraintText = new String[constraintCount];
+        constraintNumber = new double[constraintCount];
+        constraintTextList = new String[constraintCount][];
+        constraintNumberList = new double[constraintCount][];
+        int c = 0;
+        for (int s = 0; s < segments.size(); s++) {
+            NamespaceSnapshot.Segment segment = segments.get(s);
+            segmentMatchAll[s] = segment.matchType() == NamespaceSnapshot.MatchType.ALL;
+            segmentConstraints[s] = c;
+            for (NamespaceSnapshot.Constraint constraint : segment.constraints()) {
+                compileConstraint(c++, constraint);
+            }
+        }
+        segmentConstraints[segments.size()] = c;
+
+        List<NamespaceSnapshot.Flag> flags = new ArrayList<>(snapshot.flags().values());
+        int rolloutCount = 0;
+        int referenceCount = 0;
+        for (NamespaceSnapshot.Flag flag : flags) {
+            rolloutCount += flag.rollouts().size();
+            for (NamespaceSnapshot.Rollout rollout : flag.rollouts()) {
+                referenceCount += rollout.segmentKeys().size();
+            }
+        }
+        flagIndexes = new HashMap<>(flags.size() * 2);
+        flagKeys = new String[flags.size()];
+        flagEnabled = new boolean[flags.size()];
+        flagVariant = new boolean[flags.size()];
+        flagRollouts = new int[flags.size() + 1];
+        rolloutThreshold = new boolean[rolloutCount];
+        rolloutValue = new boolean[rolloutCount];
+        rolloutPercentage = new float[rolloutCount];
+        rolloutMatchAll = new boolean[rolloutCount];
+        rolloutSegments = new int[rolloutCount + 1];
+        segmentReferences = new int[referenceCount];
+        int r = 0;
+        int reference = 0;
+        for (int f = 0; f < flags.size(); f++) {
+            NamespaceSnapshot.Flag flag = flags.get(f);
+            flagIndexes.put(flag.key(), f);
+            flagKeys[f] = flag.key();
+            flagEnabled[f] = flag.enabled();
+            flagVariant[f] = flag.type() == NamespaceSnapshot.FlagType.VARIANT;
+            flagRollouts[f] = r;
+            for (NamespaceSnapshot.Rollout rollout : flag.rollouts()) {
+                rolloutThreshold[r] = rollout.type() == NamespaceSnapshot.RolloutType.THRESHOLD;
+                rolloutValue[r] = rollout.value();
+                rolloutPercentage[r] = rollout.percentage();
+                rolloutMatchAll[r] = rollout.segmentOperator() == NamespaceSnapshot.SegmentOperator.AND;
+                rolloutSegments[r] = reference;
+                for (String segmentKey : rollout.segmentKeys()) {
+                    segmentReferences[reference++] = segmentIndexes.getOrDefault(segmentKey, -1);
+                }
+                r++;
+            }
+        }
+        flagRollouts[flags.size()] = r;
+        rolloutSegments[rolloutCount] = reference;
+    }
+
+    static CompiledNamespace compile(NamespaceSnapshot snapshot) {
+        return new CompiledNamespace(snapshot);
+    }
+
+    long version() {
+        return version;
+    }
+
+    int flagCount() {
+        return flagKeys.length;
+    }
+
+    /**
+     * Index of a flag for {@link #evaluate}, or -1 if the flag is not in the namespace
+     */
+    int indexOf(String flagKey) {
+        Integer index = flagIndexes.get(flagKey);
+        return index != null ? index : -1;
+    }
+
+    /**
+     * Evaluate a flag following the Flipt boolean evaluation rules, like {@link LocalFlagEvaluator}
+     *
+     * @param request source of the constraint attributes, may be null
+     */
+    boolean evaluate(int flag, String entityId, TransferRequest request) {
+        if (flagVariant[flag]) {
+            return flagEnabled[flag];
+        }
+        int bucket = -1;
+        for (int r = flagRollouts[flag]; r < flagRollouts[flag + 1]; r++) {
+            if (rolloutThreshold[r]) {
+                if (bucket < 0) {
+                    bucket = bucket(entityId, flagKeys[flag]);
+                }
+                if (bucket < rolloutPercentage[r]) {
+                    return rolloutValue[r];
+                }
+            } else if (matchesSegments(r, entityId, request)) {
+                return rolloutValue[r];
+            }
+        }
+        return flagEnabled[flag];
+    }
+
+    private boolean matchesSegments(int rollout, String entityId, TransferRequest request) {
+        int start = rolloutSegments[rollout];
+        int end = rolloutSegments[rollout + 1];
+        if (start == end) {
+            return false;
+        }
+        boolean matchAll = rolloutMatchAll[rollout];
+        for (int i = start; i < end; i++) {
+            int segment = segmentReferences[i];
+            boolean matched = segment >= 0 && matchesSegment(segment, entityId, request);
+            if (!matchAll && matched) {
+                return true;
+            }
+            if (matchAll && !matched) {
+                return false;
+            }
+        }
+        return matchAll;
+    }
+
+    private boolean matchesSegment(int segment, String entityId, TransferRequest request) {
+        int start = segmentConstraints[segment];
+        int end = segmentConstraints[segment + 1];
+        if (start == end) {
+            return true;
+        }
+        boolean matchAll = segmentMatchAll[segment];
+        for (int c = start; c < end; c++) {
+            boolean matched = matchesConstraint(c, entityId, request);
+            if (matchAll && !matched) {
+                return false;
+            }
+            if (!matchAll && matched) {
+                return true;
+            }
+        }
+        return matchAll;
+    }
+
+    private boolean matchesConstraint(int c, String entityId, TransferRequest request) {
+        byte operator = constraintOperator[c];
+        byte attribute = constraintAttribute[c];
+        if (operator == OP_NEVER) {
+            return false;
+        }
+        if (operator < OP_NUMBER_PRESENT) {
+            String actual = text(attribute, entityId, request);
+            String value = actual != null ? actual : "";
+            String expected = constraintText[c];
+            switch (operator) {
+                case OP_STRING_EQ: return value.equals(expected);
+                case OP_STRING_NEQ: return !value.equals(expected);
+                case OP_STRING_EMPTY: return value.isBlank();
+                case OP_STRING_NOT_EMPTY: return !value.isBlank();
+                case OP_STRING_PREFIX: return value.startsWith(expected);
+                case OP_STRING_SUFFIX: return value.endsWith(expected);
+                case OP_STRING_ONE_OF: return contains(constraintTextList[c], value);
+                case OP_STRING_NOT_ONE_OF: return !contains(constraintTextList[c], value);
+                default: return false;
+            }
+        }
+        if (operator < OP_BOOLEAN_TRUE) {
+            boolean present = isPresent(attribute, entityId, request);
+            if (operator == OP_NUMBER_PRESENT) return present;
+            if (operator == OP_NUMBER_NOT_PRESENT) return !present;
+            if (!present) return false;
+            double number;
+            if (attribute == ATTRIBUTE_AMOUNT) {
+                number = request.getAmount();
+            } else {
+                try {
+                    number = Double.parseDouble(text(attribute, entityId, request));
+                } catch (NumberFormatException e) {
+                    return false;
+                }
+            }
+            double expected = constraintNumber[c];
+            switch (operator) {
+                case OP_NUMBER_EQ: return number == expected;
+                case OP_NUMBER_NEQ: return number != expected;
+                case OP_NUMBER_LT: return number < expected;
+                case OP_NUMBER_LTE: return number <= expected;
+                case OP_NUMBER_GT: return number > expected;
+                case OP_NUMBER_GTE: return number >= expected;
+                case OP_NUMBER_ONE_OF: return contains(constraintNumberList[c], number);
+                case OP_NUMBER_NOT_ONE_OF: return !contains(constraintNumberList[c], number);
+                default: return false;
+            }
+        }
+        switch (operator) {
+            case OP_BOOLEAN_TRUE: return "true".equalsIgnoreCase(text(attribute, entityId, request));
+            case OP_BOOLEAN_FALSE: return "false".equalsIgnoreCase(text(attribute, entityId, request));
+            case OP_BOOLEAN_PRESENT: return isPresent(attribute, entityId, request);
+            case OP_BOOLEAN_NOT_PRESENT: return !isPresent(attribute, entityId, request);
+            default: return false;
+        }
+    }
+
+    private static String text(byte attribute, String entityId, TransferRequest request) {
+        if (attribute == ATTRIBUTE_ENTITY_ID) {
+            return entityId;
+        }
+        if (request == null) {
+            return null;
+        }
+        switch (attribute) {
+            case ATTRIBUTE_ROLE: return request.getRole();
+            case ATTRIBUTE_REGION: return request.getRegion();
+            case ATTRIBUTE_FROM: return request.getFrom();
+            case ATTRIBUTE_TO: return request.getTo();
+            case ATTRIBUTE_AMOUNT: return Double.toString(request.getAmount());
+            default: return null;
+        }
+    }
+
+    private static boolean isPresent(byte attribute, String entityId, TransferRequest request) {
+        if (attribute == ATTRIBUTE_AMOUNT) {
+            return request != null;
+        }
+        String value = text(attribute, entityId, request);
+        return value != null && !value.isEmpty();
+    }
+
+    private static boolean contains(String[] values, String value) {
+        for (String candidate : values) {
+            if (candidate.equals(value)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean contains(double[] values, double value) {
+        for (double candidate : values) {
+            if (candidate == value) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void compileConstraint(int c, NamespaceSnapshot.Constraint constraint) {
+        constraintAttribute[c] = bindAttribute(constraint);
+        constraintText[c] = constraint.value();
+        constraintTextList[c] = parseList(constraint.value());
+        constraintOperator[c] = operatorOf(constraint);
+
+        if (constraintOperator[c] >= OP_NUMBER_EQ && constraintOperator[c] <= OP_NUMBER_GTE) {
+            try {
+                constraintNumber[c] = Double.parseDouble(constraint.value());
+            } catch (NumberFormatException | NullPointerException e) {
+                // An expected value that is not a number never matches
+                constraintOperator[c] = OP_NEVER;
+            }
+        }
+        if (constraintOperator[c] == OP_NUMBER_ONE_OF || constraintOperator[c] == OP_NUMBER_NOT_ONE_OF) {
+            constraintNumberList[c] = parseNumbers(constraintTextList[c]);
+        }
+        if ((constraintOperator[c] == OP_STRING_PREFIX || constraintOperator[c] == OP_STRING_SUFFIX)
+                && constraint.value() == null) {
+            constraintOperator[c] = OP_NEVER;
+        }
+    }
+
+    private static byte bindAttribute(NamespaceSnapshot.Constraint constraint) {
+        if (constraint.type() == NamespaceSnapshot.ComparisonType.ENTITY_ID) {
+            return ATTRIBUTE_ENTITY_ID;
+        }
+        if (constraint.property() == null) {
+            return ATTRIBUTE_NONE;
+        }
+        switch (constraint.property()) {
+            case "role": return ATTRIBUTE_ROLE;
+            case "region": return ATTRIBUTE_REGION;
+            case "from": return ATTRIBUTE_FROM;
+            case "to": return ATTRIBUTE_TO;
+            case "amount": return ATTRIBUTE_AMOUNT;
+            default: return ATTRIBUTE_NONE;
+        }
+    }
+
+    private static byte operatorOf(NamespaceSnapshot.Constraint constraint) {
+        String operator = constraint.operator() != null ? constraint.operator() : "";
+        switch (constraint.type()) {
+            case STRING:
+            case ENTITY_ID:
+                switch (operator) {
+                    case "eq": return OP_STRING_EQ;
+                    case "neq": return OP_STRING_NEQ;
+                    case "empty": return OP_STRING_EMPTY;
+                    case "notempty": return OP_STRING_NOT_EMPTY;
+                    case "prefix": return OP_STRING_PREFIX;
+                    case "suffix": return OP_STRING_SUFFIX;
+                    case "isoneof": return OP_STRING_ONE_OF;
+                    case "isnotoneof": return OP_STRING_NOT_ONE_OF;
+                    default: return OP_NEVER;
+                }
+            case NUMBER:
+                switch (operator) {
+                    case "present": return OP_NUMBER_PRESENT;
+                    case "notpresent": return OP_NUMBER_NOT_PRESENT;
+                    case "eq": return OP_NUMBER_EQ;
+                    case "neq": return OP_NUMBER_NEQ;
+                    case "lt": return OP_NUMBER_LT;
+                    case "lte": return OP_NUMBER_LTE;
+                    case "gt": return OP_NUMBER_GT;
+                    case "gte": return OP_NUMBER_GTE;
+                    case "isoneof": return OP_NUMBER_ONE_OF;
+                    case "isnotoneof": return OP_NUMBER_NOT_ONE_OF;
+                    default: return OP_NEVER;
+                }
+            case BOOLEAN:
+                switch (operator) {
+                    case "true": return OP_BOOLEAN_TRUE;
+                    case "false": return OP_BOOLEAN_FALSE;
+                    case "present": return OP_BOOLEAN_PRESENT;
+                    case "notpresent": return OP_BOOLEAN_NOT_PRESENT;
+                    default: return OP_NEVER;
+                }
+            default:
+                return OP_NEVER;
+        }
+    }
+
+    /**
+     * Flipt list values are JSON arrays such as ["eu","us"]
+     */
+    private static String[] parseList(String expected) {
+        if (expected == null) {
+            return new String[0];
+        }
+        String list = expected.trim();
+        if (list.startsWith("[")) {
+            list = list.substring(1, list.length() - 1);
+        }
+        String[] items = list.split(",");
+        for (int i = 0; i < items.length; i++) {
+            String candidate = items[i].trim();
+            if (candidate.length() >= 2 && candidate.startsWith("\"") && candidate.endsWith("\"")) {
+                candidate = candidate.substring(1, candidate.length() - 1);
+            }
+            items[i] = candidate;
+        }
+        return items;
+    }
+
+    private static double[] parseNumbers(String[] items) {
+        double[] numbers = new double[items.length];
+        int count = 0;
+        for (String item : items) {
+            try {
+                numbers[count] = Double.parseDouble(item);
+                count++;
+            } catch (NumberFormatException e) {
+                // Items that are not numbers cannot equal a number
+            }
+        }
+        return count == numbers.length ? numbers : Arrays.copyOf(numbers, count);
+    }
+
+    /**
+     * Same bucketing as Flipt, crc32(entityId + flagKey) % 100, computed over the UTF-8 encoding
+     * of both strings without concatenating or encoding them
+     */
+    static int bucket(String entityId, String flagKey) {
+        int crc = ~0;
+        crc = crc32(crc, entityId != null ? entityId : "");
+        crc = crc32(crc, flagKey);
+        return (int) ((~crc & 0xFFFFFFFFL) % 100);
+    }
+
+    private static int crc32(int crc, String value) {
+        int length = value.length();
+        for (int i = 0; i < length; i++) {
+            char ch = value.charAt(i);
+            if (ch < 0x80) {
+                crc = crc32(crc, ch);
+            } else if (ch < 0x800) {
+                crc = crc32(crc, 0xC0 | (ch >> 6));
+                crc = crc32(crc, 0x80 | (ch & 0x3F));
+            } else if (Character.isHighSurrogate(ch) && i + 1 < length && Character.isLowSurrogate(value.charAt(i + 1))) {
+                int codePoint = Character.toCodePoint(ch, value.charAt(++i));
+                crc = crc32(crc, 0xF0 | (codePoint >> 18));
+                crc = crc32(crc, 0x80 | ((codePoint >> 12) & 0x3F));
+                crc = crc32(crc, 0x80 | ((codePoint >> 6) & 0x3F));
+                crc = crc32(crc, 0x80 | (codePoint & 0x3F));
+            } else if (Character.isSurrogate(ch)) {
+                // String.getBytes(UTF_8) replaces unpaired surrogates with '?'
+                crc = crc32(crc, '?');
+            } else {
+                crc = crc32(crc, 0xE0 | (ch >> 12));
+                crc = crc32(crc, 0x80 | ((ch >> 6) & 0x3F));
+                crc = crc32(crc, 0x80 | (ch & 0x3F));
+            }
+        }
+        return crc;
+    }
+
+    private static int crc32(int crc, int b) {
+        return CRC_TABLE[(crc ^ b) & 0xFF] ^ (crc >>> 8);
+    }
+}
@@ -0,0 +1,103 @@
+package ibank.tech.money.transfer.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import ibank.tech.money.transfer.dto.NamespaceSnapshot;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Bounded cache of flag evaluation results keyed by (namespace, flag, entity), with Caffeine's
+ * frequency-aware (W-TinyLFU) eviction so the most active entities stay cached.
+ * <p>
+ * Entries are never removed on change; instead each entry carries the snapshot version it was
+ * computed from, and the store reports for every change which flags it affects and under which
+ * version, before that version is published. An entry is only served if it was computed from a
+ * snapshot at least as new as the last change to its flag, so a result that predates an applied
+ * event is never returned. Flag events invalidate one flag, segment and constraint events the flags
+ * using the segment, and full refreshes the whole namespace.
+ */
+@Component
+@Slf4j
+public class EvaluationResultCache implements FlagSnapshotStore.ChangeListener {
+
+    private final Cache<Key, Result> cache;
+    private final Map<String, NamespaceStamps> stamps = new ConcurrentHashMap<>();
+
+    public EvaluationResultCache(FlagSnapshotStore snapshotStore,
+                                 @Value("${feature-flag.evaluation-cache.maximum-size:100000}") long maximumSize,
+                                 MeterRegistry meterRegistry) {
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "flag.evaluation");
+        snapshotStore.addListener(this);
+    }
+
+    /**
+     * Cached result for the flag and entity if it is still current for the snapshot,
+     * otherwise evaluate it against that snapshot and cache it
+     */
+    public boolean get(NamespaceSnapshot snapshot, String flagKey, String entityId, BooleanSupplier evaluation) {
+        Key key = new Key(snapshot.namespace(), flagKey, entityId);
+        Result cached = cache.getIfPresent(key);
+        if (cached != null && cached.version >= lastChange(snapshot.namespace(), flagKey)) {
+            return cached.value;
+        }
+        boolean value = evaluation.getAsBoolean();
+        cache.put(key, new Result(value, snapshot.version()));
+        return value;
+    }
+
+    @Override
+    public void beforePublish(String namespace, long version, Set<String> changedFlags) {
+        NamespaceStamps namespaceStamps = stamps.computeIfAbsent(namespace, ignored -> new NamespaceStamps());
+        if (changedFlags == null) {
+            namespaceStamps.raiseNamespace(version);
+        } else {
+            for (String flagKey : changedFlags) {
+                namespaceStamps.flags.merge(flagKey, version, Math::max);
+            }
+        }
+    }
+
+    public long size() {
+        return cache.estimatedSize();
+    }
+
+    private long lastChange(String namespace, String flagKey) {
+        NamespaceStamps namespaceStamps = stamps.get(namespace);
+        if (namespaceStamps == null) {
+            return 0;
+        }
+        Long flagStamp = namespaceStamps.flags.get(flagKey);
+        return flagStamp != null ? Math.max(flagStamp, namespaceStamps.namespace) : namespaceStamps.namespace;
+    }
+
+    private static final class NamespaceStamps {
+        // Versions only ever increase, so concurrent updates keep the maximum
+        private volatile long namespace;
+        private final Map<String, Long> flags = new ConcurrentHashMap<>();
+
+        private synchronized void raiseNamespace(long version) {
+            if (version > namespace) {
+                namespace = version;
+            }
+        }
+    }
+
+    private record Key(String namespace, String flagKey, String entityId) {
+    }
+
+    private record Result(boolean value, long version) {
+    }
+}
@@ -0,0 +1,132 @@
+package ibank.tech.money.transfer.service;
+
+import ibank.tech.money.transfer.dto.FliptGenericUpdateEvent;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Time-windowed suppression of duplicate Flipt events, e.g. the same change published on several
+ * channels or delivered twice.
+ * <p>
+ * An event is identified by a 64-bit fingerprint of its type, namespace, entity keys, action,
+ * enabled state and timestamp. Fingerprints are kept in a fixed-size open-addressing table
+ * (linear probing over at most {@value #MAX_PROBES} slots) of two {@link AtomicLongArray}s,
+ * fingerprint and last-seen time, updated with compare-and-set only. Expired slots are reused in
+ * place. When every probed slot holds a live entry the event is let through, so a full table costs
+ * missed duplicates, never dropped events. Races between threads can likewise only let a duplicate
+ * through. Events without a timestamp are never suppressed, since two of them may be different
+ * changes.
+ */
+@Component
+public class EventDeduplicator {
+
+    private static final int MAX_PROBES = 8;
+    private static final long FNV_PRIME = 0x100000001B3L;
+
+    private final long windowNanos;
+    private final long clockOrigin;
+    private final int mask;
+    private final AtomicLongArray fingerprints;
+    private final AtomicLongArray seenAt;
+
+    private final AtomicLong checked = new AtomicLong();
+    private final AtomicLong duplicates = new AtomicLong();
+    private final AtomicLong tableFull = new AtomicLong();
+
+    public EventDeduplicator(@Value("${feature-flag.dedup.window:2s}") Duration window,
+                             @Value("${feature-flag.dedup.capacity:4096}") int capacity) {
+        this.windowNanos = window.toNanos();
+        // Start the clock past one window, so that empty slots (seen at 0) are always expired
+        this.clockOrigin = System.nanoTime() - windowNanos - 1;
+        int size = Integer.highestOneBit(Math.max(16, capacity - 1) << 1);
+        this.mask = size - 1;
+        this.fingerprints = new AtomicLongArray(size);
+        this.seenAt = new AtomicLongArray(size);
+    }
+
+    /**
+     * Record the event and tell whether the same event was already seen within the window
+     */
+    public boolean isDuplicate(FliptGenericUpdateEvent event) {
+        if (windowNanos <= 0 || event.getTimestamp() == null) {
+            return false;
+        }
+        checked.incrementAndGet();
+        long fingerprint = fingerprint(event);
+        long now = System.nanoTime() - clockOrigin;
+        int index = (int) (fingerprint ^ (fingerprint >>> 32)) & mask;
+        int probes = 0;
+        while (probes < MAX_PROBES) {
+            long current = fingerprints.get(index);
+            if (current == fingerprint) {
+                if (now - seenAt.get(index) <= windowNanos) {
+                    duplicates.incrementAndGet();
+                    return true;
+                }
+                // Seen before the window: a new occurrence
+                seenAt.set(index, now);
+                return false;
+            }
+            if (current == 0 || now - seenAt.get(index) > windowNanos) {
+                if (fingerprints.compareAndSet(index, current, fingerprint)) {
+                    seenAt.set(index, now);
+                    return false;
+                }
+                // Another thread took the slot, look at it again
+                continue;
+            }
+            index = (index + 1) & mask;
+            probes++;
+        }
+        tableFull.incrementAndGet();
+        return false;
+    }
+
+    /**
+     * Events checked, suppressed as duplicates, and let through because the table was full
+     */
+    public Map<String, Long> getStats() {
+        return Map.of(
+                "checked", checked.get(),
+                "duplicates", duplicates.get(),
+                "tableFull", tableFull.get());
+    }
+
+    static long fingerprint(FliptGenericUpdateEvent event) {
+        long hash = 0xCBF29CE484222325L;
+        hash = mix(hash, event.getType());
+        hash = mix(hash, event.getNamespace());
+        hash = mix(hash, event.getFlagKey());
+        hash = mix(hash, event.getSegmentKey());
+        hash = mix(hash, event.getConstraintId());
+        hash = mix(hash, event.getAction());
+        hash = mix(hash, event.getTimestamp());
+        Boolean enabled = event.getEnabled();
+        hash = (hash ^ (enabled == null ? 0 : enabled ? 1 : 2)) * FNV_PRIME;
+        // MurmurHash3 finalizer, so the low bits used for the slot index depend on every input bit
+        hash ^= hash >>> 33;
+        hash *= 0xFF51AFD7ED558CCDL;
+        hash ^= hash >>> 33;
+        hash *= 0xC4CEB9FE1A85EC53L;
+        hash ^= hash >>> 33;
+        return hash != 0 ? hash : 1;
+    }
+
+    /**
+     * FNV-1a over the characters, then the length as a field separator
+     */
+    private static long mix(long hash, String value) {
+        if (value == null) {
+            return (hash ^ 0xFF) * FNV_PRIME;
+        }
+        for (int i = 0; i < value.length(); i++) {
+            hash = (hash ^ value.charAt(i)) * FNV_PRIME;
+        }
+        return (hash ^ value.length()) * FNV_PRIME;
+    }
+}
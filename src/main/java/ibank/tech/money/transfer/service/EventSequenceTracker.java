@@ -0,0 +1,143 @@
+package ibank.tech.money.transfer.service;
+
+import ibank.tech.money.transfer.dto.FliptGenericUpdateEvent;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Detects missed and reordered Flipt events from the per-source {@code sequence} of each event
+ * and resyncs only the namespace concerned.
+ * <p>
+ * The publisher numbers its events 1, 2, 3, ... per source. The last sequence is tracked per
+ * namespace and source:
+ * <ul>
+ *   <li>next in line: the event is applied</li>
+ *   <li>ahead of the next one (gap): events were missed; the event is applied and the namespace resynced</li>
+ *   <li>equal to the last one: a duplicate delivery, skipped</li>
+ *   <li>behind the last one: out of order; the event is skipped, since applying it would undo a newer
+ *   change, and the namespace is resynced</li>
+ *   <li>1 after a higher sequence: the publisher restarted; tracking starts over and the namespace is
+ *   resynced, as events may have been lost in between</li>
+ * </ul>
+ * Events without a sequence (0) are applied untracked. When the pub/sub subscription of one of the
+ * event channels is confirmed again after the first time, i.e. re-established after the connection
+ * was lost, the namespaces that have received events are resynced, because their events may have
+ * been published while it was down. Resyncs go through the coalescing refresh scheduler, so a burst
+ * of gaps costs one fetch per namespace.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+@ConditionalOnProperty(name = "redis.pubsub.enabled", havingValue = "true", matchIfMissing = false)
+public class EventSequenceTracker {
+
+    private final MultiNamespaceFeatureFlagService flagService;
+
+    private final Map<String, Map<String, AtomicLong>> lastSequences = new ConcurrentHashMap<>();
+    private final Set<String> subscribedChannels = ConcurrentHashMap.newKeySet();
+    private final AtomicLong untracked = new AtomicLong();
+    private final AtomicLong gaps = new AtomicLong();
+    private final AtomicLong duplicates = new AtomicLong();
+    private final AtomicLong outOfOrder = new AtomicLong();
+    private final AtomicLong restarts = new AtomicLong();
+    private final AtomicLong reconnects = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+    /**
+     * Called whenever Redis confirms the subscription to an event channel. Only the subscriber
+     * connection of the event listener reports here, so other Redis connections opening and closing
+     * never count as a reconnect.
+     */
+    public void onChannelSubscribed(String channel) {
+        if (!subscribedChannels.add(channel)) {
+            onReconnect(channel);
+        }
+    }
+
+    /**
+     * Check the event against the last sequence of its namespace and source, requesting a resync
+     * of the namespace when events were missed or arrived out of order
+     *
+     * @return false if the event must be skipped (duplicate or out of order)
+     */
+    public boolean accept(FliptGenericUpdateEvent event) {
+        long sequence = event.getSequence();
+        if (sequence <= 0) {
+            untracked.incrementAndGet();
+            return true;
+        }
+        String namespace = event.getNamespace();
+        String source = event.getSource() != null ? event.getSource() : "";
+        AtomicLong last = lastSequences.computeIfAbsent(namespace, key -> new ConcurrentHashMap<>())
+                .computeIfAbsent(source, key -> new AtomicLong());
+        while (true) {
+            long previous = last.get();
+            if (previous == 0 || sequence == previous + 1) {
+                if (last.compareAndSet(previous, sequence)) {
+                    return true;
+                }
+            } else if (sequence > previous) {
+                if (last.compareAndSet(previous, sequence)) {
+                    gaps.incrementAndGet();
+                    resync(namespace, "missed events %d..%d from %s".formatted(previous + 1, sequence - 1, source));
+                    return true;
+                }
+            } else if (sequence == previous) {
+                duplicates.incrementAndGet();
+                return false;
+            } else if (sequence == 1) {
+                if (last.compareAndSet(previous, sequence)) {
+                    restarts.incrementAndGet();
+                    resync(namespace, "%s restarted its sequence after %d".formatted(source, previous));
+                    return true;
+                }
+            } else {
+                outOfOrder.incrementAndGet();
+                resync(namespace, "event %d from %s arrived after %d".formatted(sequence, source, previous));
+                return false;
+            }
+        }
+    }
+
+    /**
+     * An accepted event was dropped before it was applied, e.g. on a full pipeline queue. Its
+     * sequence is already recorded, so resync the namespace rather than wait for a gap that never shows.
+     */
+    public void onDropped(FliptGenericUpdateEvent event) {
+        dropped.incrementAndGet();
+        resync(Objects.requireNonNullElse(event.getNamespace(), "default"), "dropped %s event".formatted(event.getType()));
+    }
+
+    /**
+     * Gap, duplicate, out-of-order, reconnect and dropped-event counters
+     */
+    public Map<String, Long> getStats() {
+        return Map.of(
+                "untracked", untracked.get(),
+                "gaps", gaps.get(),
+                "duplicates", duplicates.get(),
+                "outOfOrder", outOfOrder.get(),
+                "restarts", restarts.get(),
+                "reconnects", reconnects.get(),
+                "dropped", dropped.get());
+    }
+
+    private void onReconnect(String channel) {
+        reconnects.incrementAndGet();
+        Set<String> namespaces = Set.copyOf(lastSequences.keySet());
+        log.warn("Subscription to {} re-established, resyncing namespaces {}", channel, namespaces);
+        namespaces.forEach(flagService::requestRefresh);
+    }
+
+    private void resync(String namespace, String reason) {
+        log.warn("Resyncing namespace {}: {}", namespace, reason);
+        flagService.requestRefresh(namespace);
+    }
+}
@@ -0,0 +1,121 @@
+package ibank.tech.money.transfer.service;
+
+import ibank.tech.feature.flag.aop.EntityContextHolder;
+import ibank.tech.feature.flag.service.FeatureFlagService;
+import ibank.tech.money.transfer.dto.TransferRequest;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.annotation.RequestScope;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Flag results memoized for the current request.
+ * <p>
+ * The first lookup of a flag for an entity evaluates only that flag against the local snapshot,
+ * in memory; later lookups of the same flag and entity in the request are a map read. Lookups with
+ * a transfer request go through the {@link CompiledFlagEvaluator}, the same evaluator used outside
+ * requests, so a user gets the same result on either path.
+ * <p>
+ * Flags that are not in the local snapshot, e.g. before their namespace is loaded, are evaluated by
+ * the SDK and memoized as well. The SDK has no bulk evaluation for an entity, so that fallback costs
+ * one remote call per distinct flag and entity in each request.
+ * <p>
+ * The evaluation attributes are taken from the first lookup of a flag, so they must describe the
+ * request rather than a single call.
+ */
+@Component
+@RequestScope
+@Slf4j
+public class FlagEvaluationContext {
+
+    private final LocalFlagEvaluator localFlagEvaluator;
+    private final CompiledFlagEvaluator compiledFlagEvaluator;
+    private final FeatureFlagService featureFlagService;
+    private final Counter hitCounter;
+    private final Counter missCounter;
+
+    // Request-confined, so no synchronization
+    private final Map<EvaluationKey, Boolean> evaluations = new HashMap<>();
+    private long hits;
+    private long misses;
+
+    public FlagEvaluationContext(LocalFlagEvaluator localFlagEvaluator, CompiledFlagEvaluator compiledFlagEvaluator,
+                                 FeatureFlagService featureFlagService, MeterRegistry meterRegistry) {
+        this.localFlagEvaluator = localFlagEvaluator;
+        this.compiledFlagEvaluator = compiledFlagEvaluator;
+        this.featureFlagService = featureFlagService;
+        this.hitCounter = meterRegistry.counter("flag.evaluation.memo", "result", "hit");
+        this.missCounter = meterRegistry.counter("flag.evaluation.memo", "result", "miss");
+    }
+
+    /**
+     * Evaluate without attributes for the entity of the request ({@link EntityContextHolder})
+     */
+    public boolean isEnabled(String namespace, String flagKey) {
+        String entityId = EntityContextHolder.getEntityId();
+        EvaluationKey key = new EvaluationKey(namespace, flagKey, entityId);
+        Boolean memoized = memoized(key);
+        if (memoized != null) {
+            return memoized;
+        }
+        return memoize(key, localFlagEvaluator.evaluate(namespace, flagKey, entityId, Map.of()));
+    }
+
+    /**
+     * Evaluate for the user of a transfer request, with the request fields as attributes
+     */
+    public boolean isEnabled(String namespace, String flagKey, TransferRequest transferRequest) {
+        String entityId = transferRequest.getUserId();
+        EvaluationKey key = new EvaluationKey(namespace, flagKey, entityId);
+        Boolean memoized = memoized(key);
+        if (memoized != null) {
+            return memoized;
+        }
+        return memoize(key, compiledFlagEvaluator.evaluate(namespace, flagKey, entityId, transferRequest));
+    }
+
+    public long getHits() {
+        return hits;
+    }
+
+    public long getMisses() {
+        return misses;
+    }
+
+    @PreDestroy
+    public void logUsage() {
+        if (hits + misses > 0) {
+            log.debug("Flag evaluations in request: {} memoized, {} evaluated", hits, misses);
+        }
+    }
+
+    private Boolean memoized(EvaluationKey key) {
+        Boolean memoized = evaluations.get(key);
+        if (memoized != null) {
+            hits++;
+            hitCounter.increment();
+        }
+        return memoized;
+    }
+
+    /**
+     * Memoize a local result, or the SDK result if the flag is not in the local snapshot yet
+     */
+    private boolean memoize(EvaluationKey key, Boolean local) {
+        misses++;
+        missCounter.increment();
+        boolean result = local != null
+                ? local
+                : featureFlagService.isEnabled(key.namespace(), key.flagKey(), key.entityId());
+        evaluations.put(key, result);
+        return result;
+    }
+
+    private record EvaluationKey(String namespace, String flagKey, String entityId) {
+    }
+}
@@ -0,0 +1,333 @@
+package ibank.tech.money.transfer.service;
+
+import ibank.tech.money.transfer.dto.NamespaceSnapshot;
+import ibank.tech.money.transfer.dto.SegmentDependencyIndex;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Pattern;
+import java.util.zip.CRC32;
+
+/**
+ * Last applied snapshot of every namespace in a compact binary file, so a restarted pod can
+ * evaluate flags before Flipt answers.
+ * <p>
+ * Layout (big endian): {@code int magic, short format, namespace, long version, long savedAt,
+ * flags, segments, int crc32}, where the crc covers everything before it. Strings are an int
+ * length (-1 for null) followed by UTF-8 bytes, enums are one byte.
+ * <p>
+ * Changes are written by one background thread, coalesced per namespace. Each write goes to a
+ * temporary file that is synced and then atomically renamed over the previous one, so a crash
+ * leaves either the old or the new file. Files are read through a read-only memory mapping.
+ * File names are built from the namespace key, so only keys of letters, digits, '-' and '_' are
+ * persisted; any other key (it may come from an event) is never turned into a path.
+ */
+@Component
+@Slf4j
+@ConditionalOnProperty(name = "feature-flag.snapshot-file.enabled", havingValue = "true", matchIfMissing = false)
+public class FlagSnapshotFile implements FlagSnapshotStore.ChangeListener {
+
+    private static final int MAGIC = 0x46465331; // "FFS1"
+    private static final short FORMAT = 1;
+    private static final String FILE_SUFFIX = ".snapshot";
+    private static final String TEMP_SUFFIX = ".tmp";
+    private static final Pattern SAFE_NAMESPACE = Pattern.compile("[A-Za-z0-9_-]{1,128}");
+
+    private final FlagSnapshotStore snapshotStore;
+    private final Path directory;
+    private final NamespaceRefreshScheduler writeScheduler;
+
+    // Store version of the last snapshot written or restored per namespace
+    private final Map<String, Long> writtenVersions = new ConcurrentHashMap<>();
+
+    public FlagSnapshotFile(FlagSnapshotStore snapshotStore,
+                            @Value("${feature-flag.snapshot-file.directory:./data/flags}") String directory,
+                            @Value("${feature-flag.snapshot-file.write-debounce:500ms}") Duration writeDebounce,
+                            @Value("${feature-flag.snapshot-file.write-max-staleness:5s}") Duration writeMaxStaleness) {
+        this.snapshotStore = snapshotStore;
+        this.directory = Paths.get(directory);
+        this.writeScheduler = new NamespaceRefreshScheduler("flag-snapshot-writer", this::write,
+                writeDebounce, writeMaxStaleness, 1);
+        snapshotStore.addListener(this);
+    }
+
+    /**
+     * Publish the persisted snapshot of a namespace to the store
+     *
+     * @return the published snapshot, or null if there is no readable file for the namespace
+     */
+    public NamespaceSnapshot restore(String namespace) {
+        Path file = fileOf(namespace);
+        if (file == null || !Files.isRegularFile(file)) {
+            return null;
+        }
+        long startedAt = System.nanoTime();
+        NamespaceSnapshot persisted;
+        try {
+            persisted = read(file, namespace);
+        } catch (IOException | RuntimeException e) {
+            log.warn("Ignoring unreadable flag snapshot {}: {}", file, e.getMessage());
+            return null;
+        }
+        NamespaceSnapshot published = snapshotStore.replace(persisted);
+        writtenVersions.merge(namespace, published.version(), Math::max);
+        log.info("Restored namespace {} from {} ({} flags, saved at {}) in {} us", namespace, file,
+                published.flags().size(), persisted.loadedAt(), (System.nanoTime() - startedAt) / 1_000);
+        return published;
+    }
+
+    @Override
+    public void beforePublish(String namespace, long version, Set<String> changedFlags) {
+        // The write runs after the debounce, when this version is published
+        writeScheduler.requestRefresh(namespace);
+    }
+
+    /**
+     * Write every namespace that changed since its last write before shutting down
+     */
+    @PreDestroy
+    public void close() {
+        writeScheduler.shutdown();
+        for (String namespace : snapshotStore.getLoadedNamespaces()) {
+            write(namespace);
+        }
+    }
+
+    private synchronized void write(String namespace) {
+        NamespaceSnapshot snapshot = snapshotStore.get(namespace);
+        Long written = writtenVersions.get(namespace);
+        if (snapshot == null || written != null && written >= snapshot.version()) {
+            return;
+        }
+        Path file = fileOf(namespace);
+        if (file == null) {
+            return;
+        }
+        long startedAt = System.nanoTime();
+        Path temp = file.resolveSibling(file.getFileName() + TEMP_SUFFIX);
+        try {
+            Files.createDirectories(directory);
+            ByteBuffer content = ByteBuffer.wrap(encode(snapshot));
+            try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                    StandardOpenOption.TRUNCATE_EXISTING)) {
+                while (content.hasRemaining()) {
+                    channel.write(content);
+                }
+                channel.force(true);
+            }
+            Files.move(temp, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            syncDirectory();
+            writtenVersions.put(namespace, snapshot.version());
+            log.debug("Wrote flag snapshot {} version {} ({} bytes) in {} us", file, snapshot.version(),
+                    content.capacity(), (System.nanoTime() - startedAt) / 1_000);
+        } catch (IOException e) {
+            log.warn("Failed to write flag snapshot {}: {}", file, e.getMessage());
+        }
+    }
+
+    /**
+     * Make the rename itself durable; not every platform can open a directory, so failures are ignored
+     */
+    private void syncDirectory() {
+        try (FileChannel channel = FileChannel.open(directory, StandardOpenOption.READ)) {
+            channel.force(true);
+        } catch (IOException e) {
+            log.trace("Cannot sync directory {}: {}", directory, e.getMessage());
+        }
+    }
+
+    /**
+     * File of a namespace, or null if the namespace key is not safe to use in a file name
+     */
+    private Path fileOf(String namespace) {
+        if (namespace == null || !SAFE_NAMESPACE.matcher(namespace).matches()) {
+            log.warn("Not persisting flag snapshot of namespace '{}': unsafe key for a file name", namespace);
+            return null;
+        }
+        return directory.resolve(namespace + FILE_SUFFIX);
+    }
+
+    static byte[] encode(NamespaceSnapshot snapshot) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(4096);
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeInt(MAGIC);
+        out.writeShort(FORMAT);
+        writeString(out, snapshot.namespace());
+        out.writeLong(snapshot.version());
+        out.writeLong(System.currentTimeMillis());
+
+        out.writeInt(snapshot.flags().size());
+        for (NamespaceSnapshot.Flag flag : snapshot.flags().values()) {
+            writeString(out, flag.key());
+            writeString(out, flag.name());
+            out.writeByte(flag.type().ordinal());
+            out.writeBoolean(flag.enabled());
+            out.writeInt(flag.rules().size());
+            for (NamespaceSnapshot.Rule rule : flag.rules()) {
+                writeString(out, rule.id());
+                out.writeInt(rule.rank());
+                out.writeByte(rule.segmentOperator().ordinal());
+                writeStrings(out, rule.segmentKeys());
+            }
+            out.writeInt(flag.rollouts().size());
+            for (NamespaceSnapshot.Rollout rollout : flag.rollouts()) {
+                out.writeByte(rollout.type().ordinal());
+                out.writeInt(rollout.rank());
+                out.writeBoolean(rollout.value());
+                out.writeFloat(rollout.percentage());
+                out.writeByte(rollout.segmentOperator().ordinal());
+                writeStrings(out, rollout.segmentKeys());
+            }
+        }
+
+        out.writeInt(snapshot.segments().size());
+        for (NamespaceSnapshot.Segment segment : snapshot.segments().values()) {
+            writeString(out, segment.key());
+            out.writeByte(segment.matchType().ordinal());
+            out.writeInt(segment.constraints().size());
+            for (NamespaceSnapshot.Constraint constraint : segment.constraints()) {
+                writeString(out, constraint.id());
+                out.writeByte(constraint.type().ordinal());
+                writeString(out, constraint.property());
+                writeString(out, constraint.operator());
+                writeString(out, constraint.value());
+            }
+        }
+        out.flush();
+
+        CRC32 crc = new CRC32();
+        crc.update(bytes.toByteArray());
+        out.writeInt((int) crc.getValue());
+        return bytes.toByteArray();
+    }
+
+    static NamespaceSnapshot read(Path file, String namespace) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            return decode(buffer, namespace);
+        }
+    }
+
+    static NamespaceSnapshot decode(ByteBuffer buffer, String namespace) {
+        int end = buffer.limit() - Integer.BYTES;
+        if (end < Integer.BYTES + Short.BYTES || buffer.getInt(0) != MAGIC) {
+            throw new IllegalStateException("not a flag snapshot file");
+        }
+        CRC32 crc = new CRC32();
+        crc.update(buffer.duplicate().position(0).limit(end));
+        if ((int) crc.getValue() != buffer.getInt(end)) {
+            throw new IllegalStateException("checksum mismatch");
+        }
+        ByteBuffer in = buffer.duplicate().position(Integer.BYTES).limit(end);
+        short format = in.getShort();
+        if (format != FORMAT) {
+            throw new IllegalStateException("unsupported format " + format);
+        }
+        String storedNamespace = readString(in);
+        if (!namespace.equals(storedNamespace)) {
+            throw new IllegalStateException("file holds namespace " + storedNamespace);
+        }
+        long version = in.getLong();
+        Instant savedAt = Instant.ofEpochMilli(in.getLong());
+
+        int flagCount = in.getInt();
+        Map<String, NamespaceSnapshot.Flag> flags = new LinkedHashMap<>(flagCount * 2);
+        for (int f = 0; f < flagCount; f++) {
+            String key = readString(in);
+            String name = readString(in);
+            NamespaceSnapshot.FlagType type = NamespaceSnapshot.FlagType.values()[in.get()];
+            boolean enabled = in.get() != 0;
+            int ruleCount = in.getInt();
+            List<NamespaceSnapshot.Rule> rules = new ArrayList<>(ruleCount);
+            for (int r = 0; r < ruleCount; r++) {
+                rules.add(new NamespaceSnapshot.Rule(readString(in), in.getInt(),
+                        NamespaceSnapshot.SegmentOperator.values()[in.get()], readStrings(in)));
+            }
+            int rolloutCount = in.getInt();
+            List<NamespaceSnapshot.Rollout> rollouts = new ArrayList<>(rolloutCount);
+            for (int r = 0; r < rolloutCount; r++) {
+                rollouts.add(new NamespaceSnapshot.Rollout(NamespaceSnapshot.RolloutType.values()[in.get()],
+                        in.getInt(), in.get() != 0, in.getFloat(),
+                        NamespaceSnapshot.SegmentOperator.values()[in.get()], readStrings(in)));
+            }
+            flags.put(key, new NamespaceSnapshot.Flag(key, name, type, enabled, rules, rollouts));
+        }
+
+        int segmentCount = in.getInt();
+        Map<String, NamespaceSnapshot.Segment> segments = new HashMap<>(segmentCount * 2);
+        for (int s = 0; s < segmentCount; s++) {
+            String key = readString(in);
+            NamespaceSnapshot.MatchType matchType = NamespaceSnapshot.MatchType.values()[in.get()];
+            int constraintCount = in.getInt();
+            List<NamespaceSnapshot.Constraint> constraints = new ArrayList<>(constraintCount);
+            for (int c = 0; c < constraintCount; c++) {
+                constraints.add(new NamespaceSnapshot.Constraint(readString(in),
+                        NamespaceSnapshot.ComparisonType.values()[in.get()],
+                        readString(in), readString(in), readString(in)));
+            }
+            segments.put(key, new NamespaceSnapshot.Segment(key, matchType, constraints));
+        }
+        return new NamespaceSnapshot(namespace, version, flags, segments,
+                SegmentDependencyIndex.build(flags.values(), segments.values()), savedAt);
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static void writeStrings(DataOutputStream out, List<String> values) throws IOException {
+        out.writeInt(values.size());
+        for (String value : values) {
+            writeString(out, value);
+        }
+    }
+
+    private static String readString(ByteBuffer in) {
+        int length = in.getInt();
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        in.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static List<String> readStrings(ByteBuffer in) {
+        int count = in.getInt();
+        List<String> values = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            values.add(readString(in));
+        }
+        return values;
+    }
+}
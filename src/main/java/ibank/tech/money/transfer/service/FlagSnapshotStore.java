@@ -0,0 +1,189 @@
+package ibank.tech.money.transfer.service;
+
+import ibank.tech.money.transfer.dto.NamespaceSnapshot;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.function.UnaryOperator;
+
+/**
+ * Holds the current immutable snapshot of every loaded namespace.
+ * Writers publish a complete new snapshot or a copy-on-write patch of the current one;
+ * readers get the current one without locking.
+ * <p>
+ * Every change gets a new version from one sequence. {@link ChangeListener}s are told which flags
+ * a change affects before the new snapshot becomes visible.
+ */
+@Component
+@Slf4j
+public class FlagSnapshotStore {
+
+    private final Map<String, NamespaceSnapshot> snapshots = new ConcurrentHashMap<>();
+    private final AtomicLong versionSequence = new AtomicLong();
+    private final List<ChangeListener> listeners = new CopyOnWriteArrayList<>();
+
+    /**
+     * Notified of every snapshot change before the changed snapshot is published
+     */
+    public interface ChangeListener {
+
+        /**
+         * @param changedFlags keys of the flags whose evaluation may change, or null for the whole namespace
+         */
+        void beforePublish(String namespace, long version, Set<String> changedFlags);
+    }
+
+    public void addListener(ChangeListener listener) {
+        listeners.add(listener);
+    }
+
+    /**
+     * Current snapshot of a namespace, or null if the namespace was never loaded
+     */
+    public NamespaceSnapshot get(String namespace) {
+        return snapshots.get(namespace);
+    }
+
+    public boolean isLoaded(String namespace) {
+        return snapshots.containsKey(namespace);
+    }
+
+    public Set<String> getLoadedNamespaces() {
+        return snapshots.keySet();
+    }
+
+    /**
+     * Publish a freshly fetched snapshot, replacing the previous one
+     */
+    public NamespaceSnapshot replace(NamespaceSnapshot snapshot) {
+        NamespaceSnapshot published = snapshot.withVersion(versionSequence.incrementAndGet());
+        notifyListeners(published.namespace(), published.version(), null);
+        snapshots.put(published.namespace(), published);
+        log.debug("Published snapshot version {} for namespace: {} ({} flags)",
+                published.version(), published.namespace(), published.flags().size());
+        return published;
+    }
+
+    /**
+     * Publish a freshly fetched snapshot only if the namespace is still at the version read before
+     * the fetch started (0 if it was not loaded), so a fetch that raced with an incremental update
+     * cannot overwrite the newer state with older data
+     *
+     * @return the published snapshot, or null if the namespace changed in the meantime
+     */
+    public NamespaceSnapshot replaceIfVersion(NamespaceSnapshot snapshot, long expectedVersion) {
+        NamespaceSnapshot[] published = new NamespaceSnapshot[1];
+        snapshots.compute(snapshot.namespace(), (key, current) -> {
+            long currentVersion = current != null ? current.version() : 0;
+            if (currentVersion != expectedVersion) {
+                return current;
+            }
+            published[0] = snapshot.withVersion(versionSequence.incrementAndGet());
+            notifyListeners(key, published[0].version(), null);
+            return published[0];
+        });
+        if (published[0] != null) {
+            log.debug("Published snapshot version {} for namespace: {} ({} flags)",
+                    published[0].version(), snapshot.namespace(), published[0].flags().size());
+        }
+        return published[0];
+    }
+
+    /**
+     * Replace one flag of a loaded namespace in place, merging in the segments it needs, provided the
+     * flag is still the one read before the new one was fetched ({@code expected}, null if absent).
+     * A flag patched in the meantime, e.g. by a toggle, may be newer than the fetched one.
+     *
+     * @return false if the namespace is not loaded or the flag changed in the meantime
+     */
+    public boolean putFlag(String namespace, NamespaceSnapshot.Flag flag,
+                           Map<String, NamespaceSnapshot.Segment> addedSegments, NamespaceSnapshot.Flag expected) {
+        return patch(namespace, snapshot -> snapshot.getFlag(flag.key()) != expected
+                ? null : snapshot.withFlag(flag, addedSegments), snapshot -> {
+            Set<String> changed = new HashSet<>();
+            changed.add(flag.key());
+            addedSegments.keySet().forEach(segmentKey -> changed.addAll(snapshot.dependencies().flagsUsing(segmentKey)));
+            return changed;
+        });
+    }
+
+    /**
+     * Flip the enabled state of one flag without touching the rest of the namespace.
+     *
+     * @return false if the namespace is not loaded or does not contain the flag
+     */
+    public boolean setFlagEnabled(String namespace, String flagKey, boolean enabled) {
+        return patch(namespace, snapshot -> {
+            NamespaceSnapshot.Flag flag = snapshot.getFlag(flagKey);
+            return flag == null ? null : snapshot.withFlag(flag.withEnabled(enabled), Map.of());
+        }, snapshot -> Set.of(flagKey));
+    }
+
+    /**
+     * Remove one flag from a loaded namespace.
+     *
+     * @return false if the namespace is not loaded
+     */
+    public boolean removeFlag(String namespace, String flagKey) {
+        return patch(namespace, snapshot -> snapshot.withoutFlag(flagKey), snapshot -> Set.of(flagKey));
+    }
+
+    /**
+     * Add or replace one segment of a loaded namespace.
+     *
+     * @return false if the namespace is not loaded
+     */
+    public boolean putSegment(String namespace, NamespaceSnapshot.Segment segment) {
+        return patch(namespace, snapshot -> snapshot.withSegment(segment),
+                snapshot -> snapshot.dependencies().flagsUsing(segment.key()));
+    }
+
+    /**
+     * Remove one segment from a loaded namespace.
+     *
+     * @return false if the namespace is not loaded
+     */
+    public boolean removeSegment(String namespace, String segmentKey) {
+        return patch(namespace, snapshot -> snapshot.withoutSegment(segmentKey),
+                snapshot -> snapshot.dependencies().flagsUsing(segmentKey));
+    }
+
+    /**
+     * Apply a copy-on-write change to the current snapshot of a namespace.
+     * The change function returns null to signal that it cannot be applied;
+     * the affected function names the flags the change can influence, given the current snapshot.
+     */
+    private boolean patch(String namespace, UnaryOperator<NamespaceSnapshot> change,
+                          Function<NamespaceSnapshot, Set<String>> affected) {
+        boolean[] applied = new boolean[1];
+        snapshots.computeIfPresent(namespace, (key, current) -> {
+            NamespaceSnapshot updated = change.apply(current);
+            if (updated == null) {
+                return current;
+            }
+            applied[0] = true;
+            long version = versionSequence.incrementAndGet();
+            notifyListeners(namespace, version, affected.apply(current));
+            return updated.withVersion(version);
+        });
+        return applied[0];
+    }
+
+    private void notifyListeners(String namespace, long version, Set<String> changedFlags) {
+        for (ChangeListener listener : listeners) {
+            try {
+                listener.beforePublish(namespace, version, changedFlags);
+            } catch (RuntimeException e) {
+                log.error("Snapshot change listener failed for namespace: {}", namespace, e);
+            }
+        }
+    }
+}
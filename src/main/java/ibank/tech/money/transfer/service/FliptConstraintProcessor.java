@@ -21,7 +21,7 @@ public class FliptConstraintProcessor {
         String constraintId = event.getConstraintId();
         String segmentKey = event.getSegmentKey();
         
-        log.info("Processing constraint update - action: {}, namespace: {}, segment: {}, constraint: {}", 
+        log.debug("Processing constraint update - action: {}, namespace: {}, segment: {}, constraint: {}", 
                 action, namespace, segmentKey, constraintId);
         
         if (action == null) {
@@ -47,26 +47,37 @@ public class FliptConstraintProcessor {
     }
 
     private void handleConstraintCreated(String namespace, String segmentKey, String constraintId) {
-        log.info("Processing constraint created: namespace={}, segment={}, constraint={}",
+        log.debug("Processing constraint created: namespace={}, segment={}, constraint={}",
                 namespace, segmentKey, constraintId);
-        refreshConstraintCache(namespace);
+        reloadOwningSegment(namespace, segmentKey, constraintId);
     }
 
     private void handleConstraintUpdated(String namespace, String segmentKey, String constraintId) {
-        log.info("Processing constraint updated: namespace={}, segment={}, constraint={}",
+        log.debug("Processing constraint updated: namespace={}, segment={}, constraint={}",
                 namespace, segmentKey, constraintId);
-        refreshConstraintCache(namespace);
+        reloadOwningSegment(namespace, segmentKey, constraintId);
     }
 
     private void handleConstraintDeleted(String namespace, String segmentKey, String constraintId) {
-        log.info("Processing constraint deleted: namespace={}, segment={}, constraint={}",
+        log.debug("Processing constraint deleted: namespace={}, segment={}, constraint={}",
                 namespace, segmentKey, constraintId);
-        refreshConstraintCache(namespace);
+        reloadOwningSegment(namespace, segmentKey, constraintId);
+    }
+
+    private void reloadOwningSegment(String namespace, String segmentKey, String constraintId) {
+        // Only the segment that owns the constraint changes; the flags using it are re-evaluated
+        String owningSegment = multiNamespaceFeatureFlagService.resolveConstraintSegment(namespace, segmentKey, constraintId);
+        if (owningSegment == null) {
+            log.warn("Cannot resolve segment for constraint {} in namespace: {}", constraintId, namespace);
+            refreshConstraintCache(namespace);
+            return;
+        }
+        multiNamespaceFeatureFlagService.reloadSegment(namespace, owningSegment);
     }
 
     private void refreshConstraintCache(String namespace) {
         // Constraints affect segment evaluations, which affect flag evaluations, so refresh flag cache
-        log.info("Refreshing flag cache due to constraint change in namespace: {}", namespace);
-        multiNamespaceFeatureFlagService.refreshFlagCache(namespace);
+        log.debug("Refreshing flag cache due to constraint change in namespace: {}", namespace);
+        multiNamespaceFeatureFlagService.requestRefresh(namespace);
     }
 }
@@ -0,0 +1,170 @@
+package ibank.tech.money.transfer.service;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import ibank.tech.money.transfer.dto.FliptGenericUpdateEvent;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+
+/**
+ * Streaming decoder for Flipt update messages.
+ * <p>
+ * Reads the message in a single pass with Jackson's {@link JsonParser}, fills the typed fields of
+ * {@link FliptGenericUpdateEvent} and keeps the data object as a raw JSON slice of the message.
+ * Low-cardinality values (type, action, namespace) are interned, so repeated events reuse
+ * the same String instances.
+ */
+@Component
+public class FliptEventDecoder {
+
+    private final JsonFactory jsonFactory;
+    private final StringInterner interner = new StringInterner(1024);
+
+    public FliptEventDecoder(ObjectMapper objectMapper) {
+        this.jsonFactory = objectMapper.getFactory();
+    }
+
+    public FliptGenericUpdateEvent decode(String message) throws IOException {
+        try (JsonParser parser = jsonFactory.createParser(message)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                throw new JsonParseException(parser, "Flipt event must be a JSON object");
+            }
+            FliptGenericUpdateEvent event = new FliptGenericUpdateEvent();
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.currentName();
+                JsonToken token = parser.nextToken();
+                switch (field) {
+                    case "type":
+                        event.setType(internedText(parser, token));
+                        break;
+                    case "source":
+                        event.setSource(internedText(parser, token));
+                        break;
+                    case "timestamp":
+                        event.setTimestamp(text(parser, token));
+                        break;
+                    case "sequence":
+                        event.setSequence(token == JsonToken.VALUE_NUMBER_INT ? parser.getLongValue() : 0);
+                        parser.skipChildren();
+                        break;
+                    case "data":
+                        if (token == JsonToken.START_OBJECT) {
+                            decodeData(parser, message, event);
+                        } else {
+                            parser.skipChildren();
+                        }
+                        break;
+                    default:
+                        parser.skipChildren();
+                }
+            }
+            return event;
+        }
+    }
+
+    private void decodeData(JsonParser parser, String message, FliptGenericUpdateEvent event) throws IOException {
+        long start = parser.currentTokenLocation().getCharOffset();
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.currentName();
+            JsonToken token = parser.nextToken();
+            switch (field) {
+                case "action":
+                    event.setAction(internedText(parser, token));
+                    break;
+                case "namespace":
+                    event.setNamespace(internedText(parser, token));
+                    break;
+                case "flag_key":
+                    event.setFlagKey(text(parser, token));
+                    break;
+                case "segment_key":
+                    event.setSegmentKey(text(parser, token));
+                    break;
+                case "constraint_id":
+                    event.setConstraintId(text(parser, token));
+                    break;
+                case "enabled":
+                    event.setEnabled(token == JsonToken.VALUE_TRUE ? Boolean.TRUE
+                            : token == JsonToken.VALUE_FALSE ? Boolean.FALSE : null);
+                    break;
+                default:
+                    // Everything else stays in the raw data slice
+                    parser.skipChildren();
+            }
+        }
+        long end = parser.currentTokenLocation().getCharOffset() + 1;
+        event.setRawData(message.substring((int) start, (int) end));
+    }
+
+    private static String text(JsonParser parser, JsonToken token) throws IOException {
+        if (token == JsonToken.VALUE_NULL) {
+            return null;
+        }
+        if (token.isStructStart()) {
+            parser.skipChildren();
+            return null;
+        }
+        return parser.getText();
+    }
+
+    private String internedText(JsonParser parser, JsonToken token) throws IOException {
+        if (token != JsonToken.VALUE_STRING) {
+            return text(parser, token);
+        }
+        return interner.intern(parser.getTextCharacters(), parser.getTextOffset(), parser.getTextLength());
+    }
+
+    /**
+     * Fixed-size intern table looked up directly from the parser's char buffer,
+     * so a hit does not allocate. When the table is full new values are returned un-interned.
+     */
+    static final class StringInterner {
+
+        private final String[] table;
+        private final int mask;
+
+        StringInterner(int capacity) {
+            int size = Integer.highestOneBit(Math.max(16, capacity - 1) << 1);
+            this.table = new String[size];
+            this.mask = size - 1;
+        }
+
+        String intern(char[] chars, int offset, int length) {
+            int hash = 0;
+            for (int i = 0; i < length; i++) {
+                hash = 31 * hash + chars[offset + i];
+            }
+            int index = (hash ^ (hash >>> 16)) & mask;
+            for (int probe = 0; probe < 8; probe++) {
+                String candidate = table[index];
+                if (candidate == null) {
+                    String value = new String(chars, offset, length);
+                    // Benign race: two threads may both insert; either value is a correct intern
+                    table[index] = value;
+                    return value;
+                }
+                if (matches(candidate, chars, offset, length)) {
+                    return candidate;
+                }
+                index = (index + 1) & mask;
+            }
+            return new String(chars, offset, length);
+        }
+
+        private static boolean matches(String candidate, char[] chars, int offset, int length) {
+            if (candidate.length() != length) {
+                return false;
+            }
+            for (int i = 0; i < length; i++) {
+                if (candidate.charAt(i) != chars[offset + i]) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+}
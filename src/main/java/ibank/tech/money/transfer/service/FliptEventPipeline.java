@@ -0,0 +1,248 @@
+package ibank.tech.money.transfer.service;
+
+import ibank.tech.money.transfer.dto.FliptGenericUpdateEvent;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Asynchronous event pipeline between the Redis listener and the processors.
+ * <p>
+ * Every namespace gets its own bounded queue. A namespace queue is drained by at most one
+ * worker at a time, so events of one namespace are processed in arrival order while
+ * different namespaces are processed in parallel on the worker pool.
+ * <p>
+ * Events are split over two lanes with separate queues and workers, so a kill switch never waits
+ * behind a bulk import. The express lane takes flag enable/disable events and every event of the
+ * namespaces in {@code feature-flag.pipeline.express-namespaces} (none by default); everything else
+ * goes to the bulk lane. Order is kept within a lane. A toggle can overtake an earlier bulk event of
+ * the same namespace. That is safe because a toggle only patches the enabled state, and the bulk
+ * updates it can overtake do not publish data fetched before it: a flag reload only patches the flag
+ * if it is unchanged since the reload started, and a full refresh only publishes if the namespace
+ * is unchanged since its fetch started; otherwise they fetch again.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+@ConditionalOnProperty(name = "redis.pubsub.enabled", havingValue = "true", matchIfMissing = false)
+public class FliptEventPipeline {
+
+    static final String EXPRESS_LANE = "express";
+    static final String BULK_LANE = "bulk";
+
+    private final FliptEventRouter eventRouter;
+
+    @Value("${feature-flag.pipeline.workers:4}")
+    private int workers;
+
+    @Value("${feature-flag.pipeline.queue-capacity:1024}")
+    private int queueCapacity;
+
+    @Value("${feature-flag.pipeline.offer-timeout:50ms}")
+    private Duration offerTimeout;
+
+    @Value("${feature-flag.pipeline.drain-batch:64}")
+    private int drainBatch;
+
+    @Value("${feature-flag.pipeline.express-workers:1}")
+    private int expressWorkers;
+
+    @Value("${feature-flag.pipeline.express-namespaces:}")
+    private List<String> configuredExpressNamespaces;
+
+    private Set<String> expressNamespaces;
+    private Lane expressLane;
+    private Lane bulkLane;
+
+    private final AtomicLong submitted = new AtomicLong();
+    private final AtomicLong processed = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private final AtomicLong backpressured = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+
+    @PostConstruct
+    public void start() {
+        expressNamespaces = new HashSet<>(configuredExpressNamespaces != null ? configuredExpressNamespaces : List.of());
+        expressNamespaces.removeIf(String::isBlank);
+        expressLane = new Lane(EXPRESS_LANE, Math.max(1, expressWorkers), "flipt-event-express-");
+        bulkLane = new Lane(BULK_LANE, workers, "flipt-event-");
+        log.info("Flipt event pipeline started with {} bulk and {} express workers, queue capacity {} per namespace, "
+                + "express namespaces {}", workers, Math.max(1, expressWorkers), queueCapacity, expressNamespaces);
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        expressLane.workerPool.shutdown();
+        bulkLane.workerPool.shutdown();
+        for (Lane lane : List.of(expressLane, bulkLane)) {
+            if (!lane.workerPool.awaitTermination(5, TimeUnit.SECONDS)) {
+                lane.workerPool.shutdownNow();
+            }
+        }
+    }
+
+    /**
+     * Enqueue an event for its namespace in the lane it belongs to.
+     * When the namespace queue is full the caller waits up to the offer timeout (backpressure);
+     * if the queue is still full the event is dropped and counted.
+     *
+     * @return false if the event was dropped
+     */
+    public boolean submit(FliptGenericUpdateEvent event) {
+        String namespace = Objects.requireNonNullElse(event.getNamespace(), "default");
+        Lane lane = isExpress(event, namespace) ? expressLane : bulkLane;
+        event.setLane(lane.name);
+        NamespaceQueue queue = lane.queues.computeIfAbsent(namespace, key -> new NamespaceQueue(key, lane));
+
+        if (!queue.events.offer(event)) {
+            backpressured.incrementAndGet();
+            boolean accepted = false;
+            try {
+                accepted = queue.events.offer(event, offerTimeout.toNanos(), TimeUnit.NANOSECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            if (!accepted) {
+                dropped.incrementAndGet();
+                log.warn("Event queue full for namespace: {} ({} lane). Dropped {} event (total dropped: {})",
+                        namespace, lane.name, event.getType(), dropped.get());
+                return false;
+            }
+        }
+        submitted.incrementAndGet();
+        lane.submitted.incrementAndGet();
+        queue.scheduleIfIdle();
+        return true;
+    }
+
+    /**
+     * Pipeline counters, and events submitted and current queue depth per namespace for each lane
+     */
+    public Map<String, Object> getStats() {
+        return Map.of(
+                "submitted", submitted.get(),
+                "processed", processed.get(),
+                "failed", failed.get(),
+                "backpressured", backpressured.get(),
+                "dropped", dropped.get(),
+                EXPRESS_LANE, expressLane.getStats(),
+                BULK_LANE, bulkLane.getStats());
+    }
+
+    private boolean isExpress(FliptGenericUpdateEvent event, String namespace) {
+        if (expressNamespaces.contains(namespace)) {
+            return true;
+        }
+        String action = event.getAction();
+        return event.getEntityType() == FliptGenericUpdateEvent.EntityType.FLAG
+                && ("enabled".equalsIgnoreCase(action) || "disabled".equalsIgnoreCase(action));
+    }
+
+    /**
+     * Run the event's completion callback; a failed event counts as processed, it would fail again
+     */
+    private void complete(FliptGenericUpdateEvent event) {
+        Runnable onProcessed = event.getOnProcessed();
+        if (onProcessed == null) {
+            return;
+        }
+        try {
+            onProcessed.run();
+        } catch (RuntimeException e) {
+            log.warn("Completion callback of {} event failed", event.getType(), e);
+        }
+    }
+
+    private static final class Lane {
+        private final String name;
+        private final ExecutorService workerPool;
+        private final Map<String, NamespaceQueue> queues = new ConcurrentHashMap<>();
+        private final AtomicLong submitted = new AtomicLong();
+
+        private Lane(String name, int workers, String threadPrefix) {
+            this.name = name;
+            AtomicLong threadCounter = new AtomicLong();
+            this.workerPool = Executors.newFixedThreadPool(workers, runnable -> {
+                Thread thread = new Thread(runnable, threadPrefix + threadCounter.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+
+        private Map<String, Object> getStats() {
+            Map<String, Integer> depths = new ConcurrentHashMap<>();
+            queues.forEach((namespace, queue) -> depths.put(namespace, queue.events.size()));
+            return Map.of("submitted", submitted.get(), "queueDepth", depths);
+        }
+    }
+
+    private final class NamespaceQueue {
+        private final String namespace;
+        private final Lane lane;
+        private final BlockingQueue<FliptGenericUpdateEvent> events;
+        private final AtomicBoolean scheduled = new AtomicBoolean();
+
+        private NamespaceQueue(String namespace, Lane lane) {
+            this.namespace = namespace;
+            this.lane = lane;
+            this.events = new ArrayBlockingQueue<>(queueCapacity);
+        }
+
+        private void scheduleIfIdle() {
+            if (scheduled.compareAndSet(false, true)) {
+                try {
+                    lane.workerPool.execute(this::drain);
+                } catch (RejectedExecutionException e) {
+                    scheduled.set(false);
+                    log.warn("Event pipeline is shut down, {} events left for namespace: {} ({} lane)",
+                            events.size(), namespace, lane.name);
+                }
+            }
+        }
+
+        private void drain() {
+            try {
+                // Bounded batch so one busy namespace cannot starve the others
+                for (int i = 0; i < drainBatch; i++) {
+                    FliptGenericUpdateEvent event = events.poll();
+                    if (event == null) {
+                        break;
+                    }
+                    try {
+                        eventRouter.route(event);
+                        processed.incrementAndGet();
+                    } catch (Exception e) {
+                        failed.incrementAndGet();
+                        log.error("Error processing {} event for namespace: {}", event.getType(), namespace, e);
+                    }
+                    complete(event);
+                }
+            } finally {
+                scheduled.set(false);
+                if (!events.isEmpty()) {
+                    scheduleIfIdle();
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package ibank.tech.money.transfer.service;
+
+import ibank.tech.money.transfer.dto.FliptGenericUpdateEvent;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+/**
+ * Routes a parsed Flipt event to its entity processor and broadcasts it to WebSocket clients
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+@ConditionalOnProperty(name = "redis.pubsub.enabled", havingValue = "true", matchIfMissing = false)
+public class FliptEventRouter {
+
+    private final FliptFlagProcessor flagProcessor;
+    private final FliptSegmentProcessor segmentProcessor;
+    private final FliptConstraintProcessor constraintProcessor;
+    private final WebSocketBroadcastService webSocketBroadcastService;
+    private final FliptUpdateMetrics updateMetrics;
+
+    public void route(FliptGenericUpdateEvent event) {
+        long startedAt = System.nanoTime();
+        long queueNanos = updateMetrics.recordQueued(event, startedAt);
+
+        // Route to appropriate processor based on entity type
+        FliptGenericUpdateEvent.EntityType entityType = event.getEntityType();
+        log.debug("Processing {} update - type: {}, action: {}, namespace: {}",
+                entityType, event.getType(), event.getAction(), event.getNamespace());
+
+        switch (entityType) {
+            case FLAG:
+                flagProcessor.processEvent(event);
+                break;
+            case SEGMENT:
+                segmentProcessor.processEvent(event);
+                break;
+            case CONSTRAINT:
+                constraintProcessor.processEvent(event);
+                break;
+            default:
+                log.warn("Unknown entity type: {}", event.getType());
+        }
+        long processedAt = System.nanoTime();
+        updateMetrics.recordProcessed(event, processedAt - startedAt);
+        updateMetrics.recordApplied(event, processedAt);
+
+        // Broadcast flag update to WebSocket clients
+        try {
+            webSocketBroadcastService.broadcastUpdate(event);
+        } catch (Exception e) {
+            log.error("Failed to broadcast flag update via WebSocket", e);
+        }
+        long broadcastNanos = System.nanoTime() - processedAt;
+        updateMetrics.recordBroadcast(broadcastNanos);
+        updateMetrics.recordDelivered(event, queueNanos, processedAt - startedAt, broadcastNanos);
+    }
+}
@@ -22,7 +22,7 @@ public class FliptFlagProcessor {
         String flagKey = event.getFlagKey();
         Boolean enabled = event.getEnabled();
         
-        log.info("Processing flag update - action: {}, namespace: {}, flag: {}, enabled: {}", 
+        log.debug("Processing flag update - action: {}, namespace: {}, flag: {}, enabled: {}", 
                 action, namespace, flagKey, enabled);
         
         if (action == null) {
@@ -54,31 +54,31 @@ public class FliptFlagProcessor {
     }
 
     private void handleFlagCreated(String namespace, String flagKey, Boolean enabled) {
-        log.info("Processing flag created: namespace={}, flag={}, enabled={}", namespace, flagKey, enabled);
-        refreshFlagCache(namespace);
+        log.debug("Processing flag created: namespace={}, flag={}, enabled={}", namespace, flagKey, enabled);
+        multiNamespaceFeatureFlagService.reloadFlag(namespace, flagKey);
     }
 
     private void handleFlagUpdated(String namespace, String flagKey, Boolean enabled) {
-        log.info("Processing flag updated: namespace={}, flag={}, enabled={}", namespace, flagKey, enabled);
-        refreshFlagCache(namespace);
+        log.debug("Processing flag updated: namespace={}, flag={}, enabled={}", namespace, flagKey, enabled);
+        multiNamespaceFeatureFlagService.reloadFlag(namespace, flagKey);
     }
 
     private void handleFlagDeleted(String namespace, String flagKey) {
-        log.info("Processing flag deleted: namespace={}, flag={}", namespace, flagKey);
-        refreshFlagCache(namespace);
+        log.debug("Processing flag deleted: namespace={}, flag={}", namespace, flagKey);
+        multiNamespaceFeatureFlagService.removeFlag(namespace, flagKey);
     }
 
     private void handleFlagEnabled(String namespace, String flagKey) {
-        log.info("Processing flag enabled: namespace={}, flag={}", namespace, flagKey);
-        refreshFlagCache(namespace);
+        log.debug("Processing flag enabled: namespace={}, flag={}", namespace, flagKey);
+        multiNamespaceFeatureFlagService.applyFlagToggle(namespace, flagKey, true);
     }
 
     private void handleFlagDisabled(String namespace, String flagKey) {
-        log.info("Processing flag disabled: namespace={}, flag={}", namespace, flagKey);
-        refreshFlagCache(namespace);
+        log.debug("Processing flag disabled: namespace={}, flag={}", namespace, flagKey);
+        multiNamespaceFeatureFlagService.applyFlagToggle(namespace, flagKey, false);
     }
 
     private void refreshFlagCache(String namespace) {
-        multiNamespaceFeatureFlagService.refreshFlagCache(namespace);
+        multiNamespaceFeatureFlagService.requestRefresh(namespace);
     }
 }
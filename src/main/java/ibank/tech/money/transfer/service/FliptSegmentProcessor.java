@@ -20,7 +20,7 @@ public class FliptSegmentProcessor {
         String namespace = event.getNamespace();
         String segmentKey = event.getSegmentKey();
         
-        log.info("Processing segment update - action: {}, namespace: {}, segment: {}", 
+        log.debug("Processing segment update - action: {}, namespace: {}, segment: {}", 
                 action, namespace, segmentKey);
         
         if (action == null) {
@@ -46,23 +46,24 @@ public class FliptSegmentProcessor {
     }
 
     private void handleSegmentCreated(String namespace, String segmentKey) {
-        log.info("Processing segment created: namespace={}, segment={}", namespace, segmentKey);
-        refreshSegmentCache(namespace);
+        log.debug("Processing segment created: namespace={}, segment={}", namespace, segmentKey);
+        // A new segment is not referenced by any flag yet; it is fetched when a flag starts using it
+        multiNamespaceFeatureFlagService.reloadSegment(namespace, segmentKey);
     }
 
     private void handleSegmentUpdated(String namespace, String segmentKey) {
-        log.info("Processing segment updated: namespace={}, segment={}", namespace, segmentKey);
-        refreshSegmentCache(namespace);
+        log.debug("Processing segment updated: namespace={}, segment={}", namespace, segmentKey);
+        multiNamespaceFeatureFlagService.reloadSegment(namespace, segmentKey);
     }
 
     private void handleSegmentDeleted(String namespace, String segmentKey) {
-        log.info("Processing segment deleted: namespace={}, segment={}", namespace, segmentKey);
-        refreshSegmentCache(namespace);
+        log.debug("Processing segment deleted: namespace={}, segment={}", namespace, segmentKey);
+        multiNamespaceFeatureFlagService.removeSegment(namespace, segmentKey);
     }
 
     private void refreshSegmentCache(String namespace) {
         // Segments affect flag evaluations, so refresh flag cache
-        log.info("Refreshing flag cache due to segment change in namespace: {}", namespace);
-        multiNamespaceFeatureFlagService.refreshFlagCache(namespace);
+        log.debug("Refreshing flag cache due to segment change in namespace: {}", namespace);
+        multiNamespaceFeatureFlagService.requestRefresh(namespace);
     }
 }
@@ -0,0 +1,158 @@
+package ibank.tech.money.transfer.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import ibank.tech.money.transfer.dto.FliptApiResources;
+import ibank.tech.money.transfer.dto.FliptEvaluationSnapshot;
+import ibank.tech.money.transfer.dto.NamespaceSnapshot;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.http.client.ClientHttpRequestFactoryBuilder;
+import org.springframework.boot.http.client.ClientHttpRequestFactorySettings;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.RestClient;
+
+import java.io.IOException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.HexFormat;
+
+/**
+ * HTTP client for the Flipt evaluation snapshot API.
+ * Fetches a whole namespace in one call, or single flags and segments for incremental updates.
+ * Whole-namespace fetches can be conditional, see {@link #fetchNamespaceIfChanged}.
+ * <p>
+ * Requests have a connect and a read timeout, the read timeout by default the warm-up timeout, so a
+ * Flipt that accepts connections but never answers fails the fetch instead of holding the warm-up
+ * or refresh thread indefinitely.
+ */
+@Component
+@Slf4j
+public class FliptSnapshotClient {
+
+    private static final String NAMESPACE_SNAPSHOT_URI = "/internal/v1/evaluation/snapshot/namespace/{namespace}";
+
+    private final RestClient restClient;
+    private final ObjectMapper objectMapper;
+
+    public FliptSnapshotClient(RestClient.Builder restClientBuilder,
+                               ObjectMapper objectMapper,
+                               @Value("${feature-flag.flipt-url:http://localhost:8080}") String fliptUrl,
+                               @Value("${feature-flag.snapshot-client.connect-timeout:2s}") Duration connectTimeout,
+                               @Value("${feature-flag.snapshot-client.read-timeout:${feature-flag.warm-up.timeout:5s}}")
+                               Duration readTimeout) {
+        this.restClient = restClientBuilder
+                .baseUrl(fliptUrl)
+                .requestFactory(ClientHttpRequestFactoryBuilder.detect().build(ClientHttpRequestFactorySettings.defaults()
+                        .withConnectTimeout(connectTimeout)
+                        .withReadTimeout(readTimeout)))
+                .build();
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * Outcome of {@link #fetchNamespaceIfChanged}: the new snapshot, or null if the content is
+     * unchanged, and the validators to pass to the next fetch
+     */
+    public record ConditionalFetch(NamespaceSnapshot snapshot, String etag, String contentHash) {
+
+        public boolean unchanged() {
+            return snapshot == null;
+        }
+    }
+
+    /**
+     * Fetch the evaluation snapshot of a namespace using the namespace token
+     */
+    public NamespaceSnapshot fetchNamespace(String namespace, String token) {
+        return fetchNamespaceIfChanged(namespace, token, null, null).snapshot();
+    }
+
+    /**
+     * Fetch the evaluation snapshot of a namespace unless it is unchanged since the fetch that
+     * returned the given validators (both may be null).
+     * <p>
+     * The ETag is sent as If-None-Match, so a Flipt that supports it answers 304 without a body.
+     * Otherwise the body is hashed before it is parsed, and an unchanged body is not parsed at all.
+     */
+    public ConditionalFetch fetchNamespaceIfChanged(String namespace, String token, String etag, String contentHash) {
+        ResponseEntity<byte[]> response = restClient.get()
+                .uri(NAMESPACE_SNAPSHOT_URI, namespace)
+                .header(HttpHeaders.AUTHORIZATION, "Bearer " + token)
+                .headers(headers -> {
+                    if (etag != null) {
+                        headers.setIfNoneMatch(etag);
+                    }
+                })
+                .retrieve()
+                .toEntity(byte[].class);
+        if (response.getStatusCode().isSameCodeAs(HttpStatus.NOT_MODIFIED)) {
+            log.debug("Snapshot of namespace {} not modified (ETag {})", namespace, etag);
+            return new ConditionalFetch(null, etag, contentHash);
+        }
+
+        byte[] body = response.getBody() != null ? response.getBody() : new byte[0];
+        String newEtag = response.getHeaders().getETag();
+        String newHash = sha256(body);
+        if (newHash.equals(contentHash)) {
+            log.debug("Snapshot of namespace {} unchanged (content hash {})", namespace, newHash);
+            return new ConditionalFetch(null, newEtag, newHash);
+        }
+
+        FliptEvaluationSnapshot snapshot;
+        try {
+            snapshot = objectMapper.readValue(body, FliptEvaluationSnapshot.class);
+        } catch (IOException e) {
+            throw new IllegalStateException("Invalid snapshot JSON for namespace " + namespace, e);
+        }
+        NamespaceSnapshot result = NamespaceSnapshot.fromFlipt(namespace, snapshot);
+        log.debug("Fetched snapshot for namespace: {} ({} flags, {} segments, ETag {})",
+                namespace, result.flags().size(), result.segments().size(), newEtag);
+        return new ConditionalFetch(result, newEtag, newHash);
+    }
+
+    /**
+     * Fetch a single flag with its rules and rollouts.
+     * Referenced segments are returned by key only; see {@link #fetchSegment}.
+     */
+    public NamespaceSnapshot.Flag fetchFlag(String namespace, String flagKey, String token) {
+        FliptApiResources.Flag flag = get(token, "/api/v1/namespaces/{namespace}/flags/{flagKey}",
+                FliptApiResources.Flag.class, namespace, flagKey);
+        FliptApiResources.RuleList rules = get(token, "/api/v1/namespaces/{namespace}/flags/{flagKey}/rules",
+                FliptApiResources.RuleList.class, namespace, flagKey);
+        FliptApiResources.RolloutList rollouts = get(token, "/api/v1/namespaces/{namespace}/flags/{flagKey}/rollouts",
+                FliptApiResources.RolloutList.class, namespace, flagKey);
+
+        return NamespaceSnapshot.Flag.fromApi(flag,
+                rules != null ? rules.getRules() : null,
+                rollouts != null ? rollouts.getRollouts() : null);
+    }
+
+    /**
+     * Fetch a single segment with its constraints
+     */
+    public NamespaceSnapshot.Segment fetchSegment(String namespace, String segmentKey, String token) {
+        FliptEvaluationSnapshot.Segment segment = get(token, "/api/v1/namespaces/{namespace}/segments/{segmentKey}",
+                FliptEvaluationSnapshot.Segment.class, namespace, segmentKey);
+        return NamespaceSnapshot.Segment.fromFlipt(segment);
+    }
+
+    private static String sha256(byte[] content) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(content));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    private <T> T get(String token, String uri, Class<T> type, Object... uriVariables) {
+        return restClient.get()
+                .uri(uri, uriVariables)
+                .header(HttpHeaders.AUTHORIZATION, "Bearer " + token)
+                .retrieve()
+                .body(type);
+    }
+}
@@ -0,0 +1,295 @@
+package ibank.tech.money.transfer.service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.NestedExceptionUtils;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.domain.Range;
+import org.springframework.data.redis.connection.stream.Consumer;
+import org.springframework.data.redis.connection.stream.MapRecord;
+import org.springframework.data.redis.connection.stream.PendingMessage;
+import org.springframework.data.redis.connection.stream.PendingMessages;
+import org.springframework.data.redis.connection.stream.ReadOffset;
+import org.springframework.data.redis.connection.stream.RecordId;
+import org.springframework.data.redis.connection.stream.StreamOffset;
+import org.springframework.data.redis.connection.stream.StreamReadOptions;
+import org.springframework.data.redis.core.StreamOperations;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Redis Streams ingestion of Flipt update events, the alternative to pub/sub
+ * ({@code redis.ingestion.mode=streams}).
+ * <p>
+ * Reads the streams in {@code redis.streams.keys} through a consumer group with
+ * XREADGROUP COUNT n, so a burst arrives in a few round trips and events added while the pod was
+ * down are read when it is back. An entry is acknowledged once the pipeline has processed it;
+ * acknowledgements are collected and sent in one XACK per stream before the next read. An entry the
+ * pipeline drops is acknowledged as well; its namespace is resynced from Flipt instead.
+ * <p>
+ * On startup the consumer first re-reads its own pending entries (delivered before a crash, never
+ * acknowledged) and then continues after the group's last delivered id. Entries that any consumer of
+ * the group has left pending for longer than {@code claim-min-idle} are claimed periodically.
+ * Every pod keeps its own flag snapshot and needs every event, so every pod uses its own group,
+ * {@code money-transfer-<consumer-id>}. {@code redis.streams.consumer-id} must be set to an id that
+ * is stable across restarts of the pod, such as a StatefulSet pod name; startup fails without it.
+ * A host name that changes on every restart would create a new group each time, and since a new
+ * group starts at the end of the streams (the warm-up loads the current state), the events
+ * published while the pod was down would be lost and the old groups left behind.
+ */
+@Component
+@Slf4j
+@ConditionalOnProperty(name = "redis.pubsub.enabled", havingValue = "true", matchIfMissing = false)
+@ConditionalOnExpression("'${redis.ingestion.mode:pubsub}' == 'streams'")
+public class FliptStreamConsumer {
+
+    static final String GROUP_PREFIX = "money-transfer-";
+
+    private final StreamOperations<String, Object, Object> streamOperations;
+    private final FliptUnifiedUpdateHandler updateHandler;
+    private final List<String> streamKeys;
+    private final String group;
+    private final Consumer consumer;
+    private final String payloadField;
+    private final int batchSize;
+    private final Duration blockTimeout;
+    private final Duration claimMinIdle;
+    private final Duration claimInterval;
+
+    private final Map<String, Queue<RecordId>> pendingAcks = new ConcurrentHashMap<>();
+    private final Map<String, String> lastIds = new ConcurrentHashMap<>();
+    private final AtomicLong reads = new AtomicLong();
+    private final AtomicLong received = new AtomicLong();
+    private final AtomicLong acknowledged = new AtomicLong();
+    private final AtomicLong claimed = new AtomicLong();
+    private final AtomicLong failures = new AtomicLong();
+
+    private volatile boolean running;
+    private Thread consumerThread;
+
+    public FliptStreamConsumer(StringRedisTemplate redisTemplate,
+                               FliptUnifiedUpdateHandler updateHandler,
+                               @Value("#{'${redis.streams.keys:${redis.pubsub.channels}}'.split(',')}") List<String> streamKeys,
+                               @Value("${redis.streams.consumer-id:}") String consumerId,
+                               @Value("${redis.streams.field:message}") String payloadField,
+                               @Value("${redis.streams.batch-size:100}") int batchSize,
+                               @Value("${redis.streams.block:2s}") Duration blockTimeout,
+                               @Value("${redis.streams.claim-min-idle:60s}") Duration claimMinIdle,
+                               @Value("${redis.streams.claim-interval:30s}") Duration claimInterval) {
+        this.streamOperations = redisTemplate.opsForStream();
+        this.updateHandler = updateHandler;
+        if (consumerId == null || consumerId.isBlank()) {
+            throw new IllegalStateException("redis.streams.consumer-id must be set to an id that is stable across "
+                    + "restarts of this instance (e.g. the StatefulSet pod name) when redis.ingestion.mode=streams");
+        }
+        this.streamKeys = streamKeys.stream().map(String::trim).filter(key -> !key.isEmpty()).toList();
+        this.group = GROUP_PREFIX + consumerId.trim();
+        this.consumer = Consumer.from(group, consumerId.trim());
+        this.payloadField = payloadField;
+        this.batchSize = batchSize;
+        this.blockTimeout = blockTimeout;
+        this.claimMinIdle = claimMinIdle;
+        this.claimInterval = claimInterval;
+    }
+
+    @PostConstruct
+    public void start() {
+        running = true;
+        consumerThread = new Thread(this::run, "flipt-stream-consumer");
+        consumerThread.setDaemon(true);
+        consumerThread.start();
+        log.info("Reading Flipt events from streams {} as {} in group {}, batch size {}",
+                streamKeys, consumer.getName(), group, batchSize);
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        running = false;
+        consumerThread.interrupt();
+        consumerThread.join(blockTimeout.toMillis() + 1_000);
+        try {
+            flushAcks();
+        } catch (DataAccessException e) {
+            log.warn("Could not acknowledge processed stream entries on shutdown: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Consumer counters and the last id read per stream
+     */
+    public Map<String, Object> getStats() {
+        return Map.of(
+                "group", group,
+                "consumer", consumer.getName(),
+                "reads", reads.get(),
+                "received", received.get(),
+                "acknowledged", acknowledged.get(),
+                "claimed", claimed.get(),
+                "failures", failures.get(),
+                "lastIds", Map.copyOf(lastIds));
+    }
+
+    private void run() {
+        boolean groupsCreated = false;
+        boolean ownPendingRead = false;
+        long nextClaimAt = 0;
+        while (running) {
+            try {
+                if (!groupsCreated) {
+                    createGroups();
+                    groupsCreated = true;
+                }
+                flushAcks();
+                if (!ownPendingRead) {
+                    readOwnPending();
+                    ownPendingRead = true;
+                }
+                if (System.nanoTime() - nextClaimAt >= 0) {
+                    claimIdle();
+                    nextClaimAt = System.nanoTime() + claimInterval.toNanos();
+                }
+                readNew();
+            } catch (RuntimeException e) {
+                if (!running) {
+                    break;
+                }
+                failures.incrementAndGet();
+                log.warn("Reading Flipt event streams failed, retrying in 1s. Error: {}", e.getMessage());
+                try {
+                    TimeUnit.SECONDS.sleep(1);
+                } catch (InterruptedException interrupted) {
+                    Thread.currentThread().interrupt();
+                    break;
+                }
+            }
+        }
+    }
+
+    /**
+     * Create the group on every stream (and the stream itself) unless it exists, starting at the end
+     */
+    private void createGroups() {
+        for (String streamKey : streamKeys) {
+            try {
+                streamOperations.createGroup(streamKey, ReadOffset.latest(), group);
+                log.info("Created consumer group {} on stream {}", group, streamKey);
+            } catch (DataAccessException e) {
+                Throwable cause = NestedExceptionUtils.getMostSpecificCause(e);
+                if (cause.getMessage() == null || !cause.getMessage().contains("BUSYGROUP")) {
+                    throw e;
+                }
+                log.debug("Consumer group {} already exists on stream {}", group, streamKey);
+            }
+        }
+    }
+
+    /**
+     * Entries delivered to this consumer before a restart and never acknowledged
+     */
+    private void readOwnPending() {
+        for (String streamKey : streamKeys) {
+            String after = "0-0";
+            while (running) {
+                List<MapRecord<String, Object, Object>> batch = streamOperations.read(consumer,
+                        StreamReadOptions.empty().count(batchSize),
+                        StreamOffset.create(streamKey, ReadOffset.from(after)));
+                reads.incrementAndGet();
+                if (batch == null || batch.isEmpty()) {
+                    break;
+                }
+                log.info("Re-reading {} pending entries of stream {}", batch.size(), streamKey);
+                batch.forEach(this::dispatch);
+                after = batch.get(batch.size() - 1).getId().getValue();
+            }
+        }
+    }
+
+    /**
+     * Take over entries that have been pending for too long, whichever consumer they were delivered to
+     */
+    private void claimIdle() {
+        for (String streamKey : streamKeys) {
+            PendingMessages pending = streamOperations.pending(streamKey, group, Range.unbounded(), batchSize);
+            List<RecordId> idle = new ArrayList<>();
+            for (PendingMessage message : pending) {
+                if (message.getElapsedTimeSinceLastDelivery().compareTo(claimMinIdle) >= 0) {
+                    idle.add(message.getId());
+                }
+            }
+            if (idle.isEmpty()) {
+                continue;
+            }
+            List<MapRecord<String, Object, Object>> records = streamOperations.claim(streamKey, group,
+                    consumer.getName(), claimMinIdle, idle.toArray(RecordId[]::new));
+            claimed.addAndGet(records.size());
+            log.info("Claimed {} entries of stream {} idle for more than {}", records.size(), streamKey, claimMinIdle);
+            records.forEach(this::dispatch);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private void readNew() {
+        StreamOffset<String>[] offsets = streamKeys.stream()
+                .map(streamKey -> StreamOffset.create(streamKey, ReadOffset.lastConsumed()))
+                .toArray(StreamOffset[]::new);
+        List<MapRecord<String, Object, Object>> batch = streamOperations.read(consumer,
+                StreamReadOptions.empty().count(batchSize).block(blockTimeout), offsets);
+        reads.incrementAndGet();
+        if (batch != null) {
+            batch.forEach(this::dispatch);
+        }
+    }
+
+    private void dispatch(MapRecord<String, Object, Object> record) {
+        String streamKey = record.getStream();
+        RecordId id = record.getId();
+        received.incrementAndGet();
+        lastIds.put(streamKey, id.getValue());
+        Object payload = record.getValue().get(payloadField);
+        if (payload == null) {
+            // Nothing to process, e.g. an entry trimmed from the stream while it was pending
+            log.warn("Stream entry {} of {} has no '{}' field, acknowledging it", id, streamKey, payloadField);
+            acknowledge(streamKey, id);
+            return;
+        }
+        updateHandler.handleStreamMessage(payload.toString(), () -> acknowledge(streamKey, id));
+    }
+
+    private void acknowledge(String streamKey, RecordId id) {
+        pendingAcks.computeIfAbsent(streamKey, key -> new ConcurrentLinkedQueue<>()).add(id);
+    }
+
+    private void flushAcks() {
+        pendingAcks.forEach((streamKey, ids) -> {
+            List<RecordId> batch = new ArrayList<>();
+            RecordId id;
+            while ((id = ids.poll()) != null) {
+                batch.add(id);
+            }
+            if (!batch.isEmpty()) {
+                try {
+                    streamOperations.acknowledge(streamKey, group, batch.toArray(RecordId[]::new));
+                    acknowledged.addAndGet(batch.size());
+                } catch (DataAccessException e) {
+                    // Keep them for the next flush; unacknowledged entries are at worst delivered again
+                    ids.addAll(batch);
+                    throw e;
+                }
+            }
+        });
+    }
+}
@@ -1,6 +1,5 @@
 package ibank.tech.money.transfer.service;
 
-import com.fasterxml.jackson.databind.ObjectMapper;
 import ibank.tech.money.transfer.dto.FliptGenericUpdateEvent;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -9,7 +8,8 @@ import org.springframework.stereotype.Service;
 
 /**
  * Unified handler for all Flipt entity updates (flags, segments, constraints)
- * Routes events to appropriate processors and handles WebSocket broadcasting
+ * Parses events on the Redis listener thread and hands them to the event pipeline,
+ * which routes them to the processors and broadcasts them to WebSocket clients
  */
 @Service
 @RequiredArgsConstructor
@@ -17,58 +17,65 @@ import org.springframework.stereotype.Service;
 @ConditionalOnProperty(name = "redis.pubsub.enabled", havingValue = "true", matchIfMissing = false)
 public class FliptUnifiedUpdateHandler {
 
-    private final ObjectMapper objectMapper;
-    private final FliptFlagProcessor flagProcessor;
-    private final FliptSegmentProcessor segmentProcessor;
-    private final FliptConstraintProcessor constraintProcessor;
-    private final WebSocketBroadcastService webSocketBroadcastService;
+    private final FliptEventDecoder eventDecoder;
+    private final FliptEventPipeline eventPipeline;
+    private final FliptUpdateMetrics updateMetrics;
+    private final EventDeduplicator eventDeduplicator;
+    private final EventSequenceTracker sequenceTracker;
 
     public void handleMessage(String message) {
+        handleStreamMessage(message, null);
+    }
+
+    /**
+     * Stream delivery: {@code onProcessed} runs once the pipeline has processed the event, or right
+     * away for a message that is skipped or cannot be processed at all. An event the pipeline drops
+     * has already advanced its sequence, so neither a redelivery nor the next event would reveal the
+     * loss; its namespace is resynced instead and the message completed.
+     */
+    public void handleStreamMessage(String message, Runnable onProcessed) {
         try {
-            log.info("=== RECEIVED FLIPT UPDATE MESSAGE FROM REDIS ===");
-            log.info("Raw message: {}", message);
-            log.info("Message length: {}", message.length());
-            log.info("Thread: {}", Thread.currentThread().getName());
+            long receivedAt = System.nanoTime();
+            log.debug("Received Flipt update message on {}: {}", Thread.currentThread().getName(), message);
 
-            FliptGenericUpdateEvent event = objectMapper.readValue(message, FliptGenericUpdateEvent.class);
-            log.info("Parsed event: type={}, source={}, timestamp={}", event.getType(), event.getSource(), event.getTimestamp());
+            FliptGenericUpdateEvent event = eventDecoder.decode(message);
+            updateMetrics.recordReceived(event, receivedAt, System.nanoTime() - receivedAt);
 
             // Check if data exists
-            if (event.getData() == null) {
+            if (!event.hasData()) {
                 log.warn("Received event without data field: {}", message);
+                completeNow(onProcessed);
+                return;
+            }
+
+            // The same change often arrives more than once; do the work only once
+            if (eventDeduplicator.isDuplicate(event)) {
+                log.debug("Dropped duplicate {} event for namespace: {}", event.getType(), event.getNamespace());
+                completeNow(onProcessed);
                 return;
             }
 
-            log.info("Event data: {}", event.getData());
-            
-            // Route to appropriate processor based on entity type
-            FliptGenericUpdateEvent.EntityType entityType = event.getEntityType();
-            log.info("Processing {} update - type: {}, action: {}, namespace: {}", 
-                    entityType, event.getType(), event.getAction(), event.getNamespace());
-            
-            switch (entityType) {
-                case FLAG:
-                    flagProcessor.processEvent(event);
-                    break;
-                case SEGMENT:
-                    segmentProcessor.processEvent(event);
-                    break;
-                case CONSTRAINT:
-                    constraintProcessor.processEvent(event);
-                    break;
-                default:
-                    log.warn("Unknown entity type: {}", event.getType());
+            // Missed or reordered events trigger a resync of the namespace; stale ones are skipped
+            if (!sequenceTracker.accept(event)) {
+                completeNow(onProcessed);
+                return;
             }
-            // Broadcast flag update to WebSocket clients
-            log.info("=== ATTEMPTING WEBSOCKET BROADCAST ===");
-            try {
-                webSocketBroadcastService.broadcastUpdate(event);
-                log.info("=== WEBSOCKET BROADCAST COMPLETED ===");
-            } catch (Exception e) {
-                log.error("Failed to broadcast flag update via WebSocket", e);
+
+            // Hand off to the per-namespace pipeline; routing and broadcasting happen on its workers
+            event.setOnProcessed(onProcessed);
+            if (!eventPipeline.submit(event)) {
+                sequenceTracker.onDropped(event);
+                completeNow(onProcessed);
             }
         } catch (Exception e) {
             log.error("Error processing Flipt update message: {}", message, e);
+            completeNow(onProcessed);
+        }
+    }
+
+    private static void completeNow(Runnable onProcessed) {
+        if (onProcessed != null) {
+            onProcessed.run();
         }
     }
 }
@@ -0,0 +1,257 @@
+package ibank.tech.money.transfer.service;
+
+import ibank.tech.money.transfer.dto.FliptGenericUpdateEvent;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.format.DateTimeParseException;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Latency instrumentation of the Flipt update path, from the change in Flipt to the
+ * WebSocket broadcast.
+ * <p>
+ * All timers publish a histogram and the 50th, 95th and 99th percentiles.
+ * Wall-clock delays are measured against the event {@code timestamp}, so they include clock skew
+ * between Flipt and this instance; negative values are recorded as zero.
+ * <p>
+ * The namespace tag is limited to the namespaces with a configured token, the same set as
+ * {@link MultiNamespaceFeatureFlagService#getSupportedNamespaces()}. Namespaces taken from Redis
+ * events are otherwise unbounded, so every other namespace is tagged {@value #OTHER_NAMESPACE}.
+ * <p>
+ * A configurable fraction of events is written as one structured trace record to the
+ * {@code flipt.trace} logger instead of logging every step at INFO.
+ */
+@Component
+@Slf4j
+public class FliptUpdateMetrics {
+
+    private static final Logger TRACE = LoggerFactory.getLogger("flipt.trace");
+
+    static final double[] PERCENTILES = {0.5, 0.95, 0.99};
+    static final String OTHER_NAMESPACE = "other";
+
+    private static final String[] METER_NAMES = {
+            "flipt.update.receive.delay", "flipt.update.parse", "flipt.update.queue", "flipt.update.process",
+            "flipt.update.applied", "flipt.update.broadcast", "flipt.update.propagation", "flipt.refresh"};
+
+    private final MeterRegistry meterRegistry;
+    private final double traceSampleRate;
+    private final Set<String> taggedNamespaces;
+
+    private final Timer receiveDelay;
+    private final Timer parseTime;
+    private final Timer broadcastTime;
+    private final Map<String, Timer> queueTimers = new ConcurrentHashMap<>();
+    private final Map<String, Timer> appliedTimers = new ConcurrentHashMap<>();
+    private final Map<String, Timer> processTimers = new ConcurrentHashMap<>();
+    private final Map<String, Timer> propagationTimers = new ConcurrentHashMap<>();
+    private final Map<String, Timer> refreshTimers = new ConcurrentHashMap<>();
+
+    public FliptUpdateMetrics(MeterRegistry meterRegistry,
+                              @Value("${feature-flag.trace.sample-rate:0.0}") double traceSampleRate,
+                              @Value("#{${feature-flag.namespace-tokens:{:}}}") Map<String, String> namespaceTokens) {
+        this.meterRegistry = meterRegistry;
+        this.traceSampleRate = traceSampleRate;
+        this.taggedNamespaces = namespaceTokens != null ? Set.copyOf(namespaceTokens.keySet()) : Set.of();
+        this.receiveDelay = timer("flipt.update.receive.delay", "Delay between the Flipt event timestamp and receipt from Redis");
+        this.parseTime = timer("flipt.update.parse", "Time to decode a Flipt event");
+        this.broadcastTime = timer("flipt.update.broadcast", "Time to hand an event to the WebSocket broker");
+    }
+
+    /**
+     * Record receipt and parse time of a decoded event and decide whether it is traced
+     */
+    public void recordReceived(FliptGenericUpdateEvent event, long receivedAtNanos, long parseNanos) {
+        event.setReceivedAtNanos(receivedAtNanos);
+        event.setParseNanos(parseNanos);
+        event.setTraced(traceSampleRate > 0 && ThreadLocalRandom.current().nextDouble() < traceSampleRate);
+        parseTime.record(parseNanos, TimeUnit.NANOSECONDS);
+        long delayMillis = millisSinceEventTimestamp(event);
+        if (delayMillis >= 0) {
+            receiveDelay.record(delayMillis, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Record the time an event waited between receipt and the start of processing, per pipeline lane
+     *
+     * @return the wait in nanoseconds, 0 if the event did not come through the Redis listener
+     */
+    public long recordQueued(FliptGenericUpdateEvent event, long startedAtNanos) {
+        if (event.getReceivedAtNanos() == 0) {
+            return 0;
+        }
+        long queueNanos = startedAtNanos - event.getReceivedAtNanos();
+        String lane = laneTag(event);
+        queueTimers.computeIfAbsent(lane, key -> Timer.builder("flipt.update.queue")
+                .description("Time an event waits in the pipeline before processing")
+                .tag("lane", lane)
+                .publishPercentiles(PERCENTILES)
+                .publishPercentileHistogram()
+                .register(meterRegistry))
+                .record(queueNanos, TimeUnit.NANOSECONDS);
+        return queueNanos;
+    }
+
+    /**
+     * Record the time from receipt until the processors applied the event, per pipeline lane and
+     * entity: for flag toggles in the express lane, the time a kill switch takes to take effect
+     */
+    public void recordApplied(FliptGenericUpdateEvent event, long appliedAtNanos) {
+        if (event.getReceivedAtNanos() == 0) {
+            return;
+        }
+        String lane = laneTag(event);
+        String entity = entityTag(event);
+        appliedTimers.computeIfAbsent(lane + '/' + entity, key -> Timer.builder("flipt.update.applied")
+                .description("Time from receipt of an event until it is applied")
+                .tag("lane", lane)
+                .tag("entity", entity)
+                .publishPercentiles(PERCENTILES)
+                .publishPercentileHistogram()
+                .register(meterRegistry))
+                .record(appliedAtNanos - event.getReceivedAtNanos(), TimeUnit.NANOSECONDS);
+    }
+
+    public void recordProcessed(FliptGenericUpdateEvent event, long processNanos) {
+        String entity = entityTag(event);
+        String namespace = namespaceTag(event.getNamespace());
+        processTimers.computeIfAbsent(entity + '/' + namespace, key -> Timer.builder("flipt.update.process")
+                .description("Time spent in the entity processor")
+                .tag("entity", entity)
+                .tag("namespace", namespace)
+                .publishPercentiles(PERCENTILES)
+                .publishPercentileHistogram()
+                .register(meterRegistry))
+                .record(processNanos, TimeUnit.NANOSECONDS);
+    }
+
+    public void recordBroadcast(long broadcastNanos) {
+        broadcastTime.record(broadcastNanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Record the end-to-end delay from the Flipt change to the broadcast and write the
+     * trace record if the event was sampled
+     */
+    public void recordDelivered(FliptGenericUpdateEvent event, long queueNanos, long processNanos, long broadcastNanos) {
+        String entity = entityTag(event);
+        long propagationMillis = millisSinceEventTimestamp(event);
+        if (propagationMillis >= 0) {
+            propagationTimers.computeIfAbsent(entity, key -> Timer.builder("flipt.update.propagation")
+                    .description("Delay between the Flipt event timestamp and the WebSocket broadcast")
+                    .tag("entity", entity)
+                    .publishPercentiles(PERCENTILES)
+                    .publishPercentileHistogram()
+                    .register(meterRegistry))
+                    .record(propagationMillis, TimeUnit.MILLISECONDS);
+        }
+        if (event.isTraced()) {
+            TRACE.info("flipt_update type={} action={} namespace={} flag={} segment={} constraint={} "
+                            + "event_ts={} propagation_ms={} parse_us={} queue_us={} process_us={} broadcast_us={}",
+                    event.getType(), event.getAction(), event.getNamespace(), event.getFlagKey(),
+                    event.getSegmentKey(), event.getConstraintId(), event.getTimestamp(), propagationMillis,
+                    event.getParseNanos() / 1_000, queueNanos / 1_000, processNanos / 1_000, broadcastNanos / 1_000);
+        }
+    }
+
+    /**
+     * Record one namespace refresh
+     *
+     * @param result success, unchanged (Flipt content not modified), superseded (the namespace kept
+     *               changing during the fetch), failure, skipped, or restored from the snapshot file
+     */
+    public void recordRefresh(String namespace, String result, long durationNanos) {
+        String namespaceTag = namespaceTag(namespace);
+        refreshTimers.computeIfAbsent(namespaceTag + '/' + result, key -> Timer.builder("flipt.refresh")
+                .description("Duration of a full namespace refresh")
+                .tag("namespace", namespaceTag)
+                .tag("result", result)
+                .publishPercentiles(PERCENTILES)
+                .publishPercentileHistogram()
+                .register(meterRegistry))
+                .record(durationNanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Count and percentiles (in milliseconds) of every update-path timer, keyed by meter name and tags
+     */
+    public Map<String, Object> getLatencySummary() {
+        Map<String, Object> summary = new LinkedHashMap<>();
+        for (String name : METER_NAMES) {
+            meterRegistry.find(name).timers().forEach(timer -> summary.put(describe(timer), summarize(timer)));
+        }
+        return summary;
+    }
+
+    public double getTraceSampleRate() {
+        return traceSampleRate;
+    }
+
+    private Timer timer(String name, String description) {
+        return Timer.builder(name)
+                .description(description)
+                .publishPercentiles(PERCENTILES)
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+    }
+
+    private static String describe(Timer timer) {
+        StringBuilder name = new StringBuilder(timer.getId().getName());
+        timer.getId().getTags().forEach(tag -> name.append(',').append(tag.getKey()).append('=').append(tag.getValue()));
+        return name.toString();
+    }
+
+    private static Map<String, Object> summarize(Timer timer) {
+        Map<String, Object> values = new LinkedHashMap<>();
+        values.put("count", timer.count());
+        values.put("meanMs", timer.mean(TimeUnit.MILLISECONDS));
+        values.put("maxMs", timer.max(TimeUnit.MILLISECONDS));
+        Arrays.stream(timer.takeSnapshot().percentileValues()).forEach(percentile ->
+                values.put("p" + Math.round(percentile.percentile() * 100), percentile.value(TimeUnit.MILLISECONDS)));
+        return values;
+    }
+
+    private static String entityTag(FliptGenericUpdateEvent event) {
+        return event.getEntityType().name().toLowerCase();
+    }
+
+    private String namespaceTag(String namespace) {
+        return namespace != null && taggedNamespaces.contains(namespace) ? namespace : OTHER_NAMESPACE;
+    }
+
+    private static String laneTag(FliptGenericUpdateEvent event) {
+        return event.getLane() != null ? event.getLane() : "none";
+    }
+
+    /**
+     * Milliseconds since the event timestamp, 0 if the timestamp lies in the future,
+     * -1 if there is no usable timestamp
+     */
+    private static long millisSinceEventTimestamp(FliptGenericUpdateEvent event) {
+        String timestamp = event.getTimestamp();
+        if (timestamp == null) {
+            return -1;
+        }
+        try {
+            return Math.max(0, Duration.between(Instant.parse(timestamp), Instant.now()).toMillis());
+        } catch (DateTimeParseException e) {
+            log.debug("Unparseable Flipt event timestamp: {}", timestamp);
+            return -1;
+        }
+    }
+}
@@ -0,0 +1,212 @@
+package ibank.tech.money.transfer.service;
+
+import ibank.tech.money.transfer.dto.NamespaceSnapshot;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32;
+
+/**
+ * Evaluates flags against the local namespace snapshots without calling Flipt.
+ * Follows the Flipt boolean evaluation rules: rollouts in rank order, first match wins,
+ * otherwise the flag's enabled value is the default.
+ * Results of evaluations without context attributes are cached per entity in the
+ * {@link EvaluationResultCache}.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class LocalFlagEvaluator {
+
+    private final FlagSnapshotStore snapshotStore;
+    private final EvaluationResultCache resultCache;
+
+    /**
+     * Evaluate a flag for an entity.
+     *
+     * @return the evaluation result, or null if the namespace or flag is not in the local snapshot
+     */
+    public Boolean evaluate(String namespace, String flagKey, String entityId, Map<String, String> context) {
+        NamespaceSnapshot snapshot = snapshotStore.get(namespace);
+        if (snapshot == null) {
+            return null;
+        }
+        NamespaceSnapshot.Flag flag = snapshot.getFlag(flagKey);
+        if (flag == null) {
+            return null;
+        }
+        if (context == null || context.isEmpty()) {
+            // Without attributes the result depends only on the entity, so it can be cached
+            return resultCache.get(snapshot, flagKey, entityId, () -> evaluate(snapshot, flag, entityId, Map.of()));
+        }
+        return evaluate(snapshot, flag, entityId, context);
+    }
+
+    private boolean evaluate(NamespaceSnapshot snapshot, NamespaceSnapshot.Flag flag, String entityId,
+                             Map<String, String> context) {
+        if (flag.type() == NamespaceSnapshot.FlagType.VARIANT) {
+            return flag.enabled();
+        }
+
+        for (NamespaceSnapshot.Rollout rollout : flag.rollouts()) {
+            if (rollout.type() == NamespaceSnapshot.RolloutType.THRESHOLD) {
+                if (bucket(entityId, flag.key()) < rollout.percentage()) {
+                    return rollout.value();
+                }
+            } else if (matchesSegments(snapshot, rollout.segmentOperator(), rollout.segmentKeys(), entityId, context)) {
+                return rollout.value();
+            }
+        }
+        return flag.enabled();
+    }
+
+    private boolean matchesSegments(NamespaceSnapshot snapshot, NamespaceSnapshot.SegmentOperator operator,
+                                    List<String> segmentKeys, String entityId, Map<String, String> context) {
+        if (segmentKeys.isEmpty()) {
+            return false;
+        }
+        for (String segmentKey : segmentKeys) {
+            NamespaceSnapshot.Segment segment = snapshot.getSegment(segmentKey);
+            boolean matched = segment != null && matchesSegment(segment, entityId, context);
+            if (operator == NamespaceSnapshot.SegmentOperator.OR && matched) {
+                return true;
+            }
+            if (operator == NamespaceSnapshot.SegmentOperator.AND && !matched) {
+                return false;
+            }
+        }
+        return operator == NamespaceSnapshot.SegmentOperator.AND;
+    }
+
+    private boolean matchesSegment(NamespaceSnapshot.Segment segment, String entityId, Map<String, String> context) {
+        if (segment.constraints().isEmpty()) {
+            return true;
+        }
+        boolean matchAll = segment.matchType() == NamespaceSnapshot.MatchType.ALL;
+        for (NamespaceSnapshot.Constraint constraint : segment.constraints()) {
+            String actual = constraint.type() == NamespaceSnapshot.ComparisonType.ENTITY_ID
+                    ? entityId
+                    : context.get(constraint.property());
+            boolean matched = matchesConstraint(constraint, actual);
+            if (matchAll && !matched) {
+                return false;
+            }
+            if (!matchAll && matched) {
+                return true;
+            }
+        }
+        return matchAll;
+    }
+
+    private boolean matchesConstraint(NamespaceSnapshot.Constraint constraint, String actual) {
+        String operator = constraint.operator();
+        String expected = constraint.value();
+        switch (constraint.type()) {
+            case STRING:
+            case ENTITY_ID:
+                String value = actual != null ? actual : "";
+                switch (operator) {
+                    case "eq": return value.equals(expected);
+                    case "neq": return !value.equals(expected);
+                    case "empty": return value.isBlank();
+                    case "notempty": return !value.isBlank();
+                    case "prefix": return expected != null && value.startsWith(expected);
+                    case "suffix": return expected != null && value.endsWith(expected);
+                    case "isoneof": return isOneOf(value, expected);
+                    case "isnotoneof": return !isOneOf(value, expected);
+                    default: return false;
+                }
+            case NUMBER:
+                if ("present".equals(operator)) return actual != null && !actual.isEmpty();
+                if ("notpresent".equals(operator)) return actual == null || actual.isEmpty();
+                if (actual == null || actual.isEmpty()) return false;
+                try {
+                    double number = Double.parseDouble(actual);
+                    switch (operator) {
+                        case "eq": return number == Double.parseDouble(expected);
+                        case "neq": return number != Double.parseDouble(expected);
+                        case "lt": return number < Double.parseDouble(expected);
+                        case "lte": return number <= Double.parseDouble(expected);
+                        case "gt": return number > Double.parseDouble(expected);
+                        case "gte": return number >= Double.parseDouble(expected);
+                        case "isoneof": return isOneOf(number, expected);
+                        case "isnotoneof": return !isOneOf(number, expected);
+                        default: return false;
+                    }
+                } catch (NumberFormatException e) {
+                    return false;
+                }
+            case BOOLEAN:
+                switch (operator) {
+                    case "true": return "true".equalsIgnoreCase(actual);
+                    case "false": return "false".equalsIgnoreCase(actual);
+                    case "present": return actual != null && !actual.isEmpty();
+                    case "notpresent": return actual == null || actual.isEmpty();
+                    default: return false;
+                }
+            default:
+                log.debug("Unsupported constraint type {} for property {}", constraint.type(), constraint.property());
+                return false;
+        }
+    }
+
+    private boolean isOneOf(String value, String expected) {
+        for (String candidate : listItems(expected)) {
+            if (candidate.equals(value)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Number lists are compared as numbers, as Flipt does, so 10.0 is one of ["10"]
+     */
+    private boolean isOneOf(double value, String expected) {
+        for (String candidate : listItems(expected)) {
+            try {
+                if (Double.parseDouble(candidate) == value) {
+                    return true;
+                }
+            } catch (NumberFormatException e) {
+                // Items that are not numbers cannot equal a number
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Flipt list values are JSON arrays such as ["eu","us"]
+     */
+    private static String[] listItems(String expected) {
+        if (expected == null) {
+            return new String[0];
+        }
+        String list = expected.trim();
+        if (list.startsWith("[")) {
+            list = list.substring(1, list.length() - 1);
+        }
+        String[] items = list.split(",");
+        for (int i = 0; i < items.length; i++) {
+            String candidate = items[i].trim();
+            if (candidate.length() >= 2 && candidate.startsWith("\"") && candidate.endsWith("\"")) {
+                candidate = candidate.substring(1, candidate.length() - 1);
+            }
+            items[i] = candidate;
+        }
+        return items;
+    }
+
+    /**
+     * Same bucketing as Flipt: crc32(entityId + flagKey) % 100
+     */
+    private static float bucket(String entityId, String flagKey) {
+        CRC32 crc = new CRC32();
+        crc.update(((entityId != null ? entityId : "") + flagKey).getBytes(StandardCharsets.UTF_8));
+        return crc.getValue() % 100;
+    }
+}
@@ -1,13 +1,21 @@
 package ibank.tech.money.transfer.service;
 
 import ibank.tech.feature.flag.service.FeatureFlagService;
+import ibank.tech.money.transfer.dto.NamespaceSnapshot;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.stereotype.Service;
 
+import java.time.Duration;
+import java.util.HashMap;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * Service to handle feature flag operations across multiple namespaces
@@ -18,7 +26,17 @@ import java.util.Set;
 @ConditionalOnProperty(name = "redis.pubsub.enabled", havingValue = "true", matchIfMissing = false)
 public class MultiNamespaceFeatureFlagService {
 
+    private static final int MAX_PUBLISH_ATTEMPTS = 3;
+
     private final FeatureFlagService featureFlagService;
+    private final FliptSnapshotClient snapshotClient;
+    private final FlagSnapshotStore snapshotStore;
+    private final FliptUpdateMetrics updateMetrics;
+    private final ObjectProvider<FlagSnapshotFile> snapshotFile;
+    private final NamespaceRefreshScheduler refreshScheduler;
+    private final NamespaceRefreshScheduler sdkSyncScheduler;
+    private final Map<String, RefreshValidators> refreshValidators = new ConcurrentHashMap<>();
+    private final AtomicLong unchangedRefreshes = new AtomicLong();
     
     @Value("#{${feature-flag.namespace-tokens:{}}}")
     private Map<String, String> namespaceTokens;
@@ -26,30 +44,286 @@ public class MultiNamespaceFeatureFlagService {
     @Value("${feature-flag.namespace-token:}")
     private String defaultToken;
 
-    public MultiNamespaceFeatureFlagService(FeatureFlagService featureFlagService) {
+    public MultiNamespaceFeatureFlagService(
+            FeatureFlagService featureFlagService,
+            FliptSnapshotClient snapshotClient,
+            FlagSnapshotStore snapshotStore,
+            FliptUpdateMetrics updateMetrics,
+            ObjectProvider<FlagSnapshotFile> snapshotFile,
+            @Value("${feature-flag.refresh.debounce:250ms}") Duration refreshDebounce,
+            @Value("${feature-flag.refresh.max-staleness:2s}") Duration refreshMaxStaleness,
+            @Value("${feature-flag.refresh.threads:2}") int refreshThreads) {
         this.featureFlagService = featureFlagService;
+        this.snapshotClient = snapshotClient;
+        this.snapshotStore = snapshotStore;
+        this.updateMetrics = updateMetrics;
+        this.snapshotFile = snapshotFile;
+        this.refreshScheduler = new NamespaceRefreshScheduler("flag-refresh", this::refreshFlagCache,
+                refreshDebounce, refreshMaxStaleness, refreshThreads);
+        this.sdkSyncScheduler = new NamespaceRefreshScheduler("flag-sdk-sync", this::syncSdkCache,
+                refreshDebounce, refreshMaxStaleness, 1);
+    }
+
+    /**
+     * Publish the persisted snapshot of every configured namespace before the service takes traffic;
+     * {@link NamespaceWarmUp} then reconciles each namespace with Flipt
+     */
+    @PostConstruct
+    public void restorePersistedSnapshots() {
+        FlagSnapshotFile file = snapshotFile.getIfAvailable();
+        if (file == null) {
+            return;
+        }
+        for (String namespace : getSupportedNamespaces()) {
+            if (!snapshotStore.isLoaded(namespace)) {
+                long startedAt = System.nanoTime();
+                if (file.restore(namespace) != null) {
+                    updateMetrics.recordRefresh(namespace, "restored", System.nanoTime() - startedAt);
+                }
+            }
+        }
+    }
+
+    /**
+     * Request an asynchronous refresh of the flag cache for a namespace.
+     * Closely spaced requests for the same namespace are collapsed into one fetch.
+     */
+    public void requestRefresh(String namespace) {
+        refreshScheduler.requestRefresh(namespace);
+    }
+
+    /**
+     * Refresh statistics: how many refreshes were requested, executed, saved by coalescing and
+     * found Flipt unchanged
+     */
+    public Map<String, Long> getRefreshStats() {
+        return Map.of(
+                "requested", refreshScheduler.getRequestedCount(),
+                "executed", refreshScheduler.getExecutedCount(),
+                "coalesced", refreshScheduler.getCoalescedCount(),
+                "unchanged", unchangedRefreshes.get());
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        refreshScheduler.shutdown();
+        sdkSyncScheduler.shutdown();
+    }
+
+    /**
+     * Apply an enable/disable event to one flag of the local snapshot.
+     * Falls back to a full namespace refresh if the flag is not in the snapshot.
+     */
+    public void applyFlagToggle(String namespace, String flagKey, boolean enabled) {
+        if (flagKey != null && snapshotStore.setFlagEnabled(namespace, flagKey, enabled)) {
+            log.debug("Patched flag {} in namespace {}: enabled={}", flagKey, namespace, enabled);
+            sdkSyncScheduler.requestRefresh(namespace);
+            return;
+        }
+        requestRefresh(namespace);
+    }
+
+    /**
+     * Fetch only the given flag (and any segment the snapshot does not have yet) and patch it in.
+     * Falls back to a full namespace refresh if the namespace is not loaded, the fetch fails, or the
+     * flag was changed locally (e.g. toggled) while it was fetched.
+     */
+    public void reloadFlag(String namespace, String flagKey) {
+        String token = getTokenForNamespace(namespace);
+        NamespaceSnapshot current = snapshotStore.get(namespace);
+        if (flagKey == null || token == null || current == null) {
+            requestRefresh(namespace);
+            return;
+        }
+        NamespaceSnapshot.Flag previous = current.getFlag(flagKey);
+        try {
+            NamespaceSnapshot.Flag flag = snapshotClient.fetchFlag(namespace, flagKey, token);
+            Map<String, NamespaceSnapshot.Segment> addedSegments = new HashMap<>();
+            for (String segmentKey : flag.referencedSegments()) {
+                if (current.getSegment(segmentKey) == null) {
+                    addedSegments.put(segmentKey, snapshotClient.fetchSegment(namespace, segmentKey, token));
+                }
+            }
+            if (snapshotStore.putFlag(namespace, flag, addedSegments, previous)) {
+                log.debug("Reloaded flag {} in namespace {}", flagKey, namespace);
+                sdkSyncScheduler.requestRefresh(namespace);
+                return;
+            }
+        } catch (Exception e) {
+            log.warn("Failed to reload flag {} in namespace {}, falling back to full refresh. Error: {}",
+                    flagKey, namespace, e.getMessage());
+        }
+        requestRefresh(namespace);
+    }
+
+    /**
+     * Remove one flag from the local snapshot
+     */
+    public void removeFlag(String namespace, String flagKey) {
+        if (flagKey != null && snapshotStore.removeFlag(namespace, flagKey)) {
+            log.debug("Removed flag {} from namespace {}", flagKey, namespace);
+            sdkSyncScheduler.requestRefresh(namespace);
+            return;
+        }
+        requestRefresh(namespace);
     }
 
     /**
-     * Refresh flag cache for a specific namespace
+     * Re-fetch one segment after a segment or constraint change and patch it into the snapshot.
+     * Segments that no flag references are skipped.
+     *
+     * @return keys of the flags that depend on the segment
+     */
+    public Set<String> reloadSegment(String namespace, String segmentKey) {
+        String token = getTokenForNamespace(namespace);
+        NamespaceSnapshot current = snapshotStore.get(namespace);
+        if (segmentKey == null || token == null || current == null) {
+            requestRefresh(namespace);
+            return Set.of();
+        }
+        Set<String> dependentFlags = current.dependencies().flagsUsing(segmentKey);
+        if (dependentFlags.isEmpty() && current.getSegment(segmentKey) == null) {
+            log.debug("Segment {} in namespace {} is not referenced by any flag, nothing to reload", segmentKey, namespace);
+            return dependentFlags;
+        }
+        try {
+            NamespaceSnapshot.Segment segment = snapshotClient.fetchSegment(namespace, segmentKey, token);
+            if (snapshotStore.putSegment(namespace, segment)) {
+                log.debug("Reloaded segment {} in namespace {}, dependent flags: {}", segmentKey, namespace, dependentFlags);
+                if (!dependentFlags.isEmpty()) {
+                    sdkSyncScheduler.requestRefresh(namespace);
+                }
+                return dependentFlags;
+            }
+        } catch (Exception e) {
+            log.warn("Failed to reload segment {} in namespace {}, falling back to full refresh. Error: {}",
+                    segmentKey, namespace, e.getMessage());
+        }
+        requestRefresh(namespace);
+        return dependentFlags;
+    }
+
+    /**
+     * Remove one segment from the local snapshot
+     *
+     * @return keys of the flags that still referenced the segment
+     */
+    public Set<String> removeSegment(String namespace, String segmentKey) {
+        NamespaceSnapshot current = snapshotStore.get(namespace);
+        if (segmentKey == null || current == null) {
+            requestRefresh(namespace);
+            return Set.of();
+        }
+        Set<String> dependentFlags = current.dependencies().flagsUsing(segmentKey);
+        if (!dependentFlags.isEmpty()) {
+            // Flipt refuses to delete segments in use, so a remaining reference means the snapshot is behind
+            log.warn("Deleted segment {} is still referenced by flags {} in namespace {}", segmentKey, dependentFlags, namespace);
+            requestRefresh(namespace);
+            return dependentFlags;
+        }
+        snapshotStore.removeSegment(namespace, segmentKey);
+        return dependentFlags;
+    }
+
+    /**
+     * Segment that owns a constraint: the key from the event, or the snapshot index by constraint id
+     */
+    public String resolveConstraintSegment(String namespace, String segmentKey, String constraintId) {
+        if (segmentKey != null) {
+            return segmentKey;
+        }
+        NamespaceSnapshot current = snapshotStore.get(namespace);
+        return current != null && constraintId != null ? current.dependencies().segmentOf(constraintId) : null;
+    }
+
+    /**
+     * Refresh only the SDK cache, which still backs the @FeatureFlag aspect.
+     * Used after incremental snapshot updates, coalesced like full refreshes.
+     */
+    private void syncSdkCache(String namespace) {
+        if (getTokenForNamespace(namespace) == null) {
+            return;
+        }
+        try {
+            featureFlagService.getFlagsByNamespace(namespace);
+        } catch (Exception e) {
+            log.error("Failed to sync SDK flag cache for namespace: {}. Error: {}", namespace, e.getMessage());
+        }
+    }
+
+    /**
+     * Refresh flag cache and local snapshot for a specific namespace
      * Uses the appropriate token for the namespace
+     * <p>
+     * The fetch is conditional on the ETag and content hash of the previous one. When Flipt is
+     * unchanged and the published snapshot is still the one that fetch produced, the SDK sync and
+     * the snapshot rebuild are skipped. Any other change to the snapshot (an incremental update or
+     * a restore) invalidates the validators, so the next refresh rebuilds in full.
+     * <p>
+     * The fetched snapshot is only published if the namespace is still at the version read before
+     * the fetch; an incremental update that lands during the fetch may be newer than the fetched
+     * data, so the namespace is fetched again instead (a few times, then left to a new refresh).
+     *
+     * @return true if the namespace is up to date: a new snapshot was published or Flipt was unchanged
      */
-    public void refreshFlagCache(String namespace) {
+    public boolean refreshFlagCache(String namespace) {
+        long startedAt = System.nanoTime();
+        String result = "failure";
         try {
             String token = getTokenForNamespace(namespace);
             
             if (token == null || token.trim().isEmpty()) {
                 log.warn("No token configured for namespace: {}. Skipping cache refresh.", namespace);
-                return;
+                result = "skipped";
+                return false;
             }
             
-            log.info("Refreshing flag cache for namespace: {} with token: {}...", namespace, token.substring(0, Math.min(8, token.length())));
+            log.debug("Refreshing flag cache for namespace: {} with token: {}...", namespace, token.substring(0, Math.min(8, token.length())));
             
             // The FeatureFlagService should handle the token internally
             // If it doesn't support dynamic tokens, we need a different approach
-            featureFlagService.getFlagsByNamespace(namespace);
-            
-            log.info("Successfully refreshed flag cache for namespace: {}", namespace);
+            boolean sdkSynced = false;
+            for (int attempt = 1; ; attempt++) {
+                NamespaceSnapshot current = snapshotStore.get(namespace);
+                long expectedVersion = current != null ? current.version() : 0;
+                RefreshValidators validators = refreshValidators.get(namespace);
+                if (validators != null && (current == null || current.version() != validators.snapshotVersion())) {
+                    validators = null;
+                }
+                FliptSnapshotClient.ConditionalFetch fetch = snapshotClient.fetchNamespaceIfChanged(namespace, token,
+                        validators != null ? validators.etag() : null,
+                        validators != null ? validators.contentHash() : null);
+                if (fetch.unchanged()) {
+                    refreshValidators.put(namespace,
+                            new RefreshValidators(fetch.etag(), fetch.contentHash(), current.version()));
+                    unchangedRefreshes.incrementAndGet();
+                    result = "unchanged";
+                    log.debug("Flag cache for namespace: {} is up to date", namespace);
+                    return true;
+                }
+
+                if (!sdkSynced) {
+                    featureFlagService.getFlagsByNamespace(namespace);
+                    sdkSynced = true;
+                }
+
+                // Rebuild the local snapshot used for in-process evaluation
+                NamespaceSnapshot published = snapshotStore.replaceIfVersion(fetch.snapshot(), expectedVersion);
+                if (published != null) {
+                    refreshValidators.put(namespace,
+                            new RefreshValidators(fetch.etag(), fetch.contentHash(), published.version()));
+                    result = "success";
+                    log.info("Successfully refreshed flag cache for namespace: {}", namespace);
+                    return true;
+                }
+                if (attempt >= MAX_PUBLISH_ATTEMPTS) {
+                    log.warn("Namespace {} kept changing during {} fetches, refreshing it again later", namespace, attempt);
+                    result = "superseded";
+                    requestRefresh(namespace);
+                    return false;
+                }
+                log.debug("Namespace {} changed while it was fetched, fetching it again", namespace);
+            }
             
         } catch (Exception e) {
             log.error("Failed to refresh flag cache for namespace: {}. Error: {}", namespace, e.getMessage());
@@ -58,6 +332,9 @@ public class MultiNamespaceFeatureFlagService {
             if (e.getMessage() != null && (e.getMessage().contains("401") || e.getMessage().contains("unauthorized"))) {
                 log.error("Authentication failed for namespace: {}. Please check the token configuration.", namespace);
             }
+            return false;
+        } finally {
+            updateMetrics.recordRefresh(namespace, result, System.nanoTime() - startedAt);
         }
     }
 
@@ -112,4 +389,10 @@ public class MultiNamespaceFeatureFlagService {
             log.info("No namespace-specific tokens configured");
         }
     }
+
+    /**
+     * Validators of the last full fetch of a namespace and the snapshot version it published
+     */
+    private record RefreshValidators(String etag, String contentHash, long snapshotVersion) {
+    }
 }
@@ -0,0 +1,144 @@
+package ibank.tech.money.transfer.service;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * Coalesces refresh requests per namespace into a single in-flight refresh.
+ * <p>
+ * A request starts a debounce window; further requests inside the window push the
+ * deadline out, but never past {@code maxStaleness} after the first pending request.
+ * Requests that arrive while a refresh is running trigger exactly one follow-up refresh.
+ */
+@Slf4j
+public class NamespaceRefreshScheduler {
+
+    private final Consumer<String> refreshAction;
+    private final long debounceNanos;
+    private final long maxStalenessNanos;
+    private final ScheduledExecutorService executor;
+    private final Map<String, NamespaceState> states = new ConcurrentHashMap<>();
+
+    private final AtomicLong requested = new AtomicLong();
+    private final AtomicLong executed = new AtomicLong();
+    private final AtomicLong coalesced = new AtomicLong();
+
+    public NamespaceRefreshScheduler(String name, Consumer<String> refreshAction,
+                                     Duration debounce, Duration maxStaleness, int threads) {
+        this.refreshAction = refreshAction;
+        this.debounceNanos = debounce.toNanos();
+        this.maxStalenessNanos = Math.max(maxStaleness.toNanos(), debounceNanos);
+        AtomicLong threadCounter = new AtomicLong();
+        this.executor = Executors.newScheduledThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, name + "-" + threadCounter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Request a refresh of the namespace. Returns immediately.
+     */
+    public void requestRefresh(String namespace) {
+        requested.incrementAndGet();
+        NamespaceState state = states.computeIfAbsent(namespace, NamespaceState::new);
+        long now = System.nanoTime();
+        synchronized (state) {
+            if (state.running) {
+                // The running fetch may have started before the change; run once more afterwards
+                if (state.rerunRequested) {
+                    coalesced.incrementAndGet();
+                }
+                state.rerunRequested = true;
+                return;
+            }
+            if (state.pending) {
+                coalesced.incrementAndGet();
+                state.deadline = Math.min(now + debounceNanos, state.firstRequestedAt + maxStalenessNanos);
+                return;
+            }
+            state.pending = true;
+            state.firstRequestedAt = now;
+            state.deadline = now + debounceNanos;
+            schedule(state, debounceNanos);
+        }
+    }
+
+    public long getRequestedCount() {
+        return requested.get();
+    }
+
+    public long getExecutedCount() {
+        return executed.get();
+    }
+
+    /**
+     * Number of refresh requests that were absorbed by another refresh instead of causing a fetch.
+     */
+    public long getCoalescedCount() {
+        return coalesced.get();
+    }
+
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    private void schedule(NamespaceState state, long delayNanos) {
+        executor.schedule(() -> fire(state), delayNanos, TimeUnit.NANOSECONDS);
+    }
+
+    private void fire(NamespaceState state) {
+        synchronized (state) {
+            long remaining = state.deadline - System.nanoTime();
+            if (remaining > 0) {
+                // Deadline was pushed out by a later request
+                schedule(state, remaining);
+                return;
+            }
+            state.pending = false;
+            state.running = true;
+        }
+
+        try {
+            executed.incrementAndGet();
+            refreshAction.accept(state.namespace);
+        } catch (Exception e) {
+            log.error("Scheduled refresh failed for namespace: {}", state.namespace, e);
+        } finally {
+            synchronized (state) {
+                state.running = false;
+                if (state.rerunRequested) {
+                    state.rerunRequested = false;
+                    long now = System.nanoTime();
+                    state.pending = true;
+                    state.firstRequestedAt = now;
+                    state.deadline = now + debounceNanos;
+                    schedule(state, debounceNanos);
+                }
+            }
+        }
+        log.debug("Refresh stats - requested: {}, executed: {}, coalesced: {}",
+                requested.get(), executed.get(), coalesced.get());
+    }
+
+    private static final class NamespaceState {
+        private final String namespace;
+        private boolean pending;
+        private boolean running;
+        private boolean rerunRequested;
+        private long firstRequestedAt;
+        private long deadline;
+
+        private NamespaceState(String namespace) {
+            this.namespace = namespace;
+        }
+    }
+}
@@ -0,0 +1,220 @@
+package ibank.tech.money.transfer.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationStartedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Loads every configured namespace from Flipt right after startup instead of on the first event.
+ * <p>
+ * Namespaces are refreshed in parallel on a pool of {@code feature-flag.warm-up.concurrency}
+ * threads, critical namespaces first. Each namespace gets its own timeout, counted from the moment
+ * its fetch starts rather than from submission, so namespaces queued behind slow ones are not
+ * penalized. A fetch that times out is not abandoned: if it completes later, its snapshot is still
+ * published, but the HTTP timeouts of the {@link FliptSnapshotClient} (by default the read timeout is
+ * this timeout) bound how long it can hold its worker, so a hung Flipt cannot block the pool.
+ * Namespaces that failed or timed out are retried after the retry interval until they load.
+ * Namespaces without a usable token (missing, blank or still the {@code your-<namespace>-token-here}
+ * placeholder) cannot load until the configuration changes, so they are reported once as
+ * {@code no-token} and never attempted.
+ * <p>
+ * Readiness ({@link #isReady()}) requires every namespace in {@code feature-flag.critical-namespaces}
+ * to have a snapshot, fetched or restored from the snapshot file; without critical namespaces it
+ * waits for the first warm-up round. Every attempt is timed (timer flag.warmup) and the latest
+ * result per namespace is kept for the health details.
+ */
+@Component
+@Slf4j
+@ConditionalOnProperty(name = "redis.pubsub.enabled", havingValue = "true", matchIfMissing = false)
+public class NamespaceWarmUp {
+
+    private final MultiNamespaceFeatureFlagService flagService;
+    private final FlagSnapshotStore snapshotStore;
+    private final MeterRegistry meterRegistry;
+    private final int concurrency;
+    private final Duration timeout;
+    private final Duration retryInterval;
+    private final Set<String> criticalNamespaces;
+
+    private final Map<String, NamespaceStatus> statuses = new ConcurrentHashMap<>();
+    private final AtomicInteger threadCounter = new AtomicInteger();
+    private ExecutorService workers;
+    private ScheduledExecutorService scheduler;
+    private volatile boolean firstRoundCompleted;
+    private volatile long firstRoundMillis = -1;
+
+    public NamespaceWarmUp(MultiNamespaceFeatureFlagService flagService,
+                           FlagSnapshotStore snapshotStore,
+                           MeterRegistry meterRegistry,
+                           @Value("${feature-flag.warm-up.concurrency:4}") int concurrency,
+                           @Value("${feature-flag.warm-up.timeout:5s}") Duration timeout,
+                           @Value("${feature-flag.warm-up.retry-interval:10s}") Duration retryInterval,
+                           @Value("${feature-flag.critical-namespaces:}") List<String> criticalNamespaces) {
+        this.flagService = flagService;
+        this.snapshotStore = snapshotStore;
+        this.meterRegistry = meterRegistry;
+        this.concurrency = Math.max(1, concurrency);
+        this.timeout = timeout;
+        this.retryInterval = retryInterval;
+        this.criticalNamespaces = new LinkedHashSet<>(criticalNamespaces);
+        this.criticalNamespaces.removeIf(String::isBlank);
+    }
+
+    @EventListener(ApplicationStartedEvent.class)
+    public void start() {
+        workers = Executors.newFixedThreadPool(concurrency, runnable -> newThread(runnable, "flag-warmup-"));
+        scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> newThread(runnable, "flag-warmup-timer-"));
+
+        Set<String> namespaces = new LinkedHashSet<>(criticalNamespaces);
+        namespaces.retainAll(flagService.getSupportedNamespaces());
+        if (namespaces.size() < criticalNamespaces.size()) {
+            log.warn("Critical namespaces {} are not all in feature-flag.namespace-tokens; readiness waits "
+                    + "for them to be loaded by events", criticalNamespaces);
+        }
+        namespaces.addAll(flagService.getSupportedNamespaces());
+        List<String> withoutToken = namespaces.stream()
+                .filter(namespace -> !flagService.isNamespaceSupported(namespace))
+                .toList();
+        if (!withoutToken.isEmpty()) {
+            log.warn("No token configured for namespaces {}, they are not warmed up", withoutToken);
+            withoutToken.forEach(namespace -> statuses.put(namespace, new NamespaceStatus("no-token", 0, 0)));
+            withoutToken.forEach(namespaces::remove);
+        }
+        log.info("Warming up {} namespaces ({} critical) with concurrency {} and timeout {}",
+                namespaces.size(), criticalNamespaces, concurrency, timeout);
+        runRound(List.copyOf(namespaces), 1, System.nanoTime());
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (workers != null) {
+            workers.shutdownNow();
+            scheduler.shutdownNow();
+        }
+    }
+
+    /**
+     * True once every critical namespace has a snapshot
+     */
+    public boolean isReady() {
+        if (criticalNamespaces.isEmpty()) {
+            return firstRoundCompleted;
+        }
+        for (String namespace : criticalNamespaces) {
+            if (!snapshotStore.isLoaded(namespace)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Readiness details: critical namespaces, first round duration and the latest attempt per namespace
+     */
+    public Map<String, Object> getStatus() {
+        Map<String, Object> status = new LinkedHashMap<>();
+        status.put("criticalNamespaces", criticalNamespaces);
+        status.put("firstRoundMillis", firstRoundMillis);
+        Map<String, Object> namespaces = new LinkedHashMap<>();
+        statuses.forEach((namespace, namespaceStatus) -> namespaces.put(namespace, Map.of(
+                "result", namespaceStatus.result(),
+                "attempt", namespaceStatus.attempt(),
+                "durationMillis", namespaceStatus.durationMillis(),
+                "loaded", snapshotStore.isLoaded(namespace))));
+        status.put("namespaces", namespaces);
+        return status;
+    }
+
+    private void runRound(List<String> namespaces, int attempt, long roundStartedAt) {
+        List<CompletableFuture<Boolean>> attempts = new ArrayList<>(namespaces.size());
+        for (String namespace : namespaces) {
+            attempts.add(warmUp(namespace, attempt));
+        }
+        CompletableFuture.allOf(attempts.toArray(CompletableFuture[]::new)).whenComplete((ignored, error) -> {
+            if (!firstRoundCompleted) {
+                firstRoundMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - roundStartedAt);
+                firstRoundCompleted = true;
+                log.info("Flag warm-up round finished in {} ms: {}", firstRoundMillis, statuses);
+            }
+            List<String> retry = new ArrayList<>();
+            for (int i = 0; i < namespaces.size(); i++) {
+                if (!attempts.get(i).join()) {
+                    retry.add(namespaces.get(i));
+                }
+            }
+            if (!retry.isEmpty() && !scheduler.isShutdown()) {
+                log.warn("Flag warm-up attempt {} did not load {}, retrying in {}", attempt, retry, retryInterval);
+                scheduler.schedule(() -> runRound(retry, attempt + 1, System.nanoTime()),
+                        retryInterval.toMillis(), TimeUnit.MILLISECONDS);
+            }
+        });
+    }
+
+    /**
+     * Refresh one namespace on the worker pool
+     *
+     * @return completes with true once loaded, false on failure or when the timeout expires first
+     */
+    private CompletableFuture<Boolean> warmUp(String namespace, int attempt) {
+        CompletableFuture<Boolean> outcome = new CompletableFuture<>();
+        workers.execute(() -> {
+            long startedAt = System.nanoTime();
+            ScheduledFuture<?> timer = scheduler.schedule(() -> {
+                if (outcome.complete(false)) {
+                    record(namespace, attempt, "timeout", System.nanoTime() - startedAt);
+                }
+            }, timeout.toMillis(), TimeUnit.MILLISECONDS);
+            boolean loaded = false;
+            try {
+                loaded = flagService.refreshFlagCache(namespace);
+            } catch (RuntimeException e) {
+                log.error("Warm-up of namespace {} failed", namespace, e);
+            } finally {
+                timer.cancel(false);
+                // A late result still counts for readiness, but the round has moved on
+                if (outcome.complete(loaded) || loaded) {
+                    record(namespace, attempt, loaded ? "loaded" : "failed", System.nanoTime() - startedAt);
+                }
+            }
+        });
+        return outcome;
+    }
+
+    private void record(String namespace, int attempt, String result, long durationNanos) {
+        long durationMillis = TimeUnit.NANOSECONDS.toMillis(durationNanos);
+        statuses.put(namespace, new NamespaceStatus(result, attempt, durationMillis));
+        meterRegistry.timer("flag.warmup", "namespace", namespace, "result", result)
+                .record(durationNanos, TimeUnit.NANOSECONDS);
+        log.info("Warm-up of namespace {} attempt {}: {} in {} ms", namespace, attempt, result, durationMillis);
+    }
+
+    private Thread newThread(Runnable runnable, String prefix) {
+        Thread thread = new Thread(runnable, prefix + threadCounter.incrementAndGet());
+        thread.setDaemon(true);
+        return thread;
+    }
+
+    private record NamespaceStatus(String result, int attempt, long durationMillis) {
+    }
+}
@@ -0,0 +1,635 @@
+package ibank.tech.money.transfer.service;
+
+import ibank.tech.money.transfer.exception.JournalException;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedInputStream;
+import java.util.zip.CheckedOutputStream;
+
+/**
+ * Append-only write-ahead journal of ledger postings in memory-mapped segment files.
+ * <p>
+ * Record layout (big endian): {@code int length, int crc32, long sequence, long timestamp,
+ * long amount, short fromLength, from, short toLength, to}, where length and crc cover everything
+ * after the crc. An empty {@code from} is a credit, an empty {@code to} a debit.
+ * Segments are pre-sized files named after their first sequence; a zero length marks the end of
+ * the written part.
+ * <p>
+ * Appends only copy into the mapped buffer. A single flusher thread syncs the current segment
+ * whenever a caller waits for durability (group commit: every caller that arrives while a sync is
+ * running is covered by the next one) and at least once per flush interval otherwise. A full
+ * segment is handed to the flusher as well, so rolling over never syncs on the append path.
+ * <p>
+ * Once a closed segment is synced, a background thread folds its postings into a checkpoint of all
+ * account balances ({@value #CHECKPOINT_FILE}, replaced atomically) and deletes the segment, so
+ * recovery loads the checkpoint and replays only the segments written since.
+ */
+@Component
+@Slf4j
+@ConditionalOnProperty(name = "ledger.journal.enabled", havingValue = "true", matchIfMissing = false)
+public class TransferJournal {
+
+    private static final int HEADER_SIZE = 8;
+    private static final int FIXED_BODY_SIZE = 3 * Long.BYTES + 2 * Short.BYTES;
+    private static final String SEGMENT_PREFIX = "journal-";
+    private static final String SEGMENT_SUFFIX = ".log";
+    private static final String CHECKPOINT_FILE = "checkpoint.bin";
+    private static final String CHECKPOINT_TEMP = CHECKPOINT_FILE + ".tmp";
+    private static final int CHECKPOINT_MAGIC = 0x4A434B31;
+
+    /**
+     * Receives the postings found during recovery, in journal order
+     */
+    @FunctionalInterface
+    public interface RecordHandler {
+        void apply(String fromAccountId, String toAccountId, long amount);
+    }
+
+    @FunctionalInterface
+    private interface RecordVisitor {
+        void visit(long sequence, String fromAccountId, String toAccountId, long amount);
+    }
+
+    /**
+     * A full segment waiting for the flusher to sync and close it
+     */
+    private record RetiredSegment(Path path, FileChannel channel, MappedByteBuffer buffer) {
+    }
+
+    private final Path directory;
+    private final int segmentSize;
+    private final Duration flushInterval;
+    private final Duration syncTimeout;
+
+    private final CRC32 crc = new CRC32();
+    private final Object flushMonitor = new Object();
+    private final AtomicLong syncs = new AtomicLong();
+    private final AtomicLong syncedRecords = new AtomicLong();
+    private final AtomicLong checkpoints = new AtomicLong();
+    private final Queue<RetiredSegment> retiredSegments = new ConcurrentLinkedQueue<>();
+
+    // Written by recovery, then only by the checkpoint thread
+    private final Map<String, Long> checkpointBalances = new HashMap<>();
+    private final CRC32 checkpointCrc = new CRC32();
+    private volatile long checkpointSequence;
+
+    // Guarded by this
+    private Path segmentPath;
+    private FileChannel channel;
+    private ByteBuffer writeBuffer;
+    private long nextSequence = 1;
+
+    private volatile MappedByteBuffer mapped;
+    private volatile long appendedSequence;
+    private volatile boolean running;
+
+    // Guarded by flushMonitor
+    private long syncedSequence;
+    private long requestedSequence;
+    private JournalException syncFailure;
+
+    private Thread flusher;
+    private ExecutorService checkpointer;
+
+    public TransferJournal(@Value("${ledger.journal.directory:./data/journal}") String directory,
+                           @Value("${ledger.journal.segment-size:64MB}") DataSize segmentSize,
+                           @Value("${ledger.journal.flush-interval:100ms}") Duration flushInterval,
+                           @Value("${ledger.journal.sync-timeout:5s}") Duration syncTimeout) {
+        this.directory = Paths.get(directory);
+        this.segmentSize = Math.toIntExact(segmentSize.toBytes());
+        this.flushInterval = flushInterval;
+        this.syncTimeout = syncTimeout;
+    }
+
+    /**
+     * Apply the checkpointed balances as credits and replay every complete record written after the
+     * checkpoint to the handler, then open the journal for appending.
+     * A torn or corrupt record ends the log; anything after it is discarded.
+     *
+     * @return the number of records replayed
+     */
+    public synchronized long recover(RecordHandler handler) {
+        long startedAt = System.nanoTime();
+        long replayed = 0;
+        List<Path> closedSegments = new ArrayList<>();
+        try {
+            Files.createDirectories(directory);
+            loadCheckpoint();
+            checkpointBalances.forEach((accountId, balance) -> handler.apply("", accountId, balance));
+            long skipUpTo = checkpointSequence;
+            nextSequence = skipUpTo + 1;
+            List<Path> segments = listSegments();
+            // Left over when the last checkpoint was written but its segment not yet deleted
+            while (segments.size() > 1 && firstSequenceOf(segments.get(1)) <= nextSequence) {
+                log.info("Deleting journal segment {} covered by the checkpoint", segments.get(0).getFileName());
+                Files.delete(segments.remove(0));
+            }
+            if (!segments.isEmpty() && firstSequenceOf(segments.get(0)) > nextSequence) {
+                throw new JournalException("Journal segment " + segments.get(0).getFileName()
+                        + " does not follow checkpoint sequence " + skipUpTo);
+            }
+            long expected = segments.isEmpty() ? nextSequence : firstSequenceOf(segments.get(0));
+            int position = 0;
+            Path tail = null;
+            for (int i = 0; i < segments.size(); i++) {
+                Path segment = segments.get(i);
+                int next = 0;
+                try (FileChannel readChannel = FileChannel.open(segment, StandardOpenOption.READ)) {
+                    MappedByteBuffer buffer = readChannel.map(FileChannel.MapMode.READ_ONLY, 0, readChannel.size());
+                    position = 0;
+                    while ((next = readRecord(buffer, position, expected, crc, (sequence, from, to, amount) -> {
+                        if (sequence > skipUpTo) {
+                            handler.apply(from, to, amount);
+                        }
+                    })) > 0) {
+                        position = next;
+                        if (expected++ > skipUpTo) {
+                            replayed++;
+                        }
+                    }
+                }
+                if (tail != null) {
+                    closedSegments.add(tail);
+                }
+                tail = segment;
+                boolean hasSuccessor = i + 1 < segments.size();
+                if (next < 0) {
+                    log.warn("Journal ends with a torn record in {} at position {}", segment.getFileName(), position);
+                }
+                if (hasSuccessor && (next < 0 || !segments.get(i + 1).equals(segmentPath(expected)))) {
+                    discardAfter(segments, i);
+                    break;
+                }
+            }
+            if (expected <= skipUpTo) {
+                throw new JournalException("Transfer journal ends at sequence " + (expected - 1)
+                        + " before checkpoint sequence " + skipUpTo);
+            }
+            nextSequence = expected;
+            if (tail == null) {
+                openSegment(nextSequence, 0);
+            } else {
+                openSegment(tail, position);
+            }
+        } catch (IOException e) {
+            throw new JournalException("Cannot recover transfer journal in " + directory, e);
+        }
+        appendedSequence = nextSequence - 1;
+        syncedSequence = appendedSequence;
+        requestedSequence = appendedSequence;
+        startFlusher();
+        // Segments of an earlier run that were not checkpointed before it stopped
+        closedSegments.forEach(this::scheduleCheckpoint);
+        log.info("Recovered {} journal records from {} after checkpoint sequence {} in {} ms, next sequence {}",
+                replayed, directory, checkpointSequence, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startedAt),
+                nextSequence);
+        return replayed;
+    }
+
+    /**
+     * Append one posting. Must be called while the ledger holds the locks of both accounts,
+     * so the journal order of conflicting postings matches the order they were applied in.
+     *
+     * @return the sequence of the record, to pass to {@link #awaitDurable(long)}
+     */
+    public synchronized long append(String fromAccountId, String toAccountId, long amount) {
+        if (!running) {
+            throw new JournalException("Transfer journal is not open");
+        }
+        byte[] from = fromAccountId.getBytes(StandardCharsets.UTF_8);
+        byte[] to = toAccountId.getBytes(StandardCharsets.UTF_8);
+        if (from.length > Short.MAX_VALUE || to.length > Short.MAX_VALUE) {
+            throw new JournalException("Account id too long for the journal");
+        }
+        int bodyLength = FIXED_BODY_SIZE + from.length + to.length;
+        if (writeBuffer.remaining() < HEADER_SIZE + bodyLength + HEADER_SIZE) {
+            rollSegment();
+        }
+        long sequence = nextSequence++;
+        int start = writeBuffer.position();
+        writeBuffer.position(start + HEADER_SIZE);
+        writeBuffer.putLong(sequence)
+                .putLong(System.currentTimeMillis())
+                .putLong(amount)
+                .putShort((short) from.length)
+                .put(from)
+                .putShort((short) to.length)
+                .put(to);
+        // End marker for recovery, overwritten by the next record
+        writeBuffer.putInt(start + HEADER_SIZE + bodyLength, 0);
+        crc.reset();
+        crc.update(writeBuffer.duplicate().position(start + HEADER_SIZE).limit(start + HEADER_SIZE + bodyLength));
+        writeBuffer.putInt(start + Integer.BYTES, (int) crc.getValue());
+        // Length last, so a record is only visible to recovery once it is complete
+        writeBuffer.putInt(start, bodyLength);
+        appendedSequence = sequence;
+        return sequence;
+    }
+
+    /**
+     * Block until the record with the given sequence is synced to disk
+     *
+     * @throws JournalException if the sync failed or did not finish within the sync timeout
+     */
+    public void awaitDurable(long sequence) {
+        long deadline = System.nanoTime() + syncTimeout.toNanos();
+        synchronized (flushMonitor) {
+            if (sequence > requestedSequence) {
+                requestedSequence = sequence;
+                flushMonitor.notifyAll();
+            }
+            while (syncedSequence < sequence) {
+                if (syncFailure != null) {
+                    throw syncFailure;
+                }
+                long remaining = deadline - System.nanoTime();
+                if (remaining <= 0) {
+                    throw new JournalException("Timed out waiting for journal sync of record " + sequence);
+                }
+                try {
+                    TimeUnit.NANOSECONDS.timedWait(flushMonitor, remaining);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new JournalException("Interrupted waiting for journal sync of record " + sequence, e);
+                }
+            }
+        }
+    }
+
+    /**
+     * Number of syncs, the average number of records each sync covered, and the checkpoint position
+     */
+    public Map<String, Object> getStats() {
+        long syncCount = syncs.get();
+        return Map.of(
+                "appendedSequence", appendedSequence,
+                "syncs", syncCount,
+                "recordsPerSync", syncCount == 0 ? 0.0 : (double) syncedRecords.get() / syncCount,
+                "checkpointSequence", checkpointSequence,
+                "checkpoints", checkpoints.get());
+    }
+
+    @PreDestroy
+    public void close() throws InterruptedException {
+        if (!running) {
+            return;
+        }
+        running = false;
+        synchronized (flushMonitor) {
+            flushMonitor.notifyAll();
+        }
+        flusher.join(TimeUnit.SECONDS.toMillis(5));
+        synchronized (this) {
+            forceRetiredSegments();
+            force(mapped);
+            try {
+                channel.close();
+            } catch (IOException e) {
+                log.warn("Error closing transfer journal: {}", e.getMessage());
+            }
+        }
+        checkpointer.shutdown();
+        if (!checkpointer.awaitTermination(5, TimeUnit.SECONDS)) {
+            log.warn("Journal checkpoint still running on shutdown, its segments are replayed on the next start");
+        }
+    }
+
+    private void startFlusher() {
+        running = true;
+        checkpointer = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "transfer-journal-checkpoint");
+            thread.setDaemon(true);
+            return thread;
+        });
+        flusher = new Thread(this::flushLoop, "transfer-journal-flusher");
+        flusher.setDaemon(true);
+        flusher.start();
+    }
+
+    private void flushLoop() {
+        long intervalNanos = flushInterval.toNanos();
+        while (running) {
+            synchronized (flushMonitor) {
+                // Woken early by awaitDurable; otherwise acknowledged records are synced once per interval,
+                // and a failed sync is retried once per interval instead of in a busy loop
+                if (requestedSequence <= syncedSequence || syncFailure != null) {
+                    try {
+                        TimeUnit.NANOSECONDS.timedWait(flushMonitor, intervalNanos);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        return;
+                    }
+                }
+            }
+            sync();
+        }
+    }
+
+    private void sync() {
+        // Read the sequence, then the segment, then the retired segments: a record up to the target is
+        // either in the segment read here or in one retired before it was replaced
+        long target = appendedSequence;
+        MappedByteBuffer current = mapped;
+        long previous;
+        synchronized (flushMonitor) {
+            previous = syncedSequence;
+        }
+        try {
+            forceRetiredSegments();
+            if (target <= previous) {
+                return;
+            }
+            force(current);
+            syncs.incrementAndGet();
+            syncedRecords.addAndGet(target - previous);
+            synchronized (flushMonitor) {
+                syncedSequence = target;
+                syncFailure = null;
+                flushMonitor.notifyAll();
+            }
+        } catch (RuntimeException e) {
+            log.error("Transfer journal sync failed: {}", e.getMessage());
+            synchronized (flushMonitor) {
+                syncFailure = new JournalException("Transfer journal sync failed", e);
+                flushMonitor.notifyAll();
+            }
+        }
+    }
+
+    /**
+     * Write the dirty pages of a mapped segment to disk
+     */
+    void force(MappedByteBuffer buffer) {
+        buffer.force();
+    }
+
+    /**
+     * Leave the full segment to the flusher and continue in a new one
+     */
+    private void rollSegment() {
+        retiredSegments.add(new RetiredSegment(segmentPath, channel, mapped));
+        try {
+            openSegment(nextSequence, 0);
+        } catch (IOException e) {
+            throw new JournalException("Cannot roll transfer journal segment", e);
+        }
+    }
+
+    /**
+     * Sync and close the retired segments in order, then have them checkpointed. A segment whose sync
+     * fails stays queued, so nothing after it is checkpointed out of order.
+     */
+    private void forceRetiredSegments() {
+        RetiredSegment segment;
+        while ((segment = retiredSegments.peek()) != null) {
+            force(segment.buffer());
+            retiredSegments.poll();
+            try {
+                segment.channel().close();
+            } catch (IOException e) {
+                log.warn("Error closing journal segment {}: {}", segment.path().getFileName(), e.getMessage());
+            }
+            scheduleCheckpoint(segment.path());
+        }
+    }
+
+    private void scheduleCheckpoint(Path segment) {
+        try {
+            checkpointer.execute(() -> checkpoint(segment));
+        } catch (RejectedExecutionException e) {
+            log.debug("Not checkpointing {} during shutdown", segment.getFileName());
+        }
+    }
+
+    /**
+     * Fold the postings of a synced, closed segment into the checkpoint and delete the segment.
+     * On failure the segment is kept and replayed on the next start.
+     */
+    private void checkpoint(Path segment) {
+        long startedAt = System.nanoTime();
+        long firstSequence = firstSequenceOf(segment);
+        if (firstSequence > checkpointSequence + 1) {
+            log.warn("Not checkpointing journal segment {}: records after checkpoint sequence {} are missing",
+                    segment.getFileName(), checkpointSequence);
+            return;
+        }
+        try {
+            long skipUpTo = checkpointSequence;
+            Map<String, Long> changes = new HashMap<>();
+            long expected = firstSequence;
+            int position = 0;
+            int next;
+            try (FileChannel readChannel = FileChannel.open(segment, StandardOpenOption.READ)) {
+                MappedByteBuffer buffer = readChannel.map(FileChannel.MapMode.READ_ONLY, 0, readChannel.size());
+                while ((next = readRecord(buffer, position, expected, checkpointCrc, (sequence, from, to, amount) -> {
+                    if (sequence > skipUpTo) {
+                        if (!from.isEmpty()) {
+                            changes.merge(from, -amount, Long::sum);
+                        }
+                        if (!to.isEmpty()) {
+                            changes.merge(to, amount, Long::sum);
+                        }
+                    }
+                })) > 0) {
+                    position = next;
+                    expected++;
+                }
+            }
+            if (next < 0) {
+                log.error("Not checkpointing journal segment {}: corrupt record at position {}",
+                        segment.getFileName(), position);
+                return;
+            }
+            if (expected - 1 > skipUpTo) {
+                changes.forEach((accountId, change) -> checkpointBalances.merge(accountId, change, Long::sum));
+                checkpointSequence = expected - 1;
+                writeCheckpoint();
+                checkpoints.incrementAndGet();
+            }
+            Files.delete(segment);
+            log.debug("Checkpointed journal segment {} up to sequence {} in {} ms", segment.getFileName(),
+                    checkpointSequence, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startedAt));
+        } catch (IOException | RuntimeException e) {
+            log.error("Journal checkpoint of {} failed, the segment is kept: {}", segment.getFileName(), e.getMessage());
+        }
+    }
+
+    /**
+     * Layout (big endian): {@code int magic, long sequence, int count, count * (utf account, long balance),
+     * int crc32} of everything before the crc
+     */
+    private void writeCheckpoint() throws IOException {
+        Path temp = directory.resolve(CHECKPOINT_TEMP);
+        checkpointCrc.reset();
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(
+                new CheckedOutputStream(Files.newOutputStream(temp), checkpointCrc)))) {
+            out.writeInt(CHECKPOINT_MAGIC);
+            out.writeLong(checkpointSequence);
+            out.writeInt(checkpointBalances.size());
+            for (Map.Entry<String, Long> entry : checkpointBalances.entrySet()) {
+                out.writeUTF(entry.getKey());
+                out.writeLong(entry.getValue());
+            }
+            // Push the buffered bytes through the checksum before reading it
+            out.flush();
+            out.writeInt((int) checkpointCrc.getValue());
+        }
+        try (FileChannel tempChannel = FileChannel.open(temp, StandardOpenOption.WRITE)) {
+            tempChannel.force(true);
+        }
+        Files.move(temp, directory.resolve(CHECKPOINT_FILE), StandardCopyOption.ATOMIC_MOVE,
+                StandardCopyOption.REPLACE_EXISTING);
+        try (FileChannel directoryChannel = FileChannel.open(directory, StandardOpenOption.READ)) {
+            directoryChannel.force(true);
+        } catch (IOException e) {
+            // Not every platform can open a directory
+            log.trace("Cannot sync directory {}: {}", directory, e.getMessage());
+        }
+    }
+
+    private void loadCheckpoint() throws IOException {
+        Path file = directory.resolve(CHECKPOINT_FILE);
+        if (!Files.exists(file)) {
+            return;
+        }
+        CRC32 fileCrc = new CRC32();
+        try (CheckedInputStream checked = new CheckedInputStream(new BufferedInputStream(Files.newInputStream(file)), fileCrc);
+             DataInputStream in = new DataInputStream(checked)) {
+            if (in.readInt() != CHECKPOINT_MAGIC) {
+                throw new JournalException("Not a journal checkpoint: " + file);
+            }
+            long sequence = in.readLong();
+            int count = in.readInt();
+            Map<String, Long> balances = new HashMap<>();
+            for (int i = 0; i < count; i++) {
+                balances.put(in.readUTF(), in.readLong());
+            }
+            long computed = fileCrc.getValue();
+            if ((int) computed != in.readInt()) {
+                // The segments it replaced are gone, so the ledger cannot be rebuilt without it
+                throw new JournalException("Corrupt journal checkpoint: " + file);
+            }
+            checkpointBalances.putAll(balances);
+            checkpointSequence = sequence;
+        }
+    }
+
+    private void openSegment(long firstSequence, int position) throws IOException {
+        openSegment(segmentPath(firstSequence), position);
+    }
+
+    private void openSegment(Path segment, int position) throws IOException {
+        segmentPath = segment;
+        channel = FileChannel.open(segment, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, segmentSize);
+        writeBuffer = buffer.duplicate().position(position);
+        // Clear a possibly torn record so recovery stops exactly here
+        if (position + HEADER_SIZE <= segmentSize) {
+            writeBuffer.putInt(position, 0);
+        }
+        mapped = buffer;
+        log.debug("Opened journal segment {} at position {}", segment.getFileName(), position);
+    }
+
+    /**
+     * Decode the record at a position and pass it to the visitor if it carries the expected sequence
+     *
+     * @return the position after the record, 0 at a clean end of the segment, -1 for a corrupt record
+     */
+    private static int readRecord(MappedByteBuffer buffer, int position, long expectedSequence, CRC32 crc,
+                                  RecordVisitor visitor) {
+        if (position + HEADER_SIZE > buffer.capacity()) {
+            return 0;
+        }
+        int length = buffer.getInt(position);
+        if (length == 0) {
+            return 0;
+        }
+        if (length < FIXED_BODY_SIZE || position + HEADER_SIZE + length > buffer.capacity()) {
+            return -1;
+        }
+        ByteBuffer body = buffer.duplicate().position(position + HEADER_SIZE).limit(position + HEADER_SIZE + length);
+        crc.reset();
+        crc.update(body.duplicate());
+        if ((int) crc.getValue() != buffer.getInt(position + Integer.BYTES)) {
+            return -1;
+        }
+        long sequence = body.getLong();
+        if (sequence != expectedSequence) {
+            // Stale bytes of an earlier run past the real end of the log
+            return 0;
+        }
+        body.getLong();
+        long amount = body.getLong();
+        String from = readString(body);
+        String to = readString(body);
+        visitor.visit(sequence, from, to, amount);
+        return position + HEADER_SIZE + length;
+    }
+
+    private static String readString(ByteBuffer body) {
+        byte[] bytes = new byte[body.getShort()];
+        body.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private Path segmentPath(long firstSequence) {
+        return directory.resolve(String.format("%s%020d%s", SEGMENT_PREFIX, firstSequence, SEGMENT_SUFFIX));
+    }
+
+    private static long firstSequenceOf(Path segment) {
+        String name = segment.getFileName().toString();
+        return Long.parseLong(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length()));
+    }
+
+    private void discardAfter(List<Path> segments, int index) throws IOException {
+        for (int i = index + 1; i < segments.size(); i++) {
+            log.warn("Discarding journal segment {} after the end of the log", segments.get(i).getFileName());
+            Files.delete(segments.get(i));
+        }
+    }
+
+    private List<Path> listSegments() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            List<Path> segments = new ArrayList<>();
+            files.filter(path -> {
+                String name = path.getFileName().toString();
+                return name.startsWith(SEGMENT_PREFIX) && name.endsWith(SEGMENT_SUFFIX);
+            }).sorted().forEach(segments::add);
+            return segments;
+        }
+    }
+}
@@ -1,13 +1,19 @@
 package ibank.tech.money.transfer.service;
 
 import ibank.tech.feature.flag.aop.FeatureFlag;
-import ibank.tech.feature.flag.dto.FlagResponse;
 import ibank.tech.feature.flag.service.FeatureFlagService;
+import ibank.tech.money.transfer.dto.DurabilityMode;
+import ibank.tech.money.transfer.dto.TransferReceipt;
 import ibank.tech.money.transfer.dto.TransferRequest;
-import java.util.List;
+import ibank.tech.money.transfer.exception.InvalidTransferException;
+import ibank.tech.money.transfer.exception.JournalException;
+import java.math.BigDecimal;
+import java.util.Map;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
+import org.springframework.web.context.request.RequestContextHolder;
 
 @Service
 @RequiredArgsConstructor
@@ -15,18 +21,103 @@ import org.springframework.stereotype.Service;
 public class TransferService {
 
   private final FeatureFlagService featureFlagService;
+  private final LocalFlagEvaluator localFlagEvaluator;
+  private final CompiledFlagEvaluator compiledFlagEvaluator;
+  private final AccountLedger accountLedger;
+  private final FlagEvaluationContext flagEvaluationContext;
 
+  @Value("${ledger.journal.default-durability:durable}")
+  private DurabilityMode defaultDurability = DurabilityMode.DURABLE;
+
+  /**
+   * Apply a domestic transfer and, in durable mode, wait for its journal sync.
+   * A failed or timed-out sync does not undo the transfer; the receipt reports it as unconfirmed.
+   */
   @FeatureFlag(key = "transfer-domestic", namespace = "bep")
-  public String transferDomestic(TransferRequest transferRequest) {
-    return "Transferred " + transferRequest.getAmount();
+  public TransferReceipt transferDomestic(TransferRequest transferRequest) {
+    long sequence = postDomestic(transferRequest);
+    String message = "Transferred " + transferRequest.getAmount();
+    if (durabilityOf(transferRequest) == DurabilityMode.DURABLE) {
+      try {
+        accountLedger.awaitDurable(sequence);
+      } catch (JournalException e) {
+        log.error("Transfer {} applied but its journal sync is unconfirmed: {}", sequence, e.getMessage());
+        return new TransferReceipt(message + ", durability unconfirmed", sequence, true);
+      }
+    }
+    return new TransferReceipt(message, sequence, false);
+  }
+
+  /**
+   * The transfer-domestic flag for a whole batch, evaluated once instead of per item
+   */
+  public boolean isDomesticTransferEnabled(String entityId) {
+    return isEnabled("bep", "transfer-domestic", entityId, Map.of());
+  }
+
+  /**
+   * Post a domestic transfer to the ledger without the flag check or the durability wait,
+   * for batch callers that check the flag once and share one journal sync across items
+   *
+   * @return the journal sequence to pass to {@link #awaitDurable(long)}
+   */
+  public long postDomestic(TransferRequest transferRequest) {
+    return accountLedger.transfer(transferRequest.getFrom(), transferRequest.getTo(),
+      toMinorUnits(transferRequest.getAmount()));
+  }
+
+  public DurabilityMode durabilityOf(TransferRequest transferRequest) {
+    return transferRequest.getDurability() != null ? transferRequest.getDurability() : defaultDurability;
+  }
+
+  public void awaitDurable(long sequence) {
+    accountLedger.awaitDurable(sequence);
   }
 
 //  @FeatureFlag(key = "transfer-international", namespace = "bep")
   public String transferInternational(TransferRequest transferRequest) {
-    boolean test = featureFlagService.isEnabled("bep", "bep-ff-1", transferRequest.getUserId());
+    boolean test = isEnabled("bep", "bep-ff-1", transferRequest);
     log.info("test: {}", test);
-    List<FlagResponse> flagResponses = featureFlagService.getFlagsByNamespace("bep");
-    log.info("flagResponses: {}", flagResponses);
     return "Transferred " + transferRequest.getAmount();
   }
+
+  /**
+   * Evaluate against the local snapshot; only call Flipt while the namespace is not loaded yet.
+   * The entity is always the user of the transfer, in or outside a request, so a user lands in
+   * the same rollout bucket either way.
+   */
+  private boolean isEnabled(String namespace, String flagKey, TransferRequest transferRequest) {
+    // Within a request, each flag is evaluated once and memoized for the request
+    if (RequestContextHolder.getRequestAttributes() != null) {
+      return flagEvaluationContext.isEnabled(namespace, flagKey, transferRequest);
+    }
+    Boolean local = compiledFlagEvaluator.evaluate(namespace, flagKey, transferRequest.getUserId(), transferRequest);
+    if (local != null) {
+      return local;
+    }
+    return featureFlagService.isEnabled(namespace, flagKey, transferRequest.getUserId());
+  }
+
+  private boolean isEnabled(String namespace, String flagKey, String entityId, Map<String, String> context) {
+    Boolean local = localFlagEvaluator.evaluate(namespace, flagKey, entityId, context);
+    if (local != null) {
+      return local;
+    }
+    return featureFlagService.isEnabled(namespace, flagKey, entityId);
+  }
+
+  /**
+   * Exact conversion of the request amount to ledger minor units; amounts with more decimals
+   * than the minor unit are rejected rather than rounded
+   */
+  private static long toMinorUnits(double amount) {
+    if (!Double.isFinite(amount)) {
+      throw new InvalidTransferException("Invalid amount: " + amount);
+    }
+    try {
+      return BigDecimal.valueOf(amount).movePointRight(AccountLedger.MINOR_UNIT_SCALE).longValueExact();
+    } catch (ArithmeticException e) {
+      throw new InvalidTransferException("Invalid amount: " + amount, e);
+    }
+  }
 }
@@ -1,15 +1,40 @@
 package ibank.tech.money.transfer.service;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import ibank.tech.money.transfer.dto.FliptGenericUpdateEvent;
+import ibank.tech.money.transfer.dto.FliptUpdateBatch;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
 import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.messaging.support.MessageBuilder;
 import org.springframework.stereotype.Service;
+import org.springframework.util.MimeTypeUtils;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * Simple WebSocket broadcast service for Flipt updates
+ * <p>
+ * In "immediate" mode every event is sent as its own frame. In "batched" mode events are
+ * buffered per topic for one window, repeated updates of the same entity are conflated to the
+ * latest one, and each window is sent as a single {@link FliptUpdateBatch} frame.
  */
 @Service
 @RequiredArgsConstructor
@@ -20,6 +45,41 @@ public class WebSocketBroadcastService {
     private final SimpMessagingTemplate messagingTemplate;
     private final ObjectMapper objectMapper;
 
+    @Value("${websocket.broadcast.mode:immediate}")
+    private String broadcastMode;
+
+    @Value("${websocket.broadcast.window:100ms}")
+    private Duration batchWindow;
+
+    private final Map<String, TopicBuffer> topicBuffers = new ConcurrentHashMap<>();
+    private final AtomicLong framesSent = new AtomicLong();
+    private final AtomicLong eventsCoalesced = new AtomicLong();
+    private final AtomicLong anonymousEntities = new AtomicLong();
+
+    private ScheduledExecutorService batchFlusher;
+
+    @PostConstruct
+    public void start() {
+        if (isBatched()) {
+            batchFlusher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "websocket-batch-flusher");
+                thread.setDaemon(true);
+                return thread;
+            });
+            long windowMillis = batchWindow.toMillis();
+            batchFlusher.scheduleAtFixedRate(this::flushBatches, windowMillis, windowMillis, TimeUnit.MILLISECONDS);
+            log.info("WebSocket broadcast running in batched mode with a {} ms window", windowMillis);
+        }
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (batchFlusher != null) {
+            batchFlusher.shutdown();
+            flushBatches();
+        }
+    }
+
     /**
      * Broadcast Flipt update to all connected WebSocket clients
      */
@@ -34,13 +94,31 @@ public class WebSocketBroadcastService {
             log.info("Determined entity type: {}", entityType);
             log.info("Broadcasting to topics: /topic/{} and /topic/{}/{}", entityType, entityType, namespace);
 
+            String entityTopic = "/topic/" + entityType;
+            String namespaceTopic = "/topic/" + entityType + "/" + namespace;
+
+            if (isBatched()) {
+                String entityKey = getEntityKey(event);
+                boolean replacedInEntityTopic = buffer(entityTopic, entityKey, event);
+                boolean replacedInNamespaceTopic = buffer(namespaceTopic, entityKey, event);
+                // Count an event once, not once per topic it is buffered in
+                if (replacedInEntityTopic || replacedInNamespaceTopic) {
+                    eventsCoalesced.incrementAndGet();
+                }
+                return;
+            }
+
+            // Serialize once; both topics and every subscriber session share the same payload
+            Message<byte[]> message = encode(event);
+
             // Broadcast to all clients subscribed to /topic/{entityType}
-            messagingTemplate.convertAndSend("/topic/" + entityType, event);
+            messagingTemplate.send(entityTopic, message);
             log.info("Sent to /topic/{}", entityType);
 
             // Broadcast to namespace-specific topic
-            messagingTemplate.convertAndSend("/topic/" + entityType + "/" + namespace, event);
+            messagingTemplate.send(namespaceTopic, message);
             log.info("Sent to /topic/{}/{}", entityType, namespace);
+            framesSent.addAndGet(2);
 
             log.info("=== WEBSOCKET BROADCAST COMPLETED ===");
             log.info("Broadcasted {} update to WebSocket clients: namespace={}, action={}",
@@ -51,6 +129,15 @@ public class WebSocketBroadcastService {
         }
     }
 
+    /**
+     * Broadcast counters: frames sent and events merged into a later update of the same entity
+     */
+    public Map<String, Long> getBroadcastStats() {
+        return Map.of(
+                "framesSent", framesSent.get(),
+                "eventsCoalesced", eventsCoalesced.get());
+    }
+
     /**
      * Broadcast generic message to all clients
      */
@@ -75,6 +162,86 @@ public class WebSocketBroadcastService {
         }
     }
 
+    private boolean isBatched() {
+        return "batched".equalsIgnoreCase(broadcastMode);
+    }
+
+    /**
+     * Encode a payload to JSON once and wrap it in a message with immutable headers.
+     * The template copies only the headers per destination; the simple broker hands the same
+     * byte array to every subscriber session.
+     */
+    private Message<byte[]> encode(Object payload) throws JsonProcessingException {
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.create(SimpMessageType.MESSAGE);
+        accessor.setContentType(MimeTypeUtils.APPLICATION_JSON);
+        Message<byte[]> message = MessageBuilder.createMessage(objectMapper.writeValueAsBytes(payload),
+                accessor.getMessageHeaders());
+        accessor.setImmutable();
+        return message;
+    }
+
+    /**
+     * @return true if the event replaced a pending one for the same entity
+     */
+    private boolean buffer(String topic, String entityKey, FliptGenericUpdateEvent event) {
+        TopicBuffer buffer = topicBuffers.computeIfAbsent(topic, key -> new TopicBuffer());
+        synchronized (buffer) {
+            // Re-insert so the batch keeps the order of the latest updates
+            boolean replaced = buffer.latestByEntity.remove(entityKey) != null;
+            buffer.latestByEntity.put(entityKey, event);
+            return replaced;
+        }
+    }
+
+    private void flushBatches() {
+        topicBuffers.forEach((topic, buffer) -> {
+            List<FliptGenericUpdateEvent> events;
+            synchronized (buffer) {
+                if (buffer.latestByEntity.isEmpty()) {
+                    return;
+                }
+                events = new ArrayList<>(buffer.latestByEntity.values());
+                buffer.latestByEntity.clear();
+            }
+            try {
+                messagingTemplate.send(topic,
+                        encode(new FliptUpdateBatch("batch", batchWindow.toMillis(), events.size(), events)));
+                framesSent.incrementAndGet();
+                log.debug("Sent batch of {} events to {}", events.size(), topic);
+            } catch (Exception e) {
+                log.error("Error broadcasting batch to topic: {}", topic, e);
+            }
+        });
+    }
+
+    /**
+     * Key of the entity an event updates; events without one are never conflated
+     */
+    private String getEntityKey(FliptGenericUpdateEvent event) {
+        String key;
+        switch (event.getEntityType()) {
+            case FLAG:
+                key = event.getFlagKey();
+                break;
+            case SEGMENT:
+                key = event.getSegmentKey();
+                break;
+            case CONSTRAINT:
+                key = event.getConstraintId();
+                break;
+            default:
+                key = null;
+        }
+        if (key == null) {
+            return "#" + anonymousEntities.incrementAndGet();
+        }
+        return event.getType() + ":" + event.getNamespace() + ":" + key;
+    }
+
+    private static final class TopicBuffer {
+        private final Map<String, FliptGenericUpdateEvent> latestByEntity = new LinkedHashMap<>();
+    }
+
     /**
      * Extract entity type from event type field
      */
@@ -0,0 +1,131 @@
+package ibank.tech.money.transfer.service;
+
+import ibank.tech.money.transfer.config.BoundedSendSessionDecorator;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.socket.WebSocketSession;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Wraps every /ws session in a {@link BoundedSendSessionDecorator} and tracks per-session lag.
+ * <p>
+ * Sessions with frames pending are drained on a fixed number of sender threads
+ * ({@code websocket.session.sender-threads}), one drain at a time per session, so the thread count
+ * does not grow with the number of clients. Drains wait in the pool's queue while all threads are
+ * busy; the queue holds at most one drain per session. A stalled client holds a thread only until
+ * the watchdog closes its session, once its current send has been blocked longer than the send
+ * timeout, and the sessions queued behind it apply their overflow policy meanwhile.
+ */
+@Service
+@Slf4j
+public class WebSocketSessionMonitor {
+
+    @Value("${websocket.session.overflow-policy:drop-oldest}")
+    private String overflowPolicy;
+
+    @Value("${websocket.session.queue-capacity:256}")
+    private int queueCapacity;
+
+    @Value("${websocket.session.buffer-size-limit:512KB}")
+    private DataSize bufferSizeLimit;
+
+    @Value("${websocket.session.send-timeout:10s}")
+    private Duration sendTimeout;
+
+    @Value("${websocket.session.sender-threads:16}")
+    private int senderThreads;
+
+    private final Map<String, BoundedSendSessionDecorator> sessions = new ConcurrentHashMap<>();
+    private final AtomicLong disconnectedSlowSessions = new AtomicLong();
+
+    private ThreadPoolExecutor senderExecutor;
+    private ScheduledExecutorService watchdog;
+
+    @PostConstruct
+    public void start() {
+        AtomicLong threadCounter = new AtomicLong();
+        senderExecutor = new ThreadPoolExecutor(senderThreads, senderThreads, 60, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(), runnable -> {
+                    Thread thread = new Thread(runnable, "websocket-sender-" + threadCounter.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        senderExecutor.allowCoreThreadTimeOut(true);
+        watchdog = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "websocket-send-watchdog");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long checkMillis = Math.max(100, sendTimeout.toMillis() / 4);
+        watchdog.scheduleWithFixedDelay(this::closeTimedOutSessions, checkMillis, checkMillis, TimeUnit.MILLISECONDS);
+        log.info("WebSocket sessions use overflow policy {}, queue capacity {}, buffer limit {}, send timeout {}, "
+                + "{} sender threads", getOverflowPolicy(), queueCapacity, bufferSizeLimit, sendTimeout, senderThreads);
+    }
+
+    @PreDestroy
+    public void stop() {
+        watchdog.shutdownNow();
+        senderExecutor.shutdownNow();
+    }
+
+    public WebSocketSession decorate(WebSocketSession session) {
+        BoundedSendSessionDecorator decorated = new BoundedSendSessionDecorator(session, senderExecutor,
+                getOverflowPolicy(), queueCapacity, bufferSizeLimit.toBytes(), sendTimeout.toNanos());
+        sessions.put(session.getId(), decorated);
+        return decorated;
+    }
+
+    public void remove(String sessionId) {
+        sessions.remove(sessionId);
+    }
+
+    /**
+     * Lag metrics for every connected session
+     */
+    public Map<String, Map<String, Object>> getSessionStats() {
+        Map<String, Map<String, Object>> stats = new LinkedHashMap<>();
+        sessions.forEach((sessionId, session) -> stats.put(sessionId, session.getStats()));
+        return stats;
+    }
+
+    public long getDisconnectedSlowSessions() {
+        return disconnectedSlowSessions.get();
+    }
+
+    /**
+     * Sender threads busy and session drains waiting for one
+     */
+    public Map<String, Integer> getSenderStats() {
+        return Map.of(
+                "activeSenders", senderExecutor.getActiveCount(),
+                "queuedDrains", senderExecutor.getQueue().size());
+    }
+
+    private void closeTimedOutSessions() {
+        sessions.values().forEach(session -> {
+            if (session.isSendTimedOut()) {
+                disconnectedSlowSessions.incrementAndGet();
+                session.disconnect("send blocked longer than " + sendTimeout);
+                sessions.remove(session.getId());
+            }
+        });
+    }
+
+    private BoundedSendSessionDecorator.OverflowPolicy getOverflowPolicy() {
+        return BoundedSendSessionDecorator.OverflowPolicy.valueOf(overflowPolicy.trim().toUpperCase().replace('-', '_'));
+    }
+}
@@ -0,0 +1,198 @@
+package ibank.tech.money.transfer.service;
+
+import ibank.tech.money.transfer.exception.InsufficientFundsException;
+import ibank.tech.money.transfer.exception.InvalidTransferException;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.util.unit.DataSize;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Lock striping, validation and journal recovery of {@link AccountLedger}
+ */
+class AccountLedgerTest {
+
+    private static final int ACCOUNTS = 8;
+    private static final long OPENING_BALANCE = 1_000_000;
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void transfersWithinOneStripe() {
+        AccountLedger ledger = ledger(1);
+        assertThat(ledger.getStripeCount()).isEqualTo(1);
+
+        ledger.transfer("ACC-1", "ACC-2", 250);
+        ledger.transfer("ACC-2", "ACC-1", 50);
+
+        assertThat(ledger.getBalance("ACC-1")).isEqualTo(OPENING_BALANCE - 200);
+        assertThat(ledger.getBalance("ACC-2")).isEqualTo(OPENING_BALANCE + 200);
+    }
+
+    @Test
+    void transfersAcrossStripes() {
+        // Ids differing only in their last character land on neighbouring stripes
+        AccountLedger ledger = ledger(1000);
+        assertThat(ledger.getStripeCount()).isEqualTo(1024);
+
+        ledger.transfer("ACC-1", "ACC-2", 250);
+        ledger.transfer("ACC-2", "ACC-1", 50);
+
+        assertThat(ledger.getBalance("ACC-1")).isEqualTo(OPENING_BALANCE - 200);
+        assertThat(ledger.getBalance("ACC-2")).isEqualTo(OPENING_BALANCE + 200);
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {1, 2, 1024})
+    void concurrentOpposingTransfersConserveBalances(int lockStripes) throws Exception {
+        AccountLedger ledger = ledger(lockStripes);
+        int threads = 2 * ACCOUNTS;
+        int transfersPerThread = 20_000;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> futures = new ArrayList<>();
+        try {
+            // Every pair of neighbouring accounts gets one thread per direction
+            for (int i = 0; i < threads; i++) {
+                String account = "ACC-" + (i % ACCOUNTS + 1);
+                String neighbour = "ACC-" + ((i + 1) % ACCOUNTS + 1);
+                boolean forward = i < ACCOUNTS;
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    for (int n = 0; n < transfersPerThread; n++) {
+                        if (forward) {
+                            ledger.transfer(account, neighbour, 3);
+                        } else {
+                            ledger.transfer(neighbour, account, 3);
+                        }
+                    }
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> future : futures) {
+                // A deadlock shows up as a timeout here
+                future.get(30, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        // Each account sent as much to each neighbour as it received back
+        for (int i = 1; i <= ACCOUNTS; i++) {
+            assertThat(ledger.getBalance("ACC-" + i)).isEqualTo(OPENING_BALANCE);
+        }
+    }
+
+    @Test
+    void rejectsCreditThatWouldOverflow() {
+        AccountLedger ledger = ledger(16);
+        ledger.openAccount("ACC-RICH", Long.MAX_VALUE - 10);
+
+        assertThatThrownBy(() -> ledger.transfer("ACC-1", "ACC-RICH", 11))
+                .isInstanceOf(ArithmeticException.class);
+        assertThatThrownBy(() -> ledger.credit("ACC-RICH", 11))
+                .isInstanceOf(ArithmeticException.class);
+
+        assertThat(ledger.getBalance("ACC-1")).isEqualTo(OPENING_BALANCE);
+        assertThat(ledger.getBalance("ACC-RICH")).isEqualTo(Long.MAX_VALUE - 10);
+        ledger.transfer("ACC-1", "ACC-RICH", 10);
+        assertThat(ledger.getBalance("ACC-RICH")).isEqualTo(Long.MAX_VALUE);
+    }
+
+    @Test
+    void rejectsUnknownAccounts() {
+        AccountLedger ledger = ledger(16);
+
+        assertThatThrownBy(() -> ledger.transfer("ACC-1", "ACC-404", 10))
+                .isInstanceOf(InvalidTransferException.class)
+                .hasMessage("Unknown account: ACC-404");
+        assertThatThrownBy(() -> ledger.transfer("ACC-404", "ACC-1", 10))
+                .isInstanceOf(InvalidTransferException.class);
+        assertThatThrownBy(() -> ledger.debit("ACC-404", 10))
+                .isInstanceOf(InvalidTransferException.class);
+        assertThatThrownBy(() -> ledger.credit("ACC-404", 10))
+                .isInstanceOf(InvalidTransferException.class);
+
+        assertThat(ledger.getBalance("ACC-1")).isEqualTo(OPENING_BALANCE);
+        assertThat(ledger.getAccountCount()).isEqualTo(ACCOUNTS);
+    }
+
+    @Test
+    void rejectsInvalidTransfers() {
+        AccountLedger ledger = ledger(16);
+
+        assertThatThrownBy(() -> ledger.transfer("ACC-1", "ACC-1", 10))
+                .isInstanceOf(InvalidTransferException.class);
+        assertThatThrownBy(() -> ledger.transfer("ACC-1", "ACC-2", 0))
+                .isInstanceOf(InvalidTransferException.class);
+        assertThatThrownBy(() -> ledger.transfer("ACC-1", "ACC-2", OPENING_BALANCE + 1))
+                .isInstanceOf(InsufficientFundsException.class);
+        assertThat(ledger.openAccount("ACC-1", 5)).isFalse();
+
+        assertThat(ledger.getBalance("ACC-1")).isEqualTo(OPENING_BALANCE);
+        assertThat(ledger.getBalance("ACC-2")).isEqualTo(OPENING_BALANCE);
+    }
+
+    @Test
+    void rebuildsBalancesFromJournal() throws InterruptedException {
+        TransferJournal journal = journal();
+        AccountLedger ledger = new AccountLedger(16, journal);
+        ledger.recover();
+        ledger.openAccount("ACC-1", 1_000);
+        ledger.openAccount("ACC-2", 500);
+        ledger.transfer("ACC-1", "ACC-2", 300);
+        ledger.debit("ACC-2", 100);
+        ledger.awaitDurable(ledger.transfer("ACC-2", "ACC-1", 50));
+        journal.close();
+
+        TransferJournal reopenedJournal = journal();
+        AccountLedger recovered = new AccountLedger(16, reopenedJournal);
+        // Seed accounts already in the journal keep their journaled balance
+        ReflectionTestUtils.setField(recovered, "seedAccounts", Map.of("ACC-1", 1_000L, "ACC-3", 70L));
+        try {
+            recovered.recover();
+
+            assertThat(recovered.getBalance("ACC-1")).isEqualTo(750);
+            assertThat(recovered.getBalance("ACC-2")).isEqualTo(650);
+            assertThat(recovered.getBalance("ACC-3")).isEqualTo(70);
+            assertThat(recovered.getAccountCount()).isEqualTo(3);
+            assertThat(recovered.transfer("ACC-1", "ACC-3", 10)).isEqualTo(7);
+        } finally {
+            reopenedJournal.close();
+        }
+    }
+
+    /**
+     * A ledger without a journal holding ACC-1 to ACC-8
+     */
+    private static AccountLedger ledger(int lockStripes) {
+        AccountLedger ledger = new AccountLedger(lockStripes, (TransferJournal) null);
+        for (int i = 1; i <= ACCOUNTS; i++) {
+            ledger.openAccount("ACC-" + i, OPENING_BALANCE);
+        }
+        return ledger;
+    }
+
+    private TransferJournal journal() {
+        return new TransferJournal(directory.toString(), DataSize.ofKilobytes(64), Duration.ofMillis(10),
+                Duration.ofSeconds(2));
+    }
+}
@@ -0,0 +1,171 @@
+package ibank.tech.money.transfer.service;
+
+import ibank.tech.money.transfer.dto.NamespaceSnapshot;
+import ibank.tech.money.transfer.dto.SegmentDependencyIndex;
+import ibank.tech.money.transfer.dto.TransferRequest;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * {@link CompiledFlagEvaluator} must return what {@link LocalFlagEvaluator} returns for the same
+ * request given as an attribute map, so a user gets the same result on every evaluation path
+ */
+class CompiledFlagEvaluatorTest {
+
+    private static final String NAMESPACE = "bep";
+    private static final String[] ROLES = {"retail", "business", null};
+    private static final String[] REGIONS = {"eu", "uk", "us", null};
+    private static final double[] AMOUNTS = {0, 10, 10.5, 75.25, 9_999.99, 10_000, 250_000};
+
+    private final Map<String, NamespaceSnapshot.Flag> flags = new LinkedHashMap<>();
+    private final Map<String, NamespaceSnapshot.Segment> segments = new HashMap<>();
+
+    private LocalFlagEvaluator localEvaluator;
+    private CompiledFlagEvaluator compiledEvaluator;
+
+    @BeforeEach
+    void loadNamespace() {
+        segmentFlag("role-eq", NamespaceSnapshot.MatchType.ALL,
+                constraint(NamespaceSnapshot.ComparisonType.STRING, "role", "eq", "retail"));
+        segmentFlag("role-neq", NamespaceSnapshot.MatchType.ALL,
+                constraint(NamespaceSnapshot.ComparisonType.STRING, "role", "neq", "retail"));
+        segmentFlag("role-empty", NamespaceSnapshot.MatchType.ALL,
+                constraint(NamespaceSnapshot.ComparisonType.STRING, "role", "empty", null));
+        segmentFlag("region-one-of", NamespaceSnapshot.MatchType.ALL,
+                constraint(NamespaceSnapshot.ComparisonType.STRING, "region", "isoneof", "[\"eu\",\"uk\"]"));
+        segmentFlag("region-not-one-of", NamespaceSnapshot.MatchType.ALL,
+                constraint(NamespaceSnapshot.ComparisonType.STRING, "region", "isnotoneof", "[\"eu\",\"uk\"]"));
+        segmentFlag("from-prefix", NamespaceSnapshot.MatchType.ALL,
+                constraint(NamespaceSnapshot.ComparisonType.STRING, "from", "prefix", "ACC-1"));
+        segmentFlag("entity-suffix", NamespaceSnapshot.MatchType.ALL,
+                constraint(NamespaceSnapshot.ComparisonType.ENTITY_ID, "", "suffix", "7"));
+        segmentFlag("amount-gte", NamespaceSnapshot.MatchType.ALL,
+                constraint(NamespaceSnapshot.ComparisonType.NUMBER, "amount", "gte", "10000"));
+        segmentFlag("amount-lt", NamespaceSnapshot.MatchType.ALL,
+                constraint(NamespaceSnapshot.ComparisonType.NUMBER, "amount", "lt", "10.5"));
+        segmentFlag("amount-eq", NamespaceSnapshot.MatchType.ALL,
+                constraint(NamespaceSnapshot.ComparisonType.NUMBER, "amount", "eq", "75.25"));
+        segmentFlag("amount-one-of", NamespaceSnapshot.MatchType.ALL,
+                constraint(NamespaceSnapshot.ComparisonType.NUMBER, "amount", "isoneof", "[\"10\",\"75.25\"]"));
+        segmentFlag("amount-not-one-of", NamespaceSnapshot.MatchType.ALL,
+                constraint(NamespaceSnapshot.ComparisonType.NUMBER, "amount", "isnotoneof", "[10, 0]"));
+        segmentFlag("amount-present", NamespaceSnapshot.MatchType.ALL,
+                constraint(NamespaceSnapshot.ComparisonType.NUMBER, "amount", "present", null));
+        segmentFlag("role-and-region", NamespaceSnapshot.MatchType.ALL,
+                constraint(NamespaceSnapshot.ComparisonType.STRING, "role", "eq", "retail"),
+                constraint(NamespaceSnapshot.ComparisonType.STRING, "region", "eq", "eu"));
+        segmentFlag("role-or-region", NamespaceSnapshot.MatchType.ANY,
+                constraint(NamespaceSnapshot.ComparisonType.STRING, "role", "eq", "retail"),
+                constraint(NamespaceSnapshot.ComparisonType.STRING, "region", "eq", "eu"));
+        rolloutFlag("segments-or", NamespaceSnapshot.SegmentOperator.OR, "role-eq", "amount-gte");
+        rolloutFlag("segments-and", NamespaceSnapshot.SegmentOperator.AND, "role-eq", "amount-gte");
+        flags.put("threshold", new NamespaceSnapshot.Flag("threshold", "threshold", NamespaceSnapshot.FlagType.BOOLEAN,
+                false, List.of(), List.of(
+                new NamespaceSnapshot.Rollout(NamespaceSnapshot.RolloutType.SEGMENT, 1, false, 0f,
+                        NamespaceSnapshot.SegmentOperator.OR, List.of("role-eq")),
+                new NamespaceSnapshot.Rollout(NamespaceSnapshot.RolloutType.THRESHOLD, 2, true, 40f,
+                        NamespaceSnapshot.SegmentOperator.OR, List.of()))));
+
+        FlagSnapshotStore store = new FlagSnapshotStore();
+        store.replace(new NamespaceSnapshot(NAMESPACE, 0L, flags, segments,
+                SegmentDependencyIndex.build(flags.values(), segments.values()), Instant.now()));
+        localEvaluator = new LocalFlagEvaluator(store, new EvaluationResultCache(store, 1_000, new SimpleMeterRegistry()));
+        compiledEvaluator = new CompiledFlagEvaluator(store);
+    }
+
+    @Test
+    void agreesWithLocalEvaluator() {
+        int evaluations = 0;
+        for (TransferRequest request : requests()) {
+            for (String flagKey : flags.keySet()) {
+                Boolean local = localEvaluator.evaluate(NAMESPACE, flagKey, request.getUserId(), attributes(request));
+                Boolean compiled = compiledEvaluator.evaluate(NAMESPACE, flagKey, request.getUserId(), request);
+                assertThat(compiled)
+                        .as("%s for role %s, region %s, amount %s, user %s", flagKey, request.getRole(),
+                                request.getRegion(), request.getAmount(), request.getUserId())
+                        .isNotNull()
+                        .isEqualTo(local);
+                evaluations++;
+            }
+        }
+        assertThat(evaluations).isEqualTo(requests().size() * flags.size());
+    }
+
+    @Test
+    void comparesNumberListsAsNumbers() {
+        TransferRequest request = new TransferRequest(10, "ACC-1", "ACC-2", "retail", "eu", "user-1", null);
+
+        assertThat(compiledEvaluator.evaluate(NAMESPACE, "amount-one-of", "user-1", request)).isTrue();
+        assertThat(localEvaluator.evaluate(NAMESPACE, "amount-one-of", "user-1", attributes(request))).isTrue();
+    }
+
+    @Test
+    void unknownFlagIsNotEvaluatedLocally() {
+        TransferRequest request = new TransferRequest(10, "ACC-1", "ACC-2", "retail", "eu", "user-1", null);
+
+        assertThat(compiledEvaluator.evaluate(NAMESPACE, "missing", "user-1", request)).isNull();
+        assertThat(compiledEvaluator.evaluate("other", "role-eq", "user-1", request)).isNull();
+    }
+
+    private static List<TransferRequest> requests() {
+        List<TransferRequest> requests = new ArrayList<>();
+        int user = 0;
+        for (String role : ROLES) {
+            for (String region : REGIONS) {
+                for (double amount : AMOUNTS) {
+                    String from = user % 2 == 0 ? "ACC-1" + user : "ACC-2" + user;
+                    requests.add(new TransferRequest(amount, from, "ACC-9", role, region, "user-" + user, null));
+                    user++;
+                }
+            }
+        }
+        return requests;
+    }
+
+    /**
+     * The request fields as the attribute map of {@link LocalFlagEvaluator}
+     */
+    private static Map<String, String> attributes(TransferRequest request) {
+        Map<String, String> attributes = new HashMap<>();
+        if (request.getRole() != null) {
+            attributes.put("role", request.getRole());
+        }
+        if (request.getRegion() != null) {
+            attributes.put("region", request.getRegion());
+        }
+        attributes.put("from", request.getFrom());
+        attributes.put("to", request.getTo());
+        attributes.put("amount", Double.toString(request.getAmount()));
+        return attributes;
+    }
+
+    /**
+     * A segment and a flag of the same key, enabled by that segment
+     */
+    private void segmentFlag(String key, NamespaceSnapshot.MatchType matchType,
+                             NamespaceSnapshot.Constraint... constraints) {
+        segments.put(key, new NamespaceSnapshot.Segment(key, matchType, List.of(constraints)));
+        rolloutFlag(key, NamespaceSnapshot.SegmentOperator.OR, key);
+    }
+
+    private void rolloutFlag(String key, NamespaceSnapshot.SegmentOperator operator, String... segmentKeys) {
+        flags.put(key, new NamespaceSnapshot.Flag(key, key, NamespaceSnapshot.FlagType.BOOLEAN, false, List.of(),
+                List.of(new NamespaceSnapshot.Rollout(NamespaceSnapshot.RolloutType.SEGMENT, 1, true, 0f,
+                        operator, List.of(segmentKeys)))));
+    }
+
+    private static NamespaceSnapshot.Constraint constraint(NamespaceSnapshot.ComparisonType type, String property,
+                                                           String operator, String value) {
+        return new NamespaceSnapshot.Constraint(property + "-" + operator, type, property, operator, value);
+    }
+}
@@ -0,0 +1,115 @@
+package ibank.tech.money.transfer.service;
+
+import ibank.tech.money.transfer.dto.FliptGenericUpdateEvent;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Window, slot reuse and table-full behaviour of {@link EventDeduplicator}
+ */
+class EventDeduplicatorTest {
+
+    private static final Duration SHORT_WINDOW = Duration.ofMillis(200);
+
+    @Test
+    void suppressesSameEventWithinWindow() {
+        EventDeduplicator deduplicator = new EventDeduplicator(Duration.ofMinutes(1), 4096);
+
+        assertThat(deduplicator.isDuplicate(flagEvent("flag-1", true, "t1"))).isFalse();
+        assertThat(deduplicator.isDuplicate(flagEvent("flag-1", true, "t1"))).isTrue();
+        // Any differing field makes it another change
+        assertThat(deduplicator.isDuplicate(flagEvent("flag-1", false, "t1"))).isFalse();
+        assertThat(deduplicator.isDuplicate(flagEvent("flag-1", true, "t2"))).isFalse();
+        assertThat(deduplicator.isDuplicate(flagEvent("flag-2", true, "t1"))).isFalse();
+
+        assertThat(deduplicator.getStats()).containsEntry("checked", 5L).containsEntry("duplicates", 1L);
+    }
+
+    @Test
+    void letsEventThroughAgainAfterWindow() throws InterruptedException {
+        EventDeduplicator deduplicator = new EventDeduplicator(SHORT_WINDOW, 4096);
+        assertThat(deduplicator.isDuplicate(flagEvent("flag-1", true, "t1"))).isFalse();
+
+        Thread.sleep(SHORT_WINDOW.multipliedBy(2).toMillis());
+
+        assertThat(deduplicator.isDuplicate(flagEvent("flag-1", true, "t1"))).isFalse();
+        // The new occurrence opens a new window
+        assertThat(deduplicator.isDuplicate(flagEvent("flag-1", true, "t1"))).isTrue();
+    }
+
+    @Test
+    void letsEventsThroughWhenTableIsFull() {
+        // The smallest table: 32 slots
+        EventDeduplicator deduplicator = new EventDeduplicator(Duration.ofMinutes(1), 1);
+        int events = 100;
+
+        for (int i = 0; i < events; i++) {
+            assertThat(deduplicator.isDuplicate(flagEvent("flag-" + i, true, "t1"))).isFalse();
+        }
+        long tableFull = deduplicator.getStats().get("tableFull");
+        assertThat(tableFull).isGreaterThanOrEqualTo(events - 32);
+
+        // Stored events are still recognised; the others pass through again instead of being dropped
+        int suppressed = 0;
+        for (int i = 0; i < events; i++) {
+            if (deduplicator.isDuplicate(flagEvent("flag-" + i, true, "t1"))) {
+                suppressed++;
+            }
+        }
+        assertThat(suppressed).isEqualTo(events - tableFull);
+        assertThat(deduplicator.getStats()).containsEntry("tableFull", 2 * tableFull);
+    }
+
+    @Test
+    void reusesExpiredSlots() throws InterruptedException {
+        EventDeduplicator deduplicator = new EventDeduplicator(SHORT_WINDOW, 1);
+        for (int i = 0; i < 100; i++) {
+            deduplicator.isDuplicate(flagEvent("flag-" + i, true, "t1"));
+        }
+        long tableFull = deduplicator.getStats().get("tableFull");
+        assertThat(tableFull).isPositive();
+
+        Thread.sleep(SHORT_WINDOW.multipliedBy(2).toMillis());
+
+        // Every slot has expired, so a new event takes one instead of passing through
+        assertThat(deduplicator.isDuplicate(flagEvent("flag-new", true, "t2"))).isFalse();
+        assertThat(deduplicator.isDuplicate(flagEvent("flag-new", true, "t2"))).isTrue();
+        assertThat(deduplicator.getStats()).containsEntry("tableFull", tableFull);
+    }
+
+    @Test
+    void zeroWindowDisablesDeduplication() {
+        EventDeduplicator deduplicator = new EventDeduplicator(Duration.ZERO, 4096);
+
+        assertThat(deduplicator.isDuplicate(flagEvent("flag-1", true, "t1"))).isFalse();
+        assertThat(deduplicator.isDuplicate(flagEvent("flag-1", true, "t1"))).isFalse();
+        assertThat(deduplicator.getStats()).containsEntry("checked", 0L);
+    }
+
+    @Test
+    void neverSuppressesEventsWithoutTimestamp() {
+        EventDeduplicator deduplicator = new EventDeduplicator(Duration.ofMinutes(1), 4096);
+
+        assertThat(deduplicator.isDuplicate(flagEvent("flag-1", true, null))).isFalse();
+        assertThat(deduplicator.isDuplicate(flagEvent("flag-1", true, null))).isFalse();
+        assertThat(deduplicator.getStats()).containsEntry("duplicates", 0L);
+    }
+
+    private static FliptGenericUpdateEvent flagEvent(String flagKey, boolean enabled, String timestamp) {
+        Map<String, Object> data = new HashMap<>();
+        data.put("action", "updated");
+        data.put("namespace", "bep");
+        data.put("flag_key", flagKey);
+        data.put("enabled", enabled);
+        FliptGenericUpdateEvent event = new FliptGenericUpdateEvent();
+        event.setType("flag.update");
+        event.setTimestamp(timestamp);
+        event.setData(data);
+        return event;
+    }
+}
@@ -0,0 +1,140 @@
+package ibank.tech.money.transfer.service;
+
+import ibank.tech.money.transfer.dto.FliptGenericUpdateEvent;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+
+/**
+ * Gap, duplicate, reordering, restart and reconnect handling of {@link EventSequenceTracker}
+ */
+class EventSequenceTrackerTest {
+
+    private MultiNamespaceFeatureFlagService flagService;
+    private EventSequenceTracker tracker;
+
+    @BeforeEach
+    void createTracker() {
+        flagService = mock(MultiNamespaceFeatureFlagService.class);
+        tracker = new EventSequenceTracker(flagService);
+    }
+
+    @Test
+    void acceptsEventsInSequence() {
+        for (long sequence = 1; sequence <= 5; sequence++) {
+            assertThat(tracker.accept(event("bep", "flipt-1", sequence))).isTrue();
+        }
+        // A later start within a stream is taken as the starting point
+        assertThat(tracker.accept(event("pep", "flipt-1", 17))).isTrue();
+        assertThat(tracker.accept(event("pep", "flipt-1", 18))).isTrue();
+
+        verifyNoInteractions(flagService);
+        assertThat(tracker.getStats()).containsEntry("gaps", 0L);
+    }
+
+    @Test
+    void appliesEventAfterGapAndResyncsItsNamespace() {
+        tracker.accept(event("bep", "flipt-1", 1));
+
+        assertThat(tracker.accept(event("bep", "flipt-1", 4))).isTrue();
+        assertThat(tracker.accept(event("bep", "flipt-1", 5))).isTrue();
+
+        verify(flagService, times(1)).requestRefresh("bep");
+        assertThat(tracker.getStats()).containsEntry("gaps", 1L);
+    }
+
+    @Test
+    void skipsDuplicateWithoutResync() {
+        tracker.accept(event("bep", "flipt-1", 1));
+
+        assertThat(tracker.accept(event("bep", "flipt-1", 1))).isFalse();
+
+        verifyNoInteractions(flagService);
+        assertThat(tracker.getStats()).containsEntry("duplicates", 1L);
+    }
+
+    @Test
+    void skipsOlderEventAndResyncs() {
+        tracker.accept(event("bep", "flipt-1", 5));
+
+        assertThat(tracker.accept(event("bep", "flipt-1", 3))).isFalse();
+        // The newer sequence is kept
+        assertThat(tracker.accept(event("bep", "flipt-1", 6))).isTrue();
+
+        verify(flagService, times(1)).requestRefresh("bep");
+        assertThat(tracker.getStats()).containsEntry("outOfOrder", 1L).containsEntry("gaps", 0L);
+    }
+
+    @Test
+    void startsOverWhenPublisherRestarts() {
+        tracker.accept(event("bep", "flipt-1", 9));
+
+        assertThat(tracker.accept(event("bep", "flipt-1", 1))).isTrue();
+        assertThat(tracker.accept(event("bep", "flipt-1", 2))).isTrue();
+
+        verify(flagService, times(1)).requestRefresh("bep");
+        assertThat(tracker.getStats()).containsEntry("restarts", 1L);
+    }
+
+    @Test
+    void tracksSourcesAndNamespacesSeparately() {
+        tracker.accept(event("bep", "flipt-1", 1));
+        tracker.accept(event("bep", "flipt-2", 1));
+        tracker.accept(event("pep", "flipt-1", 1));
+
+        assertThat(tracker.accept(event("bep", "flipt-2", 2))).isTrue();
+        assertThat(tracker.accept(event("pep", "flipt-1", 2))).isTrue();
+        assertThat(tracker.accept(event("bep", "flipt-1", 2))).isTrue();
+
+        verifyNoInteractions(flagService);
+    }
+
+    @Test
+    void appliesEventsWithoutSequenceUntracked() {
+        assertThat(tracker.accept(event("bep", "flipt-1", 0))).isTrue();
+        assertThat(tracker.accept(event("bep", "flipt-1", 0))).isTrue();
+
+        verifyNoInteractions(flagService);
+        assertThat(tracker.getStats()).containsEntry("untracked", 2L);
+    }
+
+    @Test
+    void resyncsNamespaceOfDroppedEvent() {
+        tracker.onDropped(event("pep", "flipt-1", 3));
+
+        verify(flagService).requestRefresh("pep");
+        assertThat(tracker.getStats()).containsEntry("dropped", 1L);
+    }
+
+    @Test
+    void resyncsSeenNamespacesOnResubscribe() {
+        tracker.onChannelSubscribed("flipt:flags");
+        tracker.onChannelSubscribed("flipt:segments");
+        tracker.accept(event("bep", "flipt-1", 1));
+        tracker.accept(event("pep", "flipt-1", 1));
+        verify(flagService, never()).requestRefresh("bep");
+
+        tracker.onChannelSubscribed("flipt:flags");
+
+        verify(flagService).requestRefresh("bep");
+        verify(flagService).requestRefresh("pep");
+        assertThat(tracker.getStats()).containsEntry("reconnects", 1L);
+    }
+
+    private static FliptGenericUpdateEvent event(String namespace, String source, long sequence) {
+        FliptGenericUpdateEvent event = new FliptGenericUpdateEvent();
+        event.setType("flag.update");
+        event.setSource(source);
+        event.setSequence(sequence);
+        event.setData(Map.of("action", "updated", "namespace", namespace, "flag_key", "large-transfer"));
+        return event;
+    }
+}
@@ -0,0 +1,108 @@
+package ibank.tech.money.transfer.service;
+
+import ibank.tech.feature.flag.service.FeatureFlagService;
+import ibank.tech.money.transfer.dto.NamespaceSnapshot;
+import ibank.tech.money.transfer.dto.SegmentDependencyIndex;
+import ibank.tech.money.transfer.dto.TransferRequest;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+/**
+ * Per-request memoization of {@link FlagEvaluationContext} and its evaluation paths
+ */
+class FlagEvaluationContextTest {
+
+    private static final String NAMESPACE = "bep";
+
+    private FlagSnapshotStore store;
+    private CompiledFlagEvaluator compiledEvaluator;
+    private FeatureFlagService featureFlagService;
+    private FlagEvaluationContext context;
+
+    @BeforeEach
+    void createContext() {
+        NamespaceSnapshot.Segment largeAmount = new NamespaceSnapshot.Segment("large-amount",
+                NamespaceSnapshot.MatchType.ALL, List.of(new NamespaceSnapshot.Constraint("c1",
+                NamespaceSnapshot.ComparisonType.NUMBER, "amount", "isoneof", "[\"10000\"]")));
+        NamespaceSnapshot.Flag flag = new NamespaceSnapshot.Flag("large-transfer", "large-transfer",
+                NamespaceSnapshot.FlagType.BOOLEAN, false, List.of(), List.of(new NamespaceSnapshot.Rollout(
+                NamespaceSnapshot.RolloutType.SEGMENT, 1, true, 0f, NamespaceSnapshot.SegmentOperator.OR,
+                List.of("large-amount"))));
+        store = new FlagSnapshotStore();
+        store.replace(new NamespaceSnapshot(NAMESPACE, 0L, Map.of(flag.key(), flag),
+                Map.of(largeAmount.key(), largeAmount),
+                SegmentDependencyIndex.build(List.of(flag), List.of(largeAmount)), Instant.now()));
+
+        compiledEvaluator = new CompiledFlagEvaluator(store);
+        featureFlagService = mock(FeatureFlagService.class);
+        context = new FlagEvaluationContext(
+                new LocalFlagEvaluator(store, new EvaluationResultCache(store, 1_000, new SimpleMeterRegistry())),
+                compiledEvaluator, featureFlagService, new SimpleMeterRegistry());
+    }
+
+    @Test
+    void evaluatesTransferRequestsLikeOutsideRequests() {
+        TransferRequest request = new TransferRequest(10_000, "ACC-1", "ACC-2", "retail", "eu", "user-1", null);
+
+        assertThat(context.isEnabled(NAMESPACE, "large-transfer", request))
+                .isTrue()
+                .isEqualTo(compiledEvaluator.evaluate(NAMESPACE, "large-transfer", "user-1", request));
+        verifyNoInteractions(featureFlagService);
+    }
+
+    @Test
+    void memoizesPerFlagAndEntity() {
+        TransferRequest request = new TransferRequest(10_000, "ACC-1", "ACC-2", "retail", "eu", "user-1", null);
+        TransferRequest otherUser = new TransferRequest(10, "ACC-1", "ACC-2", "retail", "eu", "user-2", null);
+
+        assertThat(context.isEnabled(NAMESPACE, "large-transfer", request)).isTrue();
+        // Attributes of later lookups are not looked at again
+        request.setAmount(10);
+        assertThat(context.isEnabled(NAMESPACE, "large-transfer", request)).isTrue();
+        assertThat(context.isEnabled(NAMESPACE, "large-transfer", otherUser)).isFalse();
+
+        assertThat(context.getHits()).isEqualTo(1);
+        assertThat(context.getMisses()).isEqualTo(2);
+    }
+
+    @Test
+    void asksTheSdkOnceForFlagsNotLoadedLocally() {
+        TransferRequest request = new TransferRequest(10, "ACC-1", "ACC-2", "retail", "eu", "user-1", null);
+        when(featureFlagService.isEnabled("other", "remote-flag", "user-1")).thenReturn(true);
+
+        assertThat(context.isEnabled("other", "remote-flag", request)).isTrue();
+        assertThat(context.isEnabled("other", "remote-flag", request)).isTrue();
+
+        verify(featureFlagService, times(1)).isEnabled("other", "remote-flag", "user-1");
+    }
+
+    @Test
+    void asksTheSdkOncePerFlagAndEntity() {
+        TransferRequest request = new TransferRequest(10, "ACC-1", "ACC-2", "retail", "eu", "user-1", null);
+        TransferRequest otherUser = new TransferRequest(10, "ACC-1", "ACC-2", "retail", "eu", "user-2", null);
+
+        for (int i = 0; i < 3; i++) {
+            context.isEnabled("other", "remote-flag", request);
+            context.isEnabled("other", "second-flag", request);
+            context.isEnabled("other", "remote-flag", otherUser);
+        }
+
+        verify(featureFlagService, times(1)).isEnabled("other", "remote-flag", "user-1");
+        verify(featureFlagService, times(1)).isEnabled("other", "second-flag", "user-1");
+        verify(featureFlagService, times(1)).isEnabled("other", "remote-flag", "user-2");
+        assertThat(context.getMisses()).isEqualTo(3);
+        assertThat(context.getHits()).isEqualTo(6);
+    }
+}
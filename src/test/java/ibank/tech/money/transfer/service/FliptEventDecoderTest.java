@@ -0,0 +1,94 @@
+package ibank.tech.money.transfer.service;
+
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import ibank.tech.money.transfer.dto.FliptGenericUpdateEvent;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * {@link FliptEventDecoder} must read what data binding of {@link FliptGenericUpdateEvent} reads,
+ * and keep the data object exactly as received
+ */
+class FliptEventDecoderTest {
+
+    private static final String DATA = "{\"action\": \"updated\", \"namespace\": \"bep\", \"flag_key\": \"large-transfer\","
+            + " \"enabled\": true, \"description\": \"Überweisung – \\\"groß\\\" 💸\","
+            + " \"variants\": [{\"key\": \"on\", \"attachment\": {\"limit\": 10000}}], \"segment_key\": null}";
+    private static final String MESSAGE = "{\"type\":\"flag.update\",\"source\":\"flipt-1\","
+            + "\"timestamp\":\"2026-10-16T09:00:00Z\",\"sequence\":42,\"extra\":{\"nested\":[1,2]},"
+            + "\"data\":" + DATA + "}";
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final FliptEventDecoder decoder = new FliptEventDecoder(objectMapper);
+
+    @Test
+    void readsWhatDataBindingReads() throws IOException {
+        FliptGenericUpdateEvent decoded = decoder.decode(MESSAGE);
+        FliptGenericUpdateEvent bound = objectMapper.readValue(MESSAGE, FliptGenericUpdateEvent.class);
+
+        assertThat(decoded.getType()).isEqualTo(bound.getType()).isEqualTo("flag.update");
+        assertThat(decoded.getSource()).isEqualTo(bound.getSource()).isEqualTo("flipt-1");
+        assertThat(decoded.getTimestamp()).isEqualTo(bound.getTimestamp());
+        assertThat(decoded.getSequence()).isEqualTo(bound.getSequence()).isEqualTo(42);
+        assertThat(decoded.getAction()).isEqualTo(bound.getAction()).isEqualTo("updated");
+        assertThat(decoded.getNamespace()).isEqualTo(bound.getNamespace()).isEqualTo("bep");
+        assertThat(decoded.getFlagKey()).isEqualTo(bound.getFlagKey()).isEqualTo("large-transfer");
+        assertThat(decoded.getSegmentKey()).isEqualTo(bound.getSegmentKey()).isNull();
+        assertThat(decoded.getConstraintId()).isEqualTo(bound.getConstraintId()).isNull();
+        assertThat(decoded.getEnabled()).isEqualTo(bound.getEnabled()).isTrue();
+        assertThat(decoded.getData()).isEqualTo(bound.getData());
+    }
+
+    @Test
+    void keepsDataObjectAsReceived() throws IOException {
+        FliptGenericUpdateEvent event = decoder.decode(MESSAGE);
+
+        assertThat(event.getRawData()).isEqualTo(DATA);
+        assertThat(objectMapper.readTree(event.getDataJson())).isEqualTo(objectMapper.readTree(DATA));
+    }
+
+    @Test
+    void internsRepeatedValues() throws IOException {
+        FliptGenericUpdateEvent first = decoder.decode(MESSAGE);
+        FliptGenericUpdateEvent second = decoder.decode(MESSAGE);
+
+        assertThat(second.getType()).isSameAs(first.getType());
+        assertThat(second.getAction()).isSameAs(first.getAction());
+        assertThat(second.getNamespace()).isSameAs(first.getNamespace());
+    }
+
+    @Test
+    void toleratesMissingAndMistypedFields() throws IOException {
+        FliptGenericUpdateEvent event = decoder.decode(
+                "{\"type\":\"segment.delete\",\"sequence\":\"7\",\"timestamp\":{\"seconds\":1},\"data\":[1]}");
+
+        assertThat(event.getType()).isEqualTo("segment.delete");
+        assertThat(event.getSequence()).isZero();
+        assertThat(event.getTimestamp()).isNull();
+        assertThat(event.hasData()).isFalse();
+        assertThat(event.getNamespace()).isEqualTo("default");
+    }
+
+    @Test
+    void rejectsMessageThatIsNotAnObject() {
+        assertThatThrownBy(() -> decoder.decode("[\"flag.update\"]")).isInstanceOf(JsonParseException.class);
+        assertThatThrownBy(() -> decoder.decode("{\"type\":\"flag.update\",\"data\":{\"action\":"))
+                .isInstanceOf(IOException.class);
+    }
+
+    @Test
+    void internerReturnsEqualValuesWhenFull() {
+        // The smallest table: 32 slots
+        FliptEventDecoder.StringInterner interner = new FliptEventDecoder.StringInterner(1);
+
+        for (int i = 0; i < 200; i++) {
+            char[] chars = ("xx-namespace-" + i + "-yy").toCharArray();
+            assertThat(interner.intern(chars, 3, chars.length - 6)).isEqualTo("namespace-" + i);
+        }
+    }
+}
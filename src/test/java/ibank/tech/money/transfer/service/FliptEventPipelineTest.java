@@ -0,0 +1,169 @@
+package ibank.tech.money.transfer.service;
+
+import ibank.tech.money.transfer.dto.FliptGenericUpdateEvent;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+
+/**
+ * Per-namespace ordering, lanes, and backpressure and drop accounting of {@link FliptEventPipeline}
+ */
+class FliptEventPipelineTest {
+
+    private final Map<String, List<Long>> routed = new ConcurrentHashMap<>();
+    private final CountDownLatch blocked = new CountDownLatch(1);
+    private final CountDownLatch release = new CountDownLatch(1);
+
+    private FliptEventRouter eventRouter;
+    private FliptEventPipeline pipeline;
+
+    @BeforeEach
+    void createPipeline() {
+        eventRouter = mock(FliptEventRouter.class);
+        doAnswer(invocation -> {
+            FliptGenericUpdateEvent event = invocation.getArgument(0);
+            if ("block".equals(event.getFlagKey())) {
+                blocked.countDown();
+                release.await(5, TimeUnit.SECONDS);
+            }
+            if ("fail".equals(event.getFlagKey())) {
+                throw new IllegalStateException("Flipt unavailable");
+            }
+            routed.computeIfAbsent(event.getNamespace(), key -> new CopyOnWriteArrayList<>()).add(event.getSequence());
+            return null;
+        }).when(eventRouter).route(any());
+        pipeline = new FliptEventPipeline(eventRouter);
+        ReflectionTestUtils.setField(pipeline, "workers", 4);
+        ReflectionTestUtils.setField(pipeline, "queueCapacity", 1024);
+        ReflectionTestUtils.setField(pipeline, "offerTimeout", Duration.ofMillis(20));
+        ReflectionTestUtils.setField(pipeline, "drainBatch", 8);
+        ReflectionTestUtils.setField(pipeline, "expressWorkers", 1);
+        ReflectionTestUtils.setField(pipeline, "configuredExpressNamespaces", List.of("payments"));
+    }
+
+    @AfterEach
+    void stopPipeline() throws InterruptedException {
+        release.countDown();
+        pipeline.stop();
+    }
+
+    @Test
+    void keepsArrivalOrderPerNamespace() {
+        pipeline.start();
+        List<String> namespaces = List.of("bep", "pep", "cards", "loans", "fx", "savings");
+        int eventsPerNamespace = 500;
+
+        for (long sequence = 1; sequence <= eventsPerNamespace; sequence++) {
+            for (String namespace : namespaces) {
+                assertThat(pipeline.submit(event(namespace, "updated", "flag-" + sequence, sequence))).isTrue();
+            }
+        }
+
+        await().atMost(Duration.ofSeconds(10))
+                .until(() -> pipeline.getStats().get("processed").equals((long) namespaces.size() * eventsPerNamespace));
+        List<Long> expected = new ArrayList<>();
+        for (long sequence = 1; sequence <= eventsPerNamespace; sequence++) {
+            expected.add(sequence);
+        }
+        for (String namespace : namespaces) {
+            assertThat(routed.get(namespace)).as(namespace).containsExactlyElementsOf(expected);
+        }
+    }
+
+    @Test
+    void dropsEventWhenQueueStaysFull() throws InterruptedException {
+        ReflectionTestUtils.setField(pipeline, "queueCapacity", 2);
+        pipeline.start();
+        AtomicInteger completed = new AtomicInteger();
+
+        assertThat(pipeline.submit(event("bep", "updated", "block", 1))).isTrue();
+        assertThat(blocked.await(2, TimeUnit.SECONDS)).isTrue();
+        for (long sequence = 2; sequence <= 3; sequence++) {
+            FliptGenericUpdateEvent event = event("bep", "updated", "flag", sequence);
+            event.setOnProcessed(completed::incrementAndGet);
+            assertThat(pipeline.submit(event)).isTrue();
+        }
+        FliptGenericUpdateEvent overflow = event("bep", "updated", "flag", 4);
+        overflow.setOnProcessed(completed::incrementAndGet);
+
+        long startedAt = System.nanoTime();
+        assertThat(pipeline.submit(overflow)).isFalse();
+        // The caller waited for room before giving up
+        assertThat(System.nanoTime() - startedAt).isGreaterThanOrEqualTo(TimeUnit.MILLISECONDS.toNanos(20));
+        // Other namespaces have their own queue
+        assertThat(pipeline.submit(event("pep", "updated", "flag", 1))).isTrue();
+
+        release.countDown();
+        await().atMost(Duration.ofSeconds(2)).until(() -> pipeline.getStats().get("processed").equals(4L));
+        assertThat(routed.get("bep")).containsExactly(1L, 2L, 3L);
+        assertThat(completed).hasValue(2);
+        assertThat(pipeline.getStats())
+                .containsEntry("submitted", 4L)
+                .containsEntry("backpressured", 1L)
+                .containsEntry("dropped", 1L);
+    }
+
+    @Test
+    void toggleOvertakesBlockedBulkEvents() throws InterruptedException {
+        pipeline.start();
+        FliptGenericUpdateEvent bulk = event("bep", "updated", "block", 1);
+        FliptGenericUpdateEvent toggle = event("bep", "disabled", "kill-switch", 2);
+        FliptGenericUpdateEvent critical = event("payments", "updated", "flag", 1);
+
+        pipeline.submit(bulk);
+        assertThat(blocked.await(2, TimeUnit.SECONDS)).isTrue();
+        pipeline.submit(toggle);
+        pipeline.submit(critical);
+
+        await().atMost(Duration.ofSeconds(2)).until(() -> pipeline.getStats().get("processed").equals(2L));
+        assertThat(routed.get("bep")).containsExactly(2L);
+        assertThat(bulk.getLane()).isEqualTo(FliptEventPipeline.BULK_LANE);
+        assertThat(toggle.getLane()).isEqualTo(FliptEventPipeline.EXPRESS_LANE);
+        assertThat(critical.getLane()).isEqualTo(FliptEventPipeline.EXPRESS_LANE);
+
+        release.countDown();
+        await().atMost(Duration.ofSeconds(2)).until(() -> pipeline.getStats().get("processed").equals(3L));
+        assertThat(routed.get("bep")).containsExactly(2L, 1L);
+    }
+
+    @Test
+    void completesFailedEventsAndKeepsGoing() {
+        pipeline.start();
+        AtomicInteger completed = new AtomicInteger();
+        FliptGenericUpdateEvent failing = event("bep", "updated", "fail", 1);
+        failing.setOnProcessed(completed::incrementAndGet);
+
+        pipeline.submit(failing);
+        pipeline.submit(event("bep", "updated", "flag", 2));
+
+        await().atMost(Duration.ofSeconds(2)).until(() -> pipeline.getStats().get("processed").equals(1L));
+        assertThat(routed.get("bep")).containsExactly(2L);
+        assertThat(completed).hasValue(1);
+        assertThat(pipeline.getStats()).containsEntry("failed", 1L);
+    }
+
+    private static FliptGenericUpdateEvent event(String namespace, String action, String flagKey, long sequence) {
+        FliptGenericUpdateEvent event = new FliptGenericUpdateEvent();
+        event.setType("flag.update");
+        event.setSequence(sequence);
+        event.setData(Map.of("action", action, "namespace", namespace, "flag_key", flagKey));
+        return event;
+    }
+}
@@ -0,0 +1,83 @@
+package ibank.tech.money.transfer.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpServer;
+import ibank.tech.money.transfer.dto.NamespaceSnapshot;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.client.ResourceAccessException;
+import org.springframework.web.client.RestClient;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * HTTP timeouts of {@link FliptSnapshotClient} against a local server
+ */
+class FliptSnapshotClientTest {
+
+    private static final Duration READ_TIMEOUT = Duration.ofSeconds(2);
+
+    private final CountDownLatch release = new CountDownLatch(1);
+    private HttpServer server;
+    private FliptSnapshotClient client;
+
+    @BeforeEach
+    void startServer() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/internal/v1/evaluation/snapshot/namespace/bep", exchange -> {
+            byte[] body = "{\"namespace\":{\"key\":\"bep\"},\"flags\":[]}".getBytes(StandardCharsets.UTF_8);
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream output = exchange.getResponseBody()) {
+                output.write(body);
+            }
+        });
+        server.createContext("/internal/v1/evaluation/snapshot/namespace/hung", exchange -> {
+            try {
+                // Accept the request but never answer, like a Flipt stuck on its database
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            exchange.close();
+        });
+        server.setExecutor(Executors.newCachedThreadPool());
+        server.start();
+        client = new FliptSnapshotClient(RestClient.builder(), new ObjectMapper(),
+                "http://127.0.0.1:" + server.getAddress().getPort(), Duration.ofSeconds(1), READ_TIMEOUT);
+    }
+
+    @AfterEach
+    void stopServer() {
+        release.countDown();
+        server.stop(0);
+    }
+
+    @Test
+    void fetchesSnapshot() {
+        NamespaceSnapshot snapshot = client.fetchNamespace("bep", "token");
+
+        assertThat(snapshot.namespace()).isEqualTo("bep");
+        assertThat(snapshot.flags()).isEmpty();
+    }
+
+    @Test
+    void failsWhenFliptDoesNotAnswerWithinReadTimeout() {
+        long startedAt = System.nanoTime();
+
+        // The JDK client reports the timeout either way, depending on where the request was cancelled
+        assertThatThrownBy(() -> client.fetchNamespace("hung", "token"))
+                .isInstanceOfAny(ResourceAccessException.class, CancellationException.class);
+        assertThat(Duration.ofNanos(System.nanoTime() - startedAt)).isLessThan(READ_TIMEOUT.multipliedBy(3));
+    }
+}
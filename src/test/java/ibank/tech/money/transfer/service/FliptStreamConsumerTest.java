@@ -0,0 +1,201 @@
+package ibank.tech.money.transfer.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.testcontainers.containers.GenericContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+import org.testcontainers.utility.DockerImageName;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.awaitility.Awaitility.await;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+
+/**
+ * Acknowledgement, restart and claim behaviour of {@link FliptStreamConsumer} against a real Redis
+ */
+@Testcontainers(disabledWithoutDocker = true)
+class FliptStreamConsumerTest {
+
+    private static final String STREAM = "flipt:flags:update";
+    private static final String CONSUMER_ID = "money-transfer-0";
+    private static final String GROUP = FliptStreamConsumer.GROUP_PREFIX + CONSUMER_ID;
+
+    @Container
+    static final GenericContainer<?> redis = new GenericContainer<>(DockerImageName.parse("redis:7-alpine"))
+            .withExposedPorts(6379);
+
+    private final List<FliptStreamConsumer> consumers = new ArrayList<>();
+    private LettuceConnectionFactory connectionFactory;
+    private StringRedisTemplate redisTemplate;
+
+    @BeforeEach
+    void connect() {
+        connectionFactory = new LettuceConnectionFactory(redis.getHost(), redis.getMappedPort(6379));
+        connectionFactory.afterPropertiesSet();
+        connectionFactory.start();
+        redisTemplate = new StringRedisTemplate(connectionFactory);
+        redisTemplate.execute((RedisCallback<Void>) connection -> {
+            connection.serverCommands().flushAll();
+            return null;
+        });
+    }
+
+    @AfterEach
+    void disconnect() throws InterruptedException {
+        for (FliptStreamConsumer consumer : consumers) {
+            consumer.stop();
+        }
+        connectionFactory.destroy();
+    }
+
+    @Test
+    void requiresConsumerId() {
+        assertThatThrownBy(() -> newConsumer(completingHandler(new CopyOnWriteArrayList<>()), " ", Duration.ofMinutes(1)))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("redis.streams.consumer-id");
+    }
+
+    @Test
+    void acknowledgesProcessedEntries() {
+        List<String> received = new CopyOnWriteArrayList<>();
+        start(completingHandler(received), Duration.ofMinutes(1));
+
+        add("event-1");
+        add("event-2");
+
+        await().untilAsserted(() -> {
+            assertThat(received).containsExactly("event-1", "event-2");
+            assertThat(pendingCount()).isZero();
+        });
+    }
+
+    @Test
+    void resumesAfterLastDeliveredEntryOnRestart() throws InterruptedException {
+        List<String> beforeRestart = new CopyOnWriteArrayList<>();
+        FliptStreamConsumer consumer = start(completingHandler(beforeRestart), Duration.ofMinutes(1));
+        add("before-restart");
+        await().untilAsserted(() -> {
+            assertThat(beforeRestart).containsExactly("before-restart");
+            assertThat(pendingCount()).isZero();
+        });
+        consumer.stop();
+        consumers.remove(consumer);
+
+        add("while-down");
+        List<String> afterRestart = new CopyOnWriteArrayList<>();
+        start(completingHandler(afterRestart), Duration.ofMinutes(1));
+
+        await().untilAsserted(() -> {
+            assertThat(afterRestart).containsExactly("while-down");
+            assertThat(pendingCount()).isZero();
+        });
+    }
+
+    @Test
+    void rereadsOwnPendingEntriesOnRestart() throws InterruptedException {
+        List<String> beforeRestart = new CopyOnWriteArrayList<>();
+        FliptStreamConsumer consumer = start(recordingHandler(beforeRestart), Duration.ofMinutes(1));
+        add("unprocessed");
+        await().until(() -> beforeRestart.contains("unprocessed"));
+        consumer.stop();
+        consumers.remove(consumer);
+        assertThat(pendingCount()).isEqualTo(1);
+
+        List<String> afterRestart = new CopyOnWriteArrayList<>();
+        start(completingHandler(afterRestart), Duration.ofMinutes(1));
+
+        await().untilAsserted(() -> {
+            assertThat(afterRestart).containsExactly("unprocessed");
+            assertThat(pendingCount()).isZero();
+        });
+    }
+
+    @Test
+    void claimsEntriesPendingLongerThanMinIdle() {
+        // The first delivery never completes, as if it was lost on the way through the pipeline
+        List<String> received = new CopyOnWriteArrayList<>();
+        FliptUnifiedUpdateHandler handler = mock(FliptUnifiedUpdateHandler.class);
+        doAnswer(invocation -> {
+            received.add(invocation.getArgument(0));
+            if (received.size() > 1) {
+                invocation.<Runnable>getArgument(1).run();
+            }
+            return null;
+        }).when(handler).handleStreamMessage(anyString(), any());
+        start(handler, Duration.ofMillis(200));
+
+        add("stalled");
+
+        await().untilAsserted(() -> {
+            assertThat(received).containsExactly("stalled", "stalled");
+            assertThat(pendingCount()).isZero();
+        });
+    }
+
+    private FliptStreamConsumer start(FliptUnifiedUpdateHandler handler, Duration claimMinIdle) {
+        FliptStreamConsumer consumer = newConsumer(handler, CONSUMER_ID, claimMinIdle);
+        consumer.start();
+        consumers.add(consumer);
+        // A new group starts at the end of the stream, so only add entries once it exists
+        await().until(this::groupExists);
+        return consumer;
+    }
+
+    private FliptStreamConsumer newConsumer(FliptUnifiedUpdateHandler handler, String consumerId, Duration claimMinIdle) {
+        return new FliptStreamConsumer(redisTemplate, handler, List.of(STREAM), consumerId, "message", 10,
+                Duration.ofMillis(100), claimMinIdle, Duration.ofMillis(100));
+    }
+
+    private static FliptUnifiedUpdateHandler completingHandler(List<String> received) {
+        FliptUnifiedUpdateHandler handler = mock(FliptUnifiedUpdateHandler.class);
+        doAnswer(invocation -> {
+            received.add(invocation.getArgument(0));
+            invocation.<Runnable>getArgument(1).run();
+            return null;
+        }).when(handler).handleStreamMessage(anyString(), any());
+        return handler;
+    }
+
+    private static FliptUnifiedUpdateHandler recordingHandler(List<String> received) {
+        FliptUnifiedUpdateHandler handler = mock(FliptUnifiedUpdateHandler.class);
+        doAnswer(invocation -> {
+            received.add(invocation.getArgument(0));
+            return null;
+        }).when(handler).handleStreamMessage(anyString(), any());
+        return handler;
+    }
+
+    private void add(String payload) {
+        redisTemplate.opsForStream().add(STREAM, Map.of("message", payload));
+    }
+
+    private long pendingCount() {
+        return redisTemplate.opsForStream().pending(STREAM, GROUP).getTotalPendingMessages();
+    }
+
+    private boolean groupExists() {
+        try {
+            return redisTemplate.opsForStream().groups(STREAM).stream()
+                    .anyMatch(group -> GROUP.equals(group.groupName()));
+        } catch (DataAccessException e) {
+            // The stream does not exist yet
+            return false;
+        }
+    }
+}
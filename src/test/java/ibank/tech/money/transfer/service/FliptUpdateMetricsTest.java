@@ -0,0 +1,91 @@
+package ibank.tech.money.transfer.service;
+
+import ibank.tech.money.transfer.dto.FliptGenericUpdateEvent;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.runner.ApplicationContextRunner;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Namespace tags of {@link FliptUpdateMetrics} stay within the configured namespaces
+ */
+class FliptUpdateMetricsTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final FliptUpdateMetrics metrics = new FliptUpdateMetrics(meterRegistry, 0.0,
+            Map.of("bep", "token", "rdb", "token"));
+
+    @Test
+    void tagsUnknownNamespacesAsOther() {
+        for (int i = 0; i < 100; i++) {
+            metrics.recordProcessed(flagEvent("tenant-" + i), 1_000);
+        }
+        metrics.recordProcessed(flagEvent("bep"), 1_000);
+        metrics.recordProcessed(flagEvent("rdb"), 1_000);
+
+        assertThat(namespaceTags("flipt.update.process")).containsExactlyInAnyOrder("bep", "rdb", "other");
+        assertThat(meterRegistry.get("flipt.update.process").tag("namespace", "other").timer().count())
+                .isEqualTo(100);
+    }
+
+    @Test
+    void tagsRefreshesOfUnknownNamespacesAsOther() {
+        metrics.recordRefresh("bep", "success", 1_000);
+        metrics.recordRefresh("unknown-1", "failure", 1_000);
+        metrics.recordRefresh("unknown-2", "failure", 1_000);
+
+        assertThat(namespaceTags("flipt.refresh")).containsExactlyInAnyOrder("bep", "other");
+        assertThat(meterRegistry.get("flipt.refresh").tags("namespace", "other", "result", "failure").timer().count())
+                .isEqualTo(2);
+    }
+
+    @Test
+    void readsNamespacesFromTokenProperty() {
+        new ApplicationContextRunner()
+                .withBean(SimpleMeterRegistry.class)
+                .withBean(FliptUpdateMetrics.class)
+                .withPropertyValues("feature-flag.namespace-tokens={bep:'token'}")
+                .run(context -> {
+                    context.getBean(FliptUpdateMetrics.class).recordRefresh("bep", "success", 1_000);
+                    context.getBean(FliptUpdateMetrics.class).recordRefresh("pep", "success", 1_000);
+
+                    assertThat(context.getBean(MeterRegistry.class).find("flipt.refresh").timers().stream()
+                            .map(timer -> timer.getId().getTag("namespace")))
+                            .containsExactlyInAnyOrder("bep", "other");
+                });
+    }
+
+    @Test
+    void tagsEveryNamespaceAsOtherWithoutTokens() {
+        new ApplicationContextRunner()
+                .withBean(SimpleMeterRegistry.class)
+                .withBean(FliptUpdateMetrics.class)
+                .run(context -> {
+                    context.getBean(FliptUpdateMetrics.class).recordRefresh("bep", "success", 1_000);
+
+                    assertThat(context.getBean(MeterRegistry.class).get("flipt.refresh").timer().getId()
+                            .getTag("namespace")).isEqualTo("other");
+                });
+    }
+
+    private Set<String> namespaceTags(String meterName) {
+        return meterRegistry.find(meterName).timers().stream()
+                .map(Timer::getId)
+                .map(id -> id.getTag("namespace"))
+                .collect(Collectors.toSet());
+    }
+
+    private static FliptGenericUpdateEvent flagEvent(String namespace) {
+        FliptGenericUpdateEvent event = new FliptGenericUpdateEvent();
+        event.setType("flag.update");
+        event.setData(Map.of("action", "updated", "namespace", namespace, "flag_key", "large-transfer"));
+        return event;
+    }
+}
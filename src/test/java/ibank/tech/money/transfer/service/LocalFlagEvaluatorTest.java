@@ -0,0 +1,156 @@
+package ibank.tech.money.transfer.service;
+
+import ibank.tech.money.transfer.dto.FliptEvaluationSnapshot;
+import ibank.tech.money.transfer.dto.NamespaceSnapshot;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Segment match types and segment operators of {@link LocalFlagEvaluator}, checked against the
+ * results Flipt returns for the same flags: an ALL segment needs every constraint to match, an ANY
+ * segment one of them; an OR rollout needs one of its segments to match, an AND rollout all of them.
+ * Number lists are compared as numbers.
+ */
+class LocalFlagEvaluatorTest {
+
+    private static final String NAMESPACE = "bep";
+
+    private FlagSnapshotStore store;
+    private LocalFlagEvaluator evaluator;
+
+    @BeforeEach
+    void loadNamespace() {
+        FliptEvaluationSnapshot.Segment retailEuropeAll = segment("retail-europe-all", "ALL_MATCH_TYPE",
+                constraint("STRING_CONSTRAINT_COMPARISON_TYPE", "role", "eq", "retail"),
+                constraint("STRING_CONSTRAINT_COMPARISON_TYPE", "region", "isoneof", "[\"eu\",\"uk\"]"));
+        FliptEvaluationSnapshot.Segment retailEuropeAny = segment("retail-europe-any", "ANY_MATCH_TYPE",
+                constraint("STRING_CONSTRAINT_COMPARISON_TYPE", "role", "eq", "retail"),
+                constraint("STRING_CONSTRAINT_COMPARISON_TYPE", "region", "isoneof", "[\"eu\",\"uk\"]"));
+        FliptEvaluationSnapshot.Segment largeAmount = segment("large-amount", "ALL_MATCH_TYPE",
+                constraint("NUMBER_CONSTRAINT_COMPARISON_TYPE", "amount", "gte", "10000"));
+        FliptEvaluationSnapshot.Segment listedAmount = segment("listed-amount", "ALL_MATCH_TYPE",
+                constraint("NUMBER_CONSTRAINT_COMPARISON_TYPE", "amount", "isoneof", "[10, 75.25]"));
+        FliptEvaluationSnapshot.Segment unlistedAmount = segment("unlisted-amount", "ALL_MATCH_TYPE",
+                constraint("NUMBER_CONSTRAINT_COMPARISON_TYPE", "amount", "isnotoneof", "[\"10\",\"75.25\"]"));
+
+        store = new FlagSnapshotStore();
+        store.replace(NamespaceSnapshot.fromFlipt(NAMESPACE, new FliptEvaluationSnapshot(null, List.of(
+                flag("all-segment", "OR_SEGMENT_OPERATOR", retailEuropeAll),
+                flag("any-segment", "OR_SEGMENT_OPERATOR", retailEuropeAny),
+                flag("or-segments", "OR_SEGMENT_OPERATOR", retailEuropeAll, largeAmount),
+                flag("and-segments", "AND_SEGMENT_OPERATOR", retailEuropeAll, largeAmount),
+                flag("listed-amount", "OR_SEGMENT_OPERATOR", listedAmount),
+                flag("unlisted-amount", "OR_SEGMENT_OPERATOR", unlistedAmount)))));
+        evaluator = new LocalFlagEvaluator(store, new EvaluationResultCache(store, 1_000, new SimpleMeterRegistry()));
+    }
+
+    @Test
+    void parsesFliptMatchTypes() {
+        assertThat(segment("retail-europe-any").matchType()).isEqualTo(NamespaceSnapshot.MatchType.ANY);
+        assertThat(segment("retail-europe-all").matchType()).isEqualTo(NamespaceSnapshot.MatchType.ALL);
+    }
+
+    @Test
+    void allSegmentNeedsEveryConstraint() {
+        assertThat(evaluate("all-segment", context("retail", "eu", "10"))).isTrue();
+        assertThat(evaluate("all-segment", context("retail", "us", "10"))).isFalse();
+        assertThat(evaluate("all-segment", context("business", "eu", "10"))).isFalse();
+    }
+
+    @Test
+    void anySegmentNeedsOneConstraint() {
+        assertThat(evaluate("any-segment", context("retail", "eu", "10"))).isTrue();
+        assertThat(evaluate("any-segment", context("retail", "us", "10"))).isTrue();
+        assertThat(evaluate("any-segment", context("business", "uk", "10"))).isTrue();
+        assertThat(evaluate("any-segment", context("business", "us", "10"))).isFalse();
+    }
+
+    @Test
+    void orOperatorNeedsOneSegment() {
+        assertThat(evaluate("or-segments", context("retail", "eu", "10"))).isTrue();
+        assertThat(evaluate("or-segments", context("business", "us", "20000"))).isTrue();
+        assertThat(evaluate("or-segments", context("business", "us", "10"))).isFalse();
+    }
+
+    @Test
+    void andOperatorNeedsEverySegment() {
+        assertThat(evaluate("and-segments", context("retail", "eu", "20000"))).isTrue();
+        assertThat(evaluate("and-segments", context("retail", "eu", "10"))).isFalse();
+        assertThat(evaluate("and-segments", context("business", "us", "20000"))).isFalse();
+    }
+
+    @Test
+    void numberListsCompareNumbers() {
+        assertThat(evaluate("listed-amount", context("retail", "eu", "10.0"))).isTrue();
+        assertThat(evaluate("listed-amount", context("retail", "eu", "75.25"))).isTrue();
+        assertThat(evaluate("listed-amount", context("retail", "eu", "11.0"))).isFalse();
+        assertThat(evaluate("unlisted-amount", context("retail", "eu", "10.0"))).isFalse();
+        assertThat(evaluate("unlisted-amount", context("retail", "eu", "11.0"))).isTrue();
+    }
+
+    @Test
+    void unknownFlagIsNotEvaluatedLocally() {
+        assertThat(evaluator.evaluate(NAMESPACE, "missing", "user-1", Map.of())).isNull();
+        assertThat(evaluator.evaluate("other", "any-segment", "user-1", Map.of())).isNull();
+    }
+
+    private Boolean evaluate(String flagKey, Map<String, String> context) {
+        return evaluator.evaluate(NAMESPACE, flagKey, "user-1", context);
+    }
+
+    private NamespaceSnapshot.Segment segment(String key) {
+        return store.get(NAMESPACE).getSegment(key);
+    }
+
+    private static Map<String, String> context(String role, String region, String amount) {
+        return Map.of("role", role, "region", region, "amount", amount);
+    }
+
+    /**
+     * Boolean flag, disabled by default, enabled by one segment rollout on the given segments
+     */
+    private static FliptEvaluationSnapshot.Flag flag(String key, String segmentOperator,
+                                                     FliptEvaluationSnapshot.Segment... segments) {
+        FliptEvaluationSnapshot.RolloutSegment rolloutSegment = new FliptEvaluationSnapshot.RolloutSegment();
+        rolloutSegment.setValue(true);
+        rolloutSegment.setSegmentOperator(segmentOperator);
+        rolloutSegment.setSegments(List.of(segments));
+        FliptEvaluationSnapshot.Rollout rollout = new FliptEvaluationSnapshot.Rollout();
+        rollout.setType("SEGMENT_ROLLOUT_TYPE");
+        rollout.setRank(1);
+        rollout.setSegment(rolloutSegment);
+
+        FliptEvaluationSnapshot.Flag flag = new FliptEvaluationSnapshot.Flag();
+        flag.setKey(key);
+        flag.setName(key);
+        flag.setType("BOOLEAN_FLAG_TYPE");
+        flag.setEnabled(false);
+        flag.setRollouts(List.of(rollout));
+        return flag;
+    }
+
+    private static FliptEvaluationSnapshot.Segment segment(String key, String matchType,
+                                                           FliptEvaluationSnapshot.Constraint... constraints) {
+        FliptEvaluationSnapshot.Segment segment = new FliptEvaluationSnapshot.Segment();
+        segment.setKey(key);
+        segment.setMatchType(matchType);
+        segment.setConstraints(List.of(constraints));
+        return segment;
+    }
+
+    private static FliptEvaluationSnapshot.Constraint constraint(String type, String property, String operator,
+                                                                 String value) {
+        FliptEvaluationSnapshot.Constraint constraint = new FliptEvaluationSnapshot.Constraint();
+        constraint.setType(type);
+        constraint.setProperty(property);
+        constraint.setOperator(operator);
+        constraint.setValue(value);
+        return constraint;
+    }
+}
@@ -0,0 +1,115 @@
+package ibank.tech.money.transfer.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+
+/**
+ * Debouncing, staleness bound and follow-up refreshes of {@link NamespaceRefreshScheduler}
+ */
+class NamespaceRefreshSchedulerTest {
+
+    private static final Duration DEBOUNCE = Duration.ofMillis(100);
+
+    private final List<String> refreshed = new CopyOnWriteArrayList<>();
+    private NamespaceRefreshScheduler scheduler;
+
+    @AfterEach
+    void shutdown() {
+        scheduler.shutdown();
+    }
+
+    @Test
+    void coalescesBurstIntoOneRefresh() throws InterruptedException {
+        scheduler = scheduler(refreshed::add, Duration.ofSeconds(5));
+
+        for (int i = 0; i < 50; i++) {
+            scheduler.requestRefresh("bep");
+        }
+        scheduler.requestRefresh("pep");
+
+        await().atMost(Duration.ofSeconds(2)).until(() -> refreshed.size() == 2);
+        Thread.sleep(DEBOUNCE.multipliedBy(3).toMillis());
+        assertThat(refreshed).containsExactlyInAnyOrder("bep", "pep");
+        assertThat(scheduler.getRequestedCount()).isEqualTo(51);
+        assertThat(scheduler.getExecutedCount()).isEqualTo(2);
+        assertThat(scheduler.getCoalescedCount()).isEqualTo(49);
+    }
+
+    @Test
+    void refreshesWithinMaxStalenessUnderSteadyRequests() throws InterruptedException {
+        Duration maxStaleness = Duration.ofMillis(300);
+        scheduler = scheduler(refreshed::add, maxStaleness);
+        long startedAt = System.nanoTime();
+
+        // Each request would push the debounce deadline out again
+        while (refreshed.isEmpty() && System.nanoTime() - startedAt < TimeUnit.SECONDS.toNanos(3)) {
+            scheduler.requestRefresh("bep");
+            Thread.sleep(DEBOUNCE.toMillis() / 4);
+        }
+
+        assertThat(refreshed).containsExactly("bep");
+        assertThat(Duration.ofNanos(System.nanoTime() - startedAt)).isLessThan(maxStaleness.multipliedBy(3));
+    }
+
+    @Test
+    void runsOneFollowUpForRequestsDuringRefresh() throws InterruptedException {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        scheduler = scheduler(namespace -> {
+            refreshed.add(namespace);
+            started.countDown();
+            awaitRelease(release);
+        }, Duration.ofSeconds(5));
+
+        scheduler.requestRefresh("bep");
+        assertThat(started.await(2, TimeUnit.SECONDS)).isTrue();
+        // The running fetch may have missed these changes
+        for (int i = 0; i < 10; i++) {
+            scheduler.requestRefresh("bep");
+        }
+        release.countDown();
+
+        await().atMost(Duration.ofSeconds(2)).until(() -> refreshed.size() == 2);
+        Thread.sleep(DEBOUNCE.multipliedBy(3).toMillis());
+        assertThat(scheduler.getExecutedCount()).isEqualTo(2);
+        assertThat(scheduler.getCoalescedCount()).isEqualTo(9);
+    }
+
+    @Test
+    void keepsSchedulingAfterFailedRefresh() {
+        scheduler = scheduler(namespace -> {
+            refreshed.add(namespace);
+            if (refreshed.size() == 1) {
+                throw new IllegalStateException("Flipt unavailable");
+            }
+        }, Duration.ofSeconds(5));
+
+        scheduler.requestRefresh("bep");
+        await().atMost(Duration.ofSeconds(2)).until(() -> refreshed.size() == 1);
+        scheduler.requestRefresh("bep");
+
+        await().atMost(Duration.ofSeconds(2)).until(() -> refreshed.size() == 2);
+    }
+
+    private NamespaceRefreshScheduler scheduler(Consumer<String> refreshAction, Duration maxStaleness) {
+        return new NamespaceRefreshScheduler("test-refresh", refreshAction, DEBOUNCE, maxStaleness, 2);
+    }
+
+    private static void awaitRelease(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
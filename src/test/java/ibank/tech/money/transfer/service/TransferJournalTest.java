@@ -0,0 +1,299 @@
+package ibank.tech.money.transfer.service;
+
+import ibank.tech.money.transfer.exception.JournalException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.awaitility.Awaitility.await;
+
+/**
+ * Recovery, segment roll-over, checkpointing and group commit of {@link TransferJournal} in a temporary directory
+ */
+class TransferJournalTest {
+
+    // Header, fixed body and the two five-byte account ids of every posting written here
+    private static final int RECORD_SIZE = 8 + 28 + 10;
+    // Room for four records and an end marker, so the fifth record rolls over
+    private static final DataSize SMALL_SEGMENT = DataSize.ofBytes(4 * RECORD_SIZE + 16);
+    private static final DataSize LARGE_SEGMENT = DataSize.ofKilobytes(4);
+    private static final String FIRST_SEGMENT = "journal-00000000000000000001.log";
+
+    @TempDir
+    Path directory;
+
+    private final List<TransferJournal> opened = new ArrayList<>();
+
+    @AfterEach
+    void closeJournals() throws InterruptedException {
+        for (TransferJournal journal : opened) {
+            journal.close();
+        }
+    }
+
+    @Test
+    void replaysRecordsAfterCleanClose() throws InterruptedException {
+        TransferJournal journal = open(LARGE_SEGMENT);
+        assertThat(journal.recover(new Postings())).isZero();
+        long last = appendTransfers(journal, 1, 3);
+        journal.awaitDurable(last);
+        journal.close();
+
+        Postings postings = new Postings();
+        TransferJournal reopened = open(LARGE_SEGMENT);
+
+        assertThat(reopened.recover(postings)).isEqualTo(3);
+        assertThat(postings.entries).containsExactly("ACC-1>ACC-2:100", "ACC-1>ACC-2:200", "ACC-1>ACC-2:300");
+        assertThat(reopened.append("ACC-2", "ACC-1", 50)).isEqualTo(4);
+    }
+
+    @Test
+    void corruptTailRecordEndsTheLog() throws Exception {
+        writeAndClose(LARGE_SEGMENT, 3);
+        // Flip a byte of the third amount, so its crc no longer matches
+        Path segment = directory.resolve(FIRST_SEGMENT);
+        int amountOffset = 2 * RECORD_SIZE + 8 + 16 + Long.BYTES - 1;
+        byte original = readByte(segment, amountOffset);
+        writeBytes(segment, amountOffset, (byte) (original ^ 0x55));
+
+        assertRecoveryEndsAfterTwoRecords();
+    }
+
+    @Test
+    void tornTailRecordEndsTheLog() throws Exception {
+        writeAndClose(LARGE_SEGMENT, 3);
+        // A length running past the end of the segment, as left by a write that never finished
+        writeBytes(directory.resolve(FIRST_SEGMENT), 2 * RECORD_SIZE,
+                ByteBuffer.allocate(Integer.BYTES).putInt(Integer.MAX_VALUE / 2).array());
+
+        assertRecoveryEndsAfterTwoRecords();
+    }
+
+    @Test
+    void ignoresStaleRecordsPastTheEndMarker() throws Exception {
+        writeAndClose(LARGE_SEGMENT, 4);
+        // End the log after the second record; the intact third and fourth records behind it are stale
+        writeBytes(directory.resolve(FIRST_SEGMENT), 2 * RECORD_SIZE, new byte[Integer.BYTES]);
+
+        Postings postings = new Postings();
+        TransferJournal journal = open(LARGE_SEGMENT);
+        assertThat(journal.recover(postings)).isEqualTo(2);
+        journal.awaitDurable(journal.append("ACC-2", "ACC-1", 50));
+        journal.close();
+
+        Postings replayed = new Postings();
+        assertThat(open(LARGE_SEGMENT).recover(replayed)).isEqualTo(3);
+        assertThat(replayed.entries).containsExactly("ACC-1>ACC-2:100", "ACC-1>ACC-2:200", "ACC-2>ACC-1:50");
+    }
+
+    @Test
+    void ignoresIntactRecordOfAnEarlierRunWithAnotherSequence() throws Exception {
+        writeAndClose(LARGE_SEGMENT, 4);
+        // Put the complete fourth record where the third is expected
+        Path segment = directory.resolve(FIRST_SEGMENT);
+        byte[] fourth = new byte[RECORD_SIZE];
+        try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.READ)) {
+            channel.read(ByteBuffer.wrap(fourth), 3 * RECORD_SIZE);
+        }
+        writeBytes(segment, 2 * RECORD_SIZE, fourth);
+
+        Postings postings = new Postings();
+        assertThat(open(LARGE_SEGMENT).recover(postings)).isEqualTo(2);
+        assertThat(postings.entries).containsExactly("ACC-1>ACC-2:100", "ACC-1>ACC-2:200");
+    }
+
+    @Test
+    void rollsOverSegmentsAndCheckpointsClosedOnes() throws Exception {
+        TransferJournal journal = open(SMALL_SEGMENT);
+        journal.recover(new Postings());
+        journal.awaitDurable(appendTransfers(journal, 1, 10));
+        journal.close();
+
+        assertThat(journal.getStats())
+                .containsEntry("appendedSequence", 10L)
+                .containsEntry("checkpointSequence", 8L)
+                .containsEntry("checkpoints", 2L);
+        assertThat(fileNames()).containsExactlyInAnyOrder("checkpoint.bin", "journal-00000000000000000009.log");
+
+        Postings postings = new Postings();
+        TransferJournal reopened = open(SMALL_SEGMENT);
+
+        assertThat(reopened.recover(postings)).isEqualTo(2);
+        assertThat(postings.balances).containsOnly(Map.entry("ACC-1", -5_500L), Map.entry("ACC-2", 5_500L));
+        assertThat(reopened.append("ACC-2", "ACC-1", 50)).isEqualTo(11);
+    }
+
+    @Test
+    void deletesSegmentCoveredByCheckpointWhenCrashedBeforeDeletingIt() throws Exception {
+        writeAndClose(SMALL_SEGMENT, 6);
+        assertThat(fileNames()).containsExactlyInAnyOrder("checkpoint.bin", "journal-00000000000000000005.log");
+        // The first segment as it was when the checkpoint covering it was written
+        Path earlierRun = Files.createDirectory(directory.resolve("earlier-run"));
+        TransferJournal earlier = open(earlierRun, SMALL_SEGMENT, Duration.ofSeconds(2));
+        earlier.recover(new Postings());
+        earlier.awaitDurable(appendTransfers(earlier, 1, 4));
+        earlier.close();
+        Files.copy(earlierRun.resolve(FIRST_SEGMENT), directory.resolve(FIRST_SEGMENT));
+
+        Postings postings = new Postings();
+
+        assertThat(open(SMALL_SEGMENT).recover(postings)).isEqualTo(2);
+        assertThat(postings.balances).containsOnly(Map.entry("ACC-1", -2_100L), Map.entry("ACC-2", 2_100L));
+        assertThat(directory.resolve(FIRST_SEGMENT)).doesNotExist();
+    }
+
+    @Test
+    void awaitDurableTimesOutWhenRecordIsNotSynced() {
+        TransferJournal journal = open(directory, LARGE_SEGMENT, Duration.ofMillis(100));
+        journal.recover(new Postings());
+        long sequence = journal.append("ACC-1", "ACC-2", 100);
+
+        // A sequence that was never appended cannot be synced
+        assertThatThrownBy(() -> journal.awaitDurable(sequence + 1))
+                .isInstanceOf(JournalException.class)
+                .hasMessageContaining("Timed out");
+        journal.awaitDurable(sequence);
+    }
+
+    @Test
+    void awaitDurableFailsWhileSyncFailsAndRecoversAfterwards() {
+        AtomicBoolean failing = new AtomicBoolean(true);
+        TransferJournal journal = new TransferJournal(directory.toString(), LARGE_SEGMENT, Duration.ofMillis(10),
+                Duration.ofSeconds(2)) {
+            @Override
+            void force(MappedByteBuffer buffer) {
+                if (failing.get()) {
+                    throw new UncheckedIOException(new IOException("No space left on device"));
+                }
+                super.force(buffer);
+            }
+        };
+        opened.add(journal);
+        journal.recover(new Postings());
+        long sequence = journal.append("ACC-1", "ACC-2", 100);
+
+        assertThatThrownBy(() -> journal.awaitDurable(sequence))
+                .isInstanceOf(JournalException.class)
+                .hasMessageContaining("sync failed")
+                .hasRootCauseMessage("No space left on device");
+
+        failing.set(false);
+        await().atMost(Duration.ofSeconds(2)).untilAsserted(() -> journal.awaitDurable(sequence));
+        assertThat(journal.getStats()).containsEntry("syncs", 1L);
+    }
+
+    @Test
+    void rejectsAppendsAfterClose() throws InterruptedException {
+        TransferJournal journal = open(LARGE_SEGMENT);
+        journal.recover(new Postings());
+        journal.close();
+
+        assertThatThrownBy(() -> journal.append("ACC-1", "ACC-2", 100))
+                .isInstanceOf(JournalException.class);
+    }
+
+    private void assertRecoveryEndsAfterTwoRecords() throws InterruptedException {
+        Postings postings = new Postings();
+        TransferJournal journal = open(LARGE_SEGMENT);
+        assertThat(journal.recover(postings)).isEqualTo(2);
+        assertThat(postings.entries).containsExactly("ACC-1>ACC-2:100", "ACC-1>ACC-2:200");
+
+        // The discarded record's sequence is written again, and its bytes do not come back
+        assertThat(journal.append("ACC-2", "ACC-1", 50)).isEqualTo(3);
+        journal.awaitDurable(3);
+        journal.close();
+        Postings replayed = new Postings();
+        assertThat(open(LARGE_SEGMENT).recover(replayed)).isEqualTo(3);
+        assertThat(replayed.entries).containsExactly("ACC-1>ACC-2:100", "ACC-1>ACC-2:200", "ACC-2>ACC-1:50");
+    }
+
+    private void writeAndClose(DataSize segmentSize, int transfers) throws InterruptedException {
+        TransferJournal journal = open(segmentSize);
+        journal.recover(new Postings());
+        journal.awaitDurable(appendTransfers(journal, 1, transfers));
+        journal.close();
+    }
+
+    /**
+     * Transfer number n moves n * 100 from ACC-1 to ACC-2
+     *
+     * @return the sequence of the last record
+     */
+    private static long appendTransfers(TransferJournal journal, int first, int last) {
+        long sequence = 0;
+        for (int n = first; n <= last; n++) {
+            sequence = journal.append("ACC-1", "ACC-2", n * 100L);
+        }
+        return sequence;
+    }
+
+    private TransferJournal open(DataSize segmentSize) {
+        return open(directory, segmentSize, Duration.ofSeconds(2));
+    }
+
+    private TransferJournal open(Path journalDirectory, DataSize segmentSize, Duration syncTimeout) {
+        TransferJournal journal = new TransferJournal(journalDirectory.toString(), segmentSize, Duration.ofMillis(10),
+                syncTimeout);
+        opened.add(journal);
+        return journal;
+    }
+
+    private List<String> fileNames() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(Files::isRegularFile).map(path -> path.getFileName().toString()).toList();
+        }
+    }
+
+    private static byte readByte(Path file, int position) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(1);
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            channel.read(buffer, position);
+        }
+        return buffer.get(0);
+    }
+
+    private static void writeBytes(Path file, int position, byte... bytes) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.wrap(bytes), position);
+        }
+    }
+
+    /**
+     * Records what recovery hands to the ledger, as entries and as net balances
+     */
+    private static class Postings implements TransferJournal.RecordHandler {
+
+        private final List<String> entries = new ArrayList<>();
+        private final Map<String, Long> balances = new HashMap<>();
+
+        @Override
+        public void apply(String fromAccountId, String toAccountId, long amount) {
+            entries.add(fromAccountId + ">" + toAccountId + ":" + amount);
+            if (!fromAccountId.isEmpty()) {
+                balances.merge(fromAccountId, -amount, Long::sum);
+            }
+            if (!toAccountId.isEmpty()) {
+                balances.merge(toAccountId, amount, Long::sum);
+            }
+        }
+    }
+}